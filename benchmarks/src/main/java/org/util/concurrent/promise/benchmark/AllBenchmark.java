@@ -0,0 +1,114 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.util.concurrent.promise.Deferred;
+import org.util.concurrent.promise.Outcome;
+import org.util.concurrent.promise.Promise;
+import org.util.concurrent.promise.Promises;
+
+/**
+ * Represents the {@link Promises#all(java.util.Collection)} and {@link Promises#allSettled(java.util.Collection)}
+ * fan-in benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AllBenchmark {
+
+    /**
+     * The value.
+     */
+    private static final Integer VALUE = Integer.valueOf(1);
+
+    /**
+     * The fan-in width.
+     */
+    @Param({ "2", "10", "100", "1000", "100000" })
+    public int width;
+
+    /**
+     * The completed promises.
+     */
+    private List<Promise<Integer>> _completed;
+
+    /**
+     * The pending deferreds.
+     */
+    private List<Deferred<Integer>> _pending;
+
+    @Setup
+    public void setUp() {
+        _completed = new ArrayList<>(width);
+        _pending = new ArrayList<>(width);
+        for (int i = 0; i < width; ++i) {
+            _completed.add(Promises.newSuccess(VALUE));
+            _pending.add(null);
+        }
+    }
+
+    @Benchmark
+    public Promise<List<Integer>> completedAll() {
+        return Promises.all(_completed);
+    }
+
+    @Benchmark
+    public Promise<List<Integer>> pendingAll() {
+        for (int i = 0; i < width; ++i) {
+            _pending.set(i, new Deferred<Integer>());
+        }
+        final Promise<List<Integer>> promise = Promises.all(_pending);
+
+        for (int i = 0; i < width; ++i) {
+            _pending.get(i).trySuccess(VALUE);
+        }
+
+        return promise;
+    }
+
+    @Benchmark
+    public Promise<List<Outcome<Integer>>> pendingAllSettled() {
+        for (int i = 0; i < width; ++i) {
+            _pending.set(i, new Deferred<Integer>());
+        }
+        final Promise<List<Outcome<Integer>>> promise = Promises.allSettled(_pending);
+
+        for (int i = 0; i < width; ++i) {
+            _pending.get(i).trySuccess(VALUE);
+        }
+
+        return promise;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.util.concurrent.promise.Deferred;
+import org.util.concurrent.promise.Promise;
+import org.util.concurrent.promise.Promises;
+
+/**
+ * Represents the {@link Promises#await(Promise)} latency benchmarks.
+ */
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AwaitBenchmark {
+
+    /**
+     * The value.
+     */
+    private static final Integer VALUE = Integer.valueOf(1);
+
+    /**
+     * The completed promise.
+     */
+    private final Promise<Integer> _completed = Promises.newSuccess(VALUE);
+
+    /**
+     * The executor completing the pending deferreds.
+     */
+    private ExecutorService _executor;
+
+    @Setup
+    public void setUp() {
+        _executor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        _executor.shutdown();
+        _executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    @Benchmark
+    public Integer completed() throws Exception {
+        return Promises.await(_completed);
+    }
+
+    @Benchmark
+    public Integer completedWithTimeout() throws Exception {
+        return Promises.await(_completed, 1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public Integer completedByOtherThread() throws Exception {
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        _executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                deferred.trySuccess(VALUE);
+            }
+        });
+
+        return Promises.await(deferred);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+/**
+ * Represents a preallocated benchmark exception without a stack trace.
+ */
+final class BenchmarkException extends Exception {
+
+    /**
+     * The serial version UID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The shared instance.
+     */
+    public static final BenchmarkException INSTANCE = new BenchmarkException();
+
+    /**
+     * Initializes a new instance of the {@link BenchmarkException} class.
+     */
+    private BenchmarkException() {
+        super("Benchmark failure", null, false, false);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.util.concurrent.promise.AsyncLoadingCache;
+import org.util.concurrent.promise.Compose;
+import org.util.concurrent.promise.Promise;
+import org.util.concurrent.promise.Promises;
+
+/**
+ * Represents the {@link AsyncLoadingCache} hit path benchmarks.
+ * <p>
+ * All keys are loaded during setup, so every operation is a hit. The plain {@link ConcurrentHashMap} of promises is the
+ * baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    /**
+     * The number of keys.
+     */
+    private static final int KEYS = 1024;
+
+    /**
+     * The loader.
+     */
+    private static final Compose<Integer, Integer> LOADER = new Compose<Integer, Integer>() {
+        @Override
+        protected Promise<Integer> doCompose(final Integer key) {
+            return Promises.newSuccess(key);
+        }
+    };
+
+    /**
+     * The keys.
+     */
+    private final Integer[] _keys = new Integer[KEYS];
+
+    /**
+     * The map.
+     */
+    private final ConcurrentHashMap<Integer, Promise<Integer>> _map = new ConcurrentHashMap<>();
+
+    /**
+     * The cache without expiry.
+     */
+    private final AsyncLoadingCache<Integer, Integer> _cache = new AsyncLoadingCache<>(LOADER, KEYS);
+
+    /**
+     * The cache with expiry and refresh.
+     */
+    private final AsyncLoadingCache<Integer, Integer> _expiringCache = new AsyncLoadingCache<>(LOADER, KEYS, 1, 1, TimeUnit.HOURS);
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < KEYS; i++) {
+            _keys[i] = Integer.valueOf(i);
+            _map.put(_keys[i], Promises.newSuccess(_keys[i]));
+            _cache.get(_keys[i]);
+            _expiringCache.get(_keys[i]);
+        }
+    }
+
+    @Benchmark
+    public Promise<Integer> concurrentHashMap() {
+        return _map.get(_keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public Promise<Integer> cache() {
+        return _cache.get(_keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+
+    @Benchmark
+    public Promise<Integer> expiringCache() {
+        return _expiringCache.get(_keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.util.concurrent.promise.Apply;
+import org.util.concurrent.promise.Compose;
+import org.util.concurrent.promise.Deferred;
+import org.util.concurrent.promise.Promise;
+import org.util.concurrent.promise.Promises;
+
+/**
+ * Represents the {@link Apply} and {@link Compose} chaining benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChainBenchmark {
+
+    /**
+     * The value.
+     */
+    private static final Integer VALUE = Integer.valueOf(1);
+
+    /**
+     * The increment apply continuation.
+     */
+    private static final Apply<Integer, Integer> INCREMENT_APPLY = new Apply<Integer, Integer>() {
+        @Override
+        protected Integer doApply(final Integer value) throws Exception {
+            return Integer.valueOf(value.intValue() + 1);
+        }
+    };
+
+    /**
+     * The increment compose continuation.
+     */
+    private static final Compose<Integer, Integer> INCREMENT_COMPOSE = new Compose<Integer, Integer>() {
+        @Override
+        protected Promise<Integer> doCompose(final Integer value) throws Exception {
+            return Promises.newSuccess(Integer.valueOf(value.intValue() + 1));
+        }
+    };
+
+    /**
+     * The chain depth.
+     */
+    @Param({ "1", "10", "100", "1000", "10000" })
+    public int depth;
+
+    /**
+     * The completable.
+     */
+    private final CountingCompletable<Integer> _completable = new CountingCompletable<>();
+
+    @Benchmark
+    public Promise<Integer> pendingApply() {
+        final Deferred<Integer> deferred = new Deferred<>();
+        Promise<Integer> promise = deferred;
+
+        for (int i = 0; i < depth; ++i) {
+            promise = promise.then(INCREMENT_APPLY);
+        }
+        promise.then(_completable);
+        deferred.trySuccess(VALUE);
+
+        return promise;
+    }
+
+    @Benchmark
+    public Promise<Integer> completedApply() {
+        Promise<Integer> promise = Promises.newSuccess(VALUE);
+
+        for (int i = 0; i < depth; ++i) {
+            promise = promise.then(INCREMENT_APPLY);
+        }
+        promise.then(_completable);
+
+        return promise;
+    }
+
+    @Benchmark
+    public Promise<Integer> pendingCompose() {
+        final Deferred<Integer> deferred = new Deferred<>();
+        Promise<Integer> promise = deferred;
+
+        for (int i = 0; i < depth; ++i) {
+            promise = promise.then(INCREMENT_COMPOSE);
+        }
+        promise.then(_completable);
+        deferred.trySuccess(VALUE);
+
+        return promise;
+    }
+
+    @Benchmark
+    public Promise<Integer> completedCompose() {
+        Promise<Integer> promise = Promises.newSuccess(VALUE);
+
+        for (int i = 0; i < depth; ++i) {
+            promise = promise.then(INCREMENT_COMPOSE);
+        }
+        promise.then(_completable);
+
+        return promise;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.util.concurrent.promise.Deferred;
+
+/**
+ * Represents the contended {@link Deferred#trySuccess(Object)} benchmarks.
+ * <p>
+ * All threads race to complete the current deferred, the winner replaces it with a new pending deferred.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ContendedBenchmark {
+
+    /**
+     * The value.
+     */
+    private static final Integer VALUE = Integer.valueOf(1);
+
+    /**
+     * The current deferred.
+     */
+    private final AtomicReference<Deferred<Integer>> _current = new AtomicReference<>(new Deferred<Integer>());
+
+    /**
+     * The completable.
+     */
+    private final CountingCompletable<Integer> _completable = new CountingCompletable<>();
+
+    @Benchmark
+    public boolean trySuccess() {
+        final Deferred<Integer> deferred = _current.get();
+
+        if (!deferred.trySuccess(VALUE)) {
+            return false;
+        }
+        _current.compareAndSet(deferred, new Deferred<Integer>());
+
+        return true;
+    }
+
+    @Benchmark
+    public boolean thenTrySuccess() {
+        final Deferred<Integer> deferred = _current.get();
+
+        deferred.then(_completable);
+        if (!deferred.trySuccess(VALUE)) {
+            return false;
+        }
+        _current.compareAndSet(deferred, new Deferred<Integer>());
+
+        return true;
+    }
+}
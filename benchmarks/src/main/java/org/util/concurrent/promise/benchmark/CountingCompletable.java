@@ -0,0 +1,73 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import org.util.concurrent.promise.Completable;
+
+/**
+ * Represents a completable which counts its completions.
+ * 
+ * @param <T> The value type.
+ */
+final class CountingCompletable<T> implements Completable<T> {
+
+    /**
+     * The number of successful completions.
+     */
+    private long _successes;
+
+    /**
+     * The number of failed completions.
+     */
+    private long _failures;
+
+    /**
+     * Initializes a new instance of the {@link CountingCompletable} class.
+     */
+    public CountingCompletable() {
+        _successes = 0;
+        _failures = 0;
+    }
+
+    /**
+     * Returns the number of successful completions.
+     * 
+     * @return The number of successful completions.
+     */
+    public long getSuccesses() {
+        return _successes;
+    }
+
+    /**
+     * Returns the number of failed completions.
+     * 
+     * @return The number of failed completions.
+     */
+    public long getFailures() {
+        return _failures;
+    }
+
+    @Override
+    public void setSuccess(final T value) {
+        ++_successes;
+    }
+
+    @Override
+    public void setFailure(final Throwable cause) {
+        ++_failures;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.util.concurrent.promise.Deferred;
+
+/**
+ * Represents the {@link Deferred} fan-out benchmarks for N {@code then(Completable)} listeners.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FanOutBenchmark {
+
+    /**
+     * The value.
+     */
+    private static final Integer VALUE = Integer.valueOf(1);
+
+    /**
+     * The number of listeners.
+     */
+    @Param({ "1", "2", "10", "100", "1000" })
+    public int listeners;
+
+    /**
+     * The completable.
+     */
+    private final CountingCompletable<Integer> _completable = new CountingCompletable<>();
+
+    @Benchmark
+    public Deferred<Integer> pending() {
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        for (int i = 0; i < listeners; ++i) {
+            deferred.then(_completable);
+        }
+        deferred.trySuccess(VALUE);
+
+        return deferred;
+    }
+
+    @Benchmark
+    public Deferred<Integer> completed() {
+        final Deferred<Integer> deferred = new Deferred<>(VALUE);
+
+        for (int i = 0; i < listeners; ++i) {
+            deferred.then(_completable);
+        }
+
+        return deferred;
+    }
+}
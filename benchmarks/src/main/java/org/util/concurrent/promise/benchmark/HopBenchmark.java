@@ -0,0 +1,147 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.util.concurrent.promise.BatchingExecutor;
+import org.util.concurrent.promise.Completable;
+import org.util.concurrent.promise.Deferred;
+import org.util.concurrent.promise.ExecuteOn;
+
+/**
+ * Represents the {@link ExecuteOn} hop benchmarks.
+ * <p>
+ * A burst of deferreds completes on the benchmark thread and each completion hops to a worker pool, either submitted
+ * separately or batched by a {@link BatchingExecutor}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HopBenchmark {
+
+    /**
+     * The burst size.
+     */
+    private static final int BURST = 10000;
+
+    /**
+     * The value.
+     */
+    private static final Integer VALUE = Integer.valueOf(1);
+
+    /**
+     * The number of worker threads.
+     */
+    @Param({ "1", "4" })
+    public int threads;
+
+    /**
+     * The worker pool.
+     */
+    private ExecutorService _pool;
+
+    /**
+     * The per-completion continuation.
+     */
+    private ExecuteOn<Integer> _direct;
+
+    /**
+     * The batching continuation.
+     */
+    private ExecuteOn<Integer> _batching;
+
+    @Setup
+    public void setUp() {
+        _pool = Executors.newFixedThreadPool(threads);
+        _direct = new ExecuteOn<>(_pool);
+        _batching = new ExecuteOn<>(new BatchingExecutor(_pool));
+    }
+
+    @TearDown
+    public void tearDown() {
+        _pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void direct() throws InterruptedException {
+        burst(_direct);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void batching() throws InterruptedException {
+        burst(_batching);
+    }
+
+    /**
+     * Completes a burst of deferreds hopping with the specified continuation and awaits the hops.
+     * 
+     * @param continuation The continuation.
+     * @throws InterruptedException
+     */
+    private static void burst(final ExecuteOn<Integer> continuation) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(BURST);
+        final Completable<Integer> completable = new Completable<Integer>() {
+            @Override
+            public void setSuccess(final Integer value) {
+                latch.countDown();
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+                latch.countDown();
+            }
+        };
+        final Deferred<?>[] deferreds = new Deferred<?>[BURST];
+
+        for (int i = 0; i < BURST; ++i) {
+            final Deferred<Integer> deferred = new Deferred<>();
+
+            deferred.then(continuation).then(completable);
+            deferreds[i] = deferred;
+        }
+        for (int i = 0; i < BURST; ++i) {
+            @SuppressWarnings("unchecked")
+            final Deferred<Integer> deferred = (Deferred<Integer>) deferreds[i];
+
+            deferred.setSuccess(VALUE);
+        }
+        latch.await();
+    }
+}
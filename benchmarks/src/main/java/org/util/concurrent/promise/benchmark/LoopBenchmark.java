@@ -0,0 +1,115 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.util.concurrent.promise.Compose;
+import org.util.concurrent.promise.Deferred;
+import org.util.concurrent.promise.Promise;
+import org.util.concurrent.promise.Promises;
+
+/**
+ * Represents the recursive {@link Compose} loop benchmarks.
+ * <p>
+ * Each operation runs a complete asynchronous loop, which relies on trampolining to run in bounded stack depth, so the
+ * trampoline is enabled for the forked benchmark JVM.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.util.concurrent.promise.trampoline=true")
+@State(Scope.Thread)
+public class LoopBenchmark {
+
+    /**
+     * The number of loop steps.
+     */
+    @Param({ "1000000" })
+    public int steps;
+
+    /**
+     * Runs a loop step based on a completed promise.
+     * 
+     * @param step The step.
+     * @return The promise.
+     */
+    private Promise<Integer> completedLoop(final int step) {
+        if (step == steps) {
+            return Promises.newSuccess(Integer.valueOf(step));
+        }
+
+        return Promises.newSuccess(Integer.valueOf(step + 1)).then(new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) throws Exception {
+                return completedLoop(value.intValue());
+            }
+        });
+    }
+
+    /**
+     * Runs a loop step based on a pending deferred.
+     * 
+     * @param step The step.
+     * @param deferreds The deferreds to be completed.
+     * @return The promise.
+     */
+    private Promise<Integer> pendingLoop(final int step, final Deferred<Integer>[] deferreds) {
+        if (step == steps) {
+            return Promises.newSuccess(Integer.valueOf(step));
+        }
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        deferreds[0] = deferred;
+
+        return deferred.then(new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) throws Exception {
+                return pendingLoop(value.intValue(), deferreds);
+            }
+        });
+    }
+
+    @Benchmark
+    public Integer completed() throws Exception {
+        return Promises.await(completedLoop(0));
+    }
+
+    @Benchmark
+    public Integer pending() throws Exception {
+        @SuppressWarnings("unchecked")
+        final Deferred<Integer>[] deferreds = new Deferred[1];
+        final Promise<Integer> promise = pendingLoop(0, deferreds);
+
+        for (int i = 1; !promise.isComplete(); ++i) {
+            deferreds[0].trySuccess(Integer.valueOf(i));
+        }
+
+        return Promises.await(promise);
+    }
+}
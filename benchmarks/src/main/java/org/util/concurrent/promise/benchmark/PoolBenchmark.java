@@ -0,0 +1,87 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.util.concurrent.promise.Deferred;
+import org.util.concurrent.promise.DeferredPool;
+import org.util.concurrent.promise.PooledDeferred;
+
+/**
+ * Represents the {@link DeferredPool} benchmarks.
+ * <p>
+ * Each operation models a request: a deferred is created, a completable is added and the deferred is completed. Run
+ * with {@code -prof gc} to compare the allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class PoolBenchmark {
+
+    /**
+     * The value.
+     */
+    private static final Integer VALUE = Integer.valueOf(1);
+
+    /**
+     * The pool.
+     */
+    private final DeferredPool<Integer> _pool = new DeferredPool<>(1024, false);
+
+    /**
+     * The completable.
+     */
+    private final CountingCompletable<Integer> _completable = new CountingCompletable<>();
+
+    @Benchmark
+    public boolean allocating() {
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        deferred.then(_completable);
+
+        return deferred.trySuccess(VALUE);
+    }
+
+    @Benchmark
+    public boolean pooled() {
+        final PooledDeferred<Integer> deferred = _pool.acquire();
+        final int stamp = deferred.getStamp();
+
+        deferred.then(_completable);
+
+        final boolean success = deferred.trySuccess(stamp, VALUE);
+
+        deferred.recycle();
+
+        return success;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.util.concurrent.promise.Apply;
+import org.util.concurrent.promise.Deferred;
+import org.util.concurrent.promise.LongApply;
+import org.util.concurrent.promise.LongCompletable;
+import org.util.concurrent.promise.LongDeferred;
+import org.util.concurrent.promise.LongPromise;
+import org.util.concurrent.promise.Promise;
+import org.util.concurrent.promise.Promises;
+
+/**
+ * Represents the boxed {@link Apply} versus primitive {@link LongApply} chaining benchmarks.
+ * <p>
+ * The values are outside of the {@link Long} cache, so every boxed step allocates a box.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitiveBenchmark {
+
+    /**
+     * The value.
+     */
+    private static final long VALUE = 1000000L;
+
+    /**
+     * The boxed increment apply continuation.
+     */
+    private static final Apply<Long, Long> BOXED_INCREMENT = new Apply<Long, Long>() {
+        @Override
+        protected Long doApply(final Long value) throws Exception {
+            return Long.valueOf(value.longValue() + 1);
+        }
+    };
+
+    /**
+     * The primitive increment apply continuation.
+     */
+    private static final LongApply PRIMITIVE_INCREMENT = new LongApply() {
+        @Override
+        protected long doApply(final long value) throws Exception {
+            return value + 1;
+        }
+    };
+
+    /**
+     * The chain depth.
+     */
+    @Param({ "1", "10", "100" })
+    public int depth;
+
+    /**
+     * The boxed completable.
+     */
+    private final CountingCompletable<Long> _boxedCompletable = new CountingCompletable<>();
+
+    /**
+     * The primitive completable.
+     */
+    private final LongCompletable _primitiveCompletable = new LongCompletable() {
+        @Override
+        public void setSuccess(final long value) {
+            _sum += value;
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+        }
+    };
+
+    /**
+     * The sum of the primitive values.
+     */
+    private long _sum;
+
+    @Benchmark
+    public Promise<Long> pendingBoxed() {
+        final Deferred<Long> deferred = new Deferred<>();
+        Promise<Long> promise = deferred;
+
+        for (int i = 0; i < depth; ++i) {
+            promise = promise.then(BOXED_INCREMENT);
+        }
+        promise.then(_boxedCompletable);
+        deferred.trySuccess(Long.valueOf(VALUE));
+
+        return promise;
+    }
+
+    @Benchmark
+    public LongPromise pendingPrimitive() {
+        final LongDeferred deferred = new LongDeferred();
+        LongPromise promise = deferred;
+
+        for (int i = 0; i < depth; ++i) {
+            promise = promise.then(PRIMITIVE_INCREMENT);
+        }
+        promise.then(_primitiveCompletable);
+        deferred.trySuccess(VALUE);
+
+        return promise;
+    }
+
+    @Benchmark
+    public Promise<Long> completedBoxed() {
+        Promise<Long> promise = Promises.newSuccess(Long.valueOf(VALUE));
+
+        for (int i = 0; i < depth; ++i) {
+            promise = promise.then(BOXED_INCREMENT);
+        }
+        promise.then(_boxedCompletable);
+
+        return promise;
+    }
+
+    @Benchmark
+    public LongPromise completedPrimitive() {
+        LongPromise promise = new LongDeferred(VALUE);
+
+        for (int i = 0; i < depth; ++i) {
+            promise = promise.then(PRIMITIVE_INCREMENT);
+        }
+        promise.then(_primitiveCompletable);
+
+        return promise;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.reactive;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a subscriber which collects all elements into a list.
+ * 
+ * @param <T> The element type.
+ */
+final class CollectSubscriber<T> extends PromiseSubscriber<T, List<T>> {
+
+    /**
+     * The elements.
+     */
+    private final List<T> _elements;
+
+    /**
+     * Initializes a new instance of the {@link CollectSubscriber} class.
+     */
+    public CollectSubscriber() {
+        super(Long.MAX_VALUE);
+        _elements = new ArrayList<>();
+    }
+
+    @Override
+    public void onNext(final T element) {
+        if (element == null) {
+            throw new NullPointerException("Element must not be null");
+        }
+
+        _elements.add(element);
+    }
+
+    @Override
+    public void onComplete() {
+        trySuccess(_elements);
+    }
+}
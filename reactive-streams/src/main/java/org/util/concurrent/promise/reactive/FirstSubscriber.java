@@ -0,0 +1,50 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.reactive;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Represents a subscriber which takes the first element and cancels the subscription.
+ * 
+ * @param <T> The element type.
+ */
+final class FirstSubscriber<T> extends PromiseSubscriber<T, T> {
+
+    /**
+     * Initializes a new instance of the {@link FirstSubscriber} class.
+     */
+    public FirstSubscriber() {
+        super(1);
+    }
+
+    @Override
+    public void onNext(final T element) {
+        if (element == null) {
+            throw new NullPointerException("Element must not be null");
+        }
+
+        if (trySuccess(element)) {
+            cancel();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        tryFailure(new NoSuchElementException("Publisher completed without elements"));
+    }
+}
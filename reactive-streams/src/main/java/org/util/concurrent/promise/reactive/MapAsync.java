@@ -0,0 +1,441 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.reactive;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.util.concurrent.promise.Completable;
+import org.util.concurrent.promise.Compose;
+
+/**
+ * Represents a publisher which maps the elements of a source publisher by a compose continuation with a bounded number
+ * of pending mappings.
+ * <p>
+ * At most {@code parallelism} elements are requested from the source ahead of the elements emitted downstream, so the
+ * number of pending and buffered mappings never exceeds the parallelism. The results are emitted in the order of the
+ * source elements. The first failure of the source or of a mapping cancels the source and fails the subscriber.
+ * 
+ * @param <T> The element type.
+ * @param <R> The result type.
+ */
+final class MapAsync<T, R> implements Publisher<R> {
+
+    /**
+     * The source.
+     */
+    private final Publisher<? extends T> _source;
+
+    /**
+     * The compose continuation.
+     */
+    private final Compose<? super T, ? extends R> _compose;
+
+    /**
+     * The maximum number of pending mappings.
+     */
+    private final int _parallelism;
+
+    /**
+     * Initializes a new instance of the {@link MapAsync} class.
+     * 
+     * @param source The source.
+     * @param compose The compose continuation.
+     * @param parallelism The maximum number of pending mappings.
+     */
+    public MapAsync(final Publisher<? extends T> source, final Compose<? super T, ? extends R> compose, final int parallelism) {
+        _source = source;
+        _compose = compose;
+        _parallelism = parallelism;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super R> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber must not be null");
+        }
+
+        _source.subscribe(new MapAsyncSubscriber<T, R>(subscriber, _compose, _parallelism));
+    }
+
+    /**
+     * Represents the subscriber to the source which is the subscription of the downstream subscriber.
+     * 
+     * @param <T> The element type.
+     * @param <R> The result type.
+     */
+    private static final class MapAsyncSubscriber<T, R> implements Subscriber<T>, Subscription {
+
+        /**
+         * The requested updater.
+         */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicLongFieldUpdater<MapAsyncSubscriber> REQUESTED_UPDATER = AtomicLongFieldUpdater.newUpdater(MapAsyncSubscriber.class, "_requested");
+
+        /**
+         * The work in progress updater.
+         */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<MapAsyncSubscriber> WIP_UPDATER = AtomicIntegerFieldUpdater.newUpdater(MapAsyncSubscriber.class, "_wip");
+
+        /**
+         * The error updater.
+         */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<MapAsyncSubscriber, Throwable> ERROR_UPDATER = AtomicReferenceFieldUpdater.newUpdater(MapAsyncSubscriber.class, Throwable.class, "_error");
+
+        /**
+         * The downstream subscriber.
+         */
+        private final Subscriber<? super R> _downstream;
+
+        /**
+         * The compose continuation.
+         */
+        private final Compose<? super T, ? extends R> _compose;
+
+        /**
+         * The maximum number of pending mappings.
+         */
+        private final int _parallelism;
+
+        /**
+         * The number of emitted elements after which the source is replenished.
+         */
+        private final int _replenishThreshold;
+
+        /**
+         * The pending and buffered mappings in source order.
+         */
+        private final Queue<Mapping<R>> _mappings;
+
+        /**
+         * The subscription to the source or {@code null}.
+         */
+        private volatile Subscription _upstream;
+
+        /**
+         * The number of elements requested downstream.
+         */
+        private volatile long _requested;
+
+        /**
+         * The number of drain requests.
+         */
+        private volatile int _wip;
+
+        /**
+         * The first error or {@code null}.
+         */
+        private volatile Throwable _error;
+
+        /**
+         * A value indicating whether the source has completed.
+         */
+        private volatile boolean _upstreamDone;
+
+        /**
+         * A value indicating whether the subscription has been cancelled or terminated.
+         */
+        private volatile boolean _cancelled;
+
+        /**
+         * A value indicating whether the initial elements have been requested from the source, only accessed while
+         * draining.
+         */
+        private boolean _started;
+
+        /**
+         * The number of emitted elements, only accessed while draining.
+         */
+        private long _emitted;
+
+        /**
+         * The number of emitted elements not yet replenished, only accessed while draining.
+         */
+        private int _consumed;
+
+        /**
+         * Initializes a new instance of the {@link MapAsyncSubscriber} class.
+         * 
+         * @param downstream The downstream subscriber.
+         * @param compose The compose continuation.
+         * @param parallelism The maximum number of pending mappings.
+         */
+        public MapAsyncSubscriber(final Subscriber<? super R> downstream, final Compose<? super T, ? extends R> compose, final int parallelism) {
+            _downstream = downstream;
+            _compose = compose;
+            _parallelism = parallelism;
+            _replenishThreshold = Math.max(1, parallelism / 2);
+            _mappings = new ConcurrentLinkedQueue<>();
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            if (subscription == null) {
+                throw new NullPointerException("Subscription must not be null");
+            }
+            if (_upstream != null) {
+                subscription.cancel();
+
+                return;
+            }
+            _upstream = subscription;
+            _downstream.onSubscribe(this);
+            drain();
+        }
+
+        @Override
+        public void onNext(final T element) {
+            if (element == null) {
+                throw new NullPointerException("Element must not be null");
+            }
+            if (_cancelled) {
+                return;
+            }
+            final Mapping<R> mapping = new Mapping<>(this);
+
+            _mappings.offer(mapping);
+            try {
+                _compose.onSuccess(element, mapping);
+            } catch (final Throwable t) {
+                mapping.setFailure(t);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable cause) {
+            if (cause == null) {
+                throw new NullPointerException("Cause must not be null");
+            }
+
+            fail(cause);
+        }
+
+        @Override
+        public void onComplete() {
+            _upstreamDone = true;
+            drain();
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Number of requested elements must be positive"));
+
+                return;
+            }
+            long requested;
+            long next;
+
+            do {
+                requested = _requested;
+                next = requested + n;
+                if (next < 0) {
+                    next = Long.MAX_VALUE;
+                }
+            } while (!REQUESTED_UPDATER.compareAndSet(this, requested, next));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (_cancelled) {
+                return;
+            }
+            _cancelled = true;
+            drain();
+        }
+
+        /**
+         * Records the specified error and drains it.
+         * 
+         * @param cause The cause.
+         */
+        private void fail(final Throwable cause) {
+            ERROR_UPDATER.compareAndSet(this, null, cause);
+            drain();
+        }
+
+        /**
+         * Emits the completed mappings in source order as requested downstream.
+         * <p>
+         * Only one thread drains at a time, drain requests of other threads are picked up by the draining thread. The
+         * source is only requested and cancelled while draining, which keeps these calls serial.
+         */
+        private void drain() {
+            if (WIP_UPDATER.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+
+            do {
+                final long requested = _requested;
+                long emitted = _emitted;
+
+                if (!_started && !_cancelled && (_error == null)) {
+                    _started = true;
+                    _upstream.request(_parallelism);
+                }
+                while (true) {
+                    if (_cancelled) {
+                        _mappings.clear();
+                        _upstream.cancel();
+
+                        return;
+                    }
+                    final Throwable error = _error;
+
+                    if (error != null) {
+                        terminate(error);
+
+                        return;
+                    }
+                    final boolean upstreamDone = _upstreamDone;
+                    final Mapping<R> mapping = _mappings.peek();
+
+                    if (mapping == null) {
+                        if (upstreamDone) {
+                            _cancelled = true;
+                            _downstream.onComplete();
+
+                            return;
+                        }
+                        break;
+                    }
+                    final int state = mapping._state;
+
+                    if (state == Mapping.PENDING) {
+                        break;
+                    }
+                    if (state == Mapping.FAILURE) {
+                        terminate(mapping._cause);
+
+                        return;
+                    }
+                    if (mapping._value == null) {
+                        terminate(new NullPointerException("Mapped value must not be null"));
+
+                        return;
+                    }
+                    if (emitted == requested) {
+                        break;
+                    }
+                    _mappings.poll();
+                    _downstream.onNext(mapping._value);
+                    ++emitted;
+                    if (++_consumed == _replenishThreshold) {
+                        _consumed = 0;
+                        _upstream.request(_replenishThreshold);
+                    }
+                }
+                _emitted = emitted;
+                missed = WIP_UPDATER.addAndGet(this, -missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Cancels the source and terminates the downstream subscriber with the specified cause.
+         * 
+         * @param cause The cause.
+         */
+        private void terminate(final Throwable cause) {
+            _cancelled = true;
+            _mappings.clear();
+            _upstream.cancel();
+            _downstream.onError(cause);
+        }
+    }
+
+    /**
+     * Represents the mapping of a source element.
+     * 
+     * @param <R> The result type.
+     */
+    private static final class Mapping<R> implements Completable<R> {
+
+        /**
+         * The state of a pending mapping.
+         */
+        private static final int PENDING = 0;
+
+        /**
+         * The state of a successful mapping.
+         */
+        private static final int SUCCESS = 1;
+
+        /**
+         * The state of a failed mapping.
+         */
+        private static final int FAILURE = 2;
+
+        /**
+         * The subscriber.
+         */
+        private final MapAsyncSubscriber<?, R> _subscriber;
+
+        /**
+         * The value.
+         */
+        private R _value;
+
+        /**
+         * The cause.
+         */
+        private Throwable _cause;
+
+        /**
+         * The state, published after the value or the cause.
+         */
+        private volatile int _state;
+
+        /**
+         * Initializes a new instance of the {@link Mapping} class.
+         * 
+         * @param subscriber The subscriber.
+         */
+        public Mapping(final MapAsyncSubscriber<?, R> subscriber) {
+            _subscriber = subscriber;
+        }
+
+        @Override
+        public void setSuccess(final R value) {
+            if (_state != PENDING) {
+                return;
+            }
+            _value = value;
+            _state = SUCCESS;
+            _subscriber.drain();
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            if (_state != PENDING) {
+                return;
+            }
+            _cause = cause;
+            _state = FAILURE;
+            _subscriber.drain();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.reactive;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.util.concurrent.promise.Completable;
+import org.util.concurrent.promise.Promise;
+
+/**
+ * Represents a publisher of the value of a promise.
+ * <p>
+ * Every subscriber receives the value once it has requested an element, followed by completion. A {@code null} value
+ * completes the subscriber without an element. A failure of the promise is signaled as an error.
+ * 
+ * @param <T> The value type.
+ */
+final class PromisePublisher<T> implements Publisher<T> {
+
+    /**
+     * The promise.
+     */
+    private final Promise<? extends T> _promise;
+
+    /**
+     * Initializes a new instance of the {@link PromisePublisher} class.
+     * 
+     * @param promise The promise.
+     */
+    public PromisePublisher(final Promise<? extends T> promise) {
+        _promise = promise;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber must not be null");
+        }
+
+        subscriber.onSubscribe(new PromiseSubscription<T>(_promise, subscriber));
+    }
+
+    /**
+     * Represents the subscription of a subscriber to the value of a promise.
+     * 
+     * @param <T> The value type.
+     */
+    private static final class PromiseSubscription<T> implements Subscription, Completable<T> {
+
+        /**
+         * The state updater.
+         */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<PromiseSubscription> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(PromiseSubscription.class, "_state");
+
+        /**
+         * The state before the first request.
+         */
+        private static final int NEW = 0;
+
+        /**
+         * The state after the first request.
+         */
+        private static final int REQUESTED = 1;
+
+        /**
+         * The state after termination or cancellation.
+         */
+        private static final int DONE = 2;
+
+        /**
+         * The promise.
+         */
+        private final Promise<? extends T> _promise;
+
+        /**
+         * The subscriber.
+         */
+        private final Subscriber<? super T> _subscriber;
+
+        /**
+         * The state.
+         */
+        private volatile int _state;
+
+        /**
+         * Initializes a new instance of the {@link PromiseSubscription} class.
+         * 
+         * @param promise The promise.
+         * @param subscriber The subscriber.
+         */
+        public PromiseSubscription(final Promise<? extends T> promise, final Subscriber<? super T> subscriber) {
+            _promise = promise;
+            _subscriber = subscriber;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                if (STATE_UPDATER.getAndSet(this, DONE) != DONE) {
+                    _subscriber.onError(new IllegalArgumentException("Number of requested elements must be positive"));
+                }
+                return;
+            }
+            if (STATE_UPDATER.compareAndSet(this, NEW, REQUESTED)) {
+                _promise.then(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            STATE_UPDATER.set(this, DONE);
+        }
+
+        @Override
+        public void setSuccess(final T value) {
+            if (!STATE_UPDATER.compareAndSet(this, REQUESTED, DONE)) {
+                return;
+            }
+            if (value != null) {
+                _subscriber.onNext(value);
+            }
+            _subscriber.onComplete();
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            if (STATE_UPDATER.compareAndSet(this, REQUESTED, DONE)) {
+                _subscriber.onError(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.reactive;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.util.concurrent.promise.Deferred;
+import org.util.concurrent.promise.Promise;
+
+/**
+ * Represents a subscriber which completes a promise.
+ * <p>
+ * Cancelling the promise cancels the subscription.
+ * 
+ * @param <T> The element type.
+ * @param <R> The result type.
+ */
+abstract class PromiseSubscriber<T, R> implements Subscriber<T> {
+
+    /**
+     * The subscription updater.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<PromiseSubscriber, Subscription> SUBSCRIPTION_UPDATER = AtomicReferenceFieldUpdater.newUpdater(PromiseSubscriber.class, Subscription.class, "_subscription");
+
+    /**
+     * The subscription of a cancelled subscriber.
+     */
+    private static final Subscription CANCELLED = new Subscription() {
+        @Override
+        public void request(final long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    /**
+     * The result.
+     */
+    private final Deferred<R> _result;
+
+    /**
+     * The number of initially requested elements.
+     */
+    private final long _initialRequest;
+
+    /**
+     * The subscription, {@link #CANCELLED} or {@code null}.
+     */
+    private volatile Subscription _subscription;
+
+    /**
+     * Initializes a new instance of the {@link PromiseSubscriber} class.
+     * 
+     * @param initialRequest The number of initially requested elements.
+     */
+    protected PromiseSubscriber(final long initialRequest) {
+        _result = new Deferred<>();
+        _initialRequest = initialRequest;
+
+        _result.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                cancel();
+            }
+        });
+    }
+
+    /**
+     * Returns the result.
+     * 
+     * @return The result.
+     */
+    public final Promise<R> getResult() {
+        return _result;
+    }
+
+    @Override
+    public final void onSubscribe(final Subscription subscription) {
+        if (subscription == null) {
+            throw new NullPointerException("Subscription must not be null");
+        }
+        if (!SUBSCRIPTION_UPDATER.compareAndSet(this, null, subscription)) {
+            subscription.cancel();
+
+            return;
+        }
+
+        subscription.request(_initialRequest);
+    }
+
+    @Override
+    public final void onError(final Throwable cause) {
+        if (cause == null) {
+            throw new NullPointerException("Cause must not be null");
+        }
+
+        _result.tryFailure(cause);
+    }
+
+    /**
+     * Tries to complete the result with the specified value.
+     * 
+     * @param value The value.
+     * @return A value indicating whether the result has been completed.
+     */
+    protected final boolean trySuccess(final R value) {
+        return _result.trySuccess(value);
+    }
+
+    /**
+     * Tries to complete the result with the specified cause.
+     * 
+     * @param cause The cause.
+     * @return A value indicating whether the result has been completed.
+     */
+    protected final boolean tryFailure(final Throwable cause) {
+        return _result.tryFailure(cause);
+    }
+
+    /**
+     * Cancels the subscription.
+     */
+    protected final void cancel() {
+        final Subscription subscription = SUBSCRIPTION_UPDATER.getAndSet(this, CANCELLED);
+
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.reactive;
+
+import java.util.List;
+
+import org.reactivestreams.Publisher;
+import org.util.concurrent.promise.Compose;
+import org.util.concurrent.promise.Promise;
+
+/**
+ * Provides adapters between promises and Reactive Streams publishers.
+ * <p>
+ * On Java 9 and later the publishers are converted to and from {@code java.util.concurrent.Flow.Publisher} by
+ * {@code org.reactivestreams.FlowAdapters}.
+ */
+public final class Publishers {
+
+    /**
+     * Initializes a new instance of the {@link Publishers} class.
+     */
+    private Publishers() {
+    }
+
+    /**
+     * Returns a publisher of the value of the specified promise.
+     * <p>
+     * The promise is only subscribed to once an element has been requested. A {@code null} value completes the
+     * subscriber without an element.
+     * 
+     * @param promise The promise.
+     * @return The publisher.
+     */
+    public static <T> Publisher<T> toPublisher(final Promise<? extends T> promise) {
+        if (promise == null) {
+            throw new IllegalArgumentException("Promise must not be null");
+        }
+
+        return new PromisePublisher<T>(promise);
+    }
+
+    /**
+     * Returns a promise for all elements of the specified publisher.
+     * <p>
+     * Cancelling the promise cancels the subscription.
+     * 
+     * @param publisher The publisher.
+     * @return The promise.
+     */
+    public static <T> Promise<List<T>> toList(final Publisher<? extends T> publisher) {
+        if (publisher == null) {
+            throw new IllegalArgumentException("Publisher must not be null");
+        }
+        final CollectSubscriber<T> subscriber = new CollectSubscriber<>();
+
+        publisher.subscribe(subscriber);
+
+        return subscriber.getResult();
+    }
+
+    /**
+     * Returns a promise for the first element of the specified publisher.
+     * <p>
+     * The subscription is cancelled once the first element has been received. The promise fails with a
+     * {@link java.util.NoSuchElementException} if the publisher completes without elements. Cancelling the promise
+     * cancels the subscription.
+     * 
+     * @param publisher The publisher.
+     * @return The promise.
+     */
+    public static <T> Promise<T> first(final Publisher<? extends T> publisher) {
+        if (publisher == null) {
+            throw new IllegalArgumentException("Publisher must not be null");
+        }
+        final FirstSubscriber<T> subscriber = new FirstSubscriber<>();
+
+        publisher.subscribe(subscriber);
+
+        return subscriber.getResult();
+    }
+
+    /**
+     * Returns a publisher which maps the elements of the specified publisher by the specified compose continuation.
+     * <p>
+     * At most {@code parallelism} mappings are pending or buffered at any time, the source is only requested as the
+     * results are emitted downstream. The results are emitted in source order. The first failure cancels the source and
+     * fails the subscriber.
+     * 
+     * @param publisher The publisher.
+     * @param compose The compose continuation.
+     * @param parallelism The maximum number of pending mappings.
+     * @return The publisher.
+     */
+    public static <T, R> Publisher<R> mapAsync(final Publisher<? extends T> publisher, final Compose<? super T, ? extends R> compose, final int parallelism) {
+        if (publisher == null) {
+            throw new IllegalArgumentException("Publisher must not be null");
+        }
+        if (compose == null) {
+            throw new IllegalArgumentException("Compose must not be null");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+
+        return new MapAsync<T, R>(publisher, compose, parallelism);
+    }
+}
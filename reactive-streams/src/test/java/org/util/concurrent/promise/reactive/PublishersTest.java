@@ -0,0 +1,444 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise.reactive;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.util.concurrent.promise.Compose;
+import org.util.concurrent.promise.Deferred;
+import org.util.concurrent.promise.Promise;
+import org.util.concurrent.promise.Promises;
+
+@RunWith(JUnit4.class)
+public final class PublishersTest {
+
+    @Test
+    public void toPublisherTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(1);
+
+        Publishers.toPublisher(deferred).subscribe(subscriber);
+
+        // Act
+        deferred.setSuccess(1);
+
+        // Assert
+        assertThat(subscriber._elements, is(Arrays.asList(1)));
+        assertThat(subscriber._completed, is(true));
+    }
+
+    @Test
+    public void toPublisherWithoutRequestTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(0);
+
+        Publishers.toPublisher(deferred).subscribe(subscriber);
+
+        // Act
+        deferred.setSuccess(1);
+
+        // Assert
+        assertThat(subscriber._elements.isEmpty(), is(true));
+        assertThat(subscriber._completed, is(false));
+    }
+
+    @Test
+    public void toPublisherWithNullValueTest() {
+        // Arrange
+        final RecordingSubscriber<Void> subscriber = new RecordingSubscriber<>(1);
+
+        // Act
+        Publishers.toPublisher(Promises.newSuccess()).subscribe(subscriber);
+
+        // Assert
+        assertThat(subscriber._elements.isEmpty(), is(true));
+        assertThat(subscriber._completed, is(true));
+    }
+
+    @Test
+    public void toPublisherWithFailureTest() {
+        // Arrange
+        final Exception cause = new Exception();
+        final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(1);
+
+        // Act
+        Publishers.toPublisher(Promises.<Integer> newFailure(cause)).subscribe(subscriber);
+
+        // Assert
+        assertThat(subscriber._cause, is((Throwable) cause));
+        assertThat(subscriber._completed, is(false));
+    }
+
+    @Test
+    public void toPublisherWithInvalidRequestTest() {
+        // Arrange
+        final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(0);
+
+        Publishers.toPublisher(Promises.newSuccess(1)).subscribe(subscriber);
+
+        // Act
+        subscriber._subscription.request(0);
+
+        // Assert
+        assertThat(subscriber._cause, is(instanceOf(IllegalArgumentException.class)));
+    }
+
+    @Test
+    public void toListTest() throws InterruptedException, ExecutionException {
+        // Act
+        final Promise<List<Integer>> promise = Publishers.toList(new IterablePublisher<>(Arrays.asList(1, 2, 3)));
+
+        // Assert
+        assertThat(Promises.await(promise), is(Arrays.asList(1, 2, 3)));
+    }
+
+    @Test
+    public void toListWithCancellationTest() {
+        // Arrange
+        final ManualPublisher<Integer> publisher = new ManualPublisher<>();
+        final Promise<List<Integer>> promise = Publishers.toList(publisher);
+
+        // Act
+        Promises.cancel(promise);
+
+        // Assert
+        assertThat(publisher._cancelled, is(true));
+    }
+
+    @Test
+    public void firstTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final ManualPublisher<Integer> publisher = new ManualPublisher<>();
+        final Promise<Integer> promise = Publishers.first(publisher);
+
+        // Act
+        publisher._subscriber.onNext(1);
+
+        // Assert
+        assertThat(Promises.await(promise), is(1));
+        assertThat(publisher._requested, is(1L));
+        assertThat(publisher._cancelled, is(true));
+    }
+
+    @Test
+    public void firstWithEmptyPublisherTest() throws InterruptedException {
+        // Act
+        final Promise<Integer> promise = Publishers.first(new IterablePublisher<>(Collections.<Integer> emptyList()));
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(NoSuchElementException.class)));
+        }
+    }
+
+    @Test
+    public void mapAsyncTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Publisher<Integer> publisher = Publishers.mapAsync(new IterablePublisher<>(Arrays.asList(1, 2, 3, 4, 5)), new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) {
+                return Promises.newSuccess(value * 2);
+            }
+        }, 2);
+
+        // Act
+        final Promise<List<Integer>> promise = Publishers.toList(publisher);
+
+        // Assert
+        assertThat(Promises.await(promise), is(Arrays.asList(2, 4, 6, 8, 10)));
+    }
+
+    @Test
+    public void mapAsyncWithOutOfOrderCompletionTest() {
+        // Arrange
+        final List<Deferred<Integer>> mappings = new ArrayList<>();
+        final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(Long.MAX_VALUE);
+
+        Publishers.mapAsync(new IterablePublisher<>(Arrays.asList(1, 2, 3)), new DeferredCompose(mappings), 3).subscribe(subscriber);
+
+        // Act
+        mappings.get(2).setSuccess(3);
+        mappings.get(1).setSuccess(2);
+
+        // Assert
+        assertThat(subscriber._elements.isEmpty(), is(true));
+
+        mappings.get(0).setSuccess(1);
+
+        assertThat(subscriber._elements, is(Arrays.asList(1, 2, 3)));
+        assertThat(subscriber._completed, is(true));
+    }
+
+    @Test
+    public void mapAsyncWithParallelismTest() {
+        // Arrange
+        final List<Deferred<Integer>> mappings = new ArrayList<>();
+        final ManualPublisher<Integer> publisher = new ManualPublisher<>();
+        final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(1);
+
+        Publishers.mapAsync(publisher, new DeferredCompose(mappings), 2).subscribe(subscriber);
+        publisher._subscriber.onNext(1);
+        publisher._subscriber.onNext(2);
+
+        // Act
+        mappings.get(0).setSuccess(1);
+        mappings.get(1).setSuccess(2);
+
+        // Assert
+        assertThat(subscriber._elements, is(Arrays.asList(1)));
+        assertThat(publisher._requested, is(3L));
+    }
+
+    @Test
+    public void mapAsyncWithFailureTest() {
+        // Arrange
+        final List<Deferred<Integer>> mappings = new ArrayList<>();
+        final ManualPublisher<Integer> publisher = new ManualPublisher<>();
+        final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(Long.MAX_VALUE);
+        final Exception cause = new Exception();
+
+        Publishers.mapAsync(publisher, new DeferredCompose(mappings), 2).subscribe(subscriber);
+        publisher._subscriber.onNext(1);
+
+        // Act
+        mappings.get(0).setFailure(cause);
+
+        // Assert
+        assertThat(subscriber._cause, is((Throwable) cause));
+        assertThat(publisher._cancelled, is(true));
+    }
+
+    @Test
+    public void mapAsyncWithCancellationTest() {
+        // Arrange
+        final List<Deferred<Integer>> mappings = new ArrayList<>();
+        final ManualPublisher<Integer> publisher = new ManualPublisher<>();
+        final RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(Long.MAX_VALUE);
+
+        Publishers.mapAsync(publisher, new DeferredCompose(mappings), 2).subscribe(subscriber);
+        publisher._subscriber.onNext(1);
+
+        // Act
+        subscriber._subscription.cancel();
+        mappings.get(0).setSuccess(1);
+
+        // Assert
+        assertThat(subscriber._elements.isEmpty(), is(true));
+        assertThat(publisher._cancelled, is(true));
+    }
+
+    @Test
+    public void mapAsyncWithExecutorTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Integer> elements = new ArrayList<>();
+
+        for (int i = 0; i < 10000; i++) {
+            elements.add(i);
+        }
+        final Publisher<Integer> publisher = Publishers.mapAsync(new IterablePublisher<>(elements), new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) {
+                return Promises.supplyAsync(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return value;
+                    }
+                }, executor);
+            }
+        }, 16);
+
+        try {
+            // Act
+            final Promise<List<Integer>> promise = Publishers.toList(publisher);
+
+            // Assert
+            assertThat(Promises.await(promise), is(elements));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mapAsyncWithInvalidParallelismTest() {
+        // Act
+        Publishers.mapAsync(new ManualPublisher<Integer>(), new DeferredCompose(new ArrayList<Deferred<Integer>>()), 0);
+    }
+
+    /**
+     * Represents a compose continuation which maps to deferreds completed by the test.
+     */
+    private static final class DeferredCompose extends Compose<Integer, Integer> {
+
+        private final List<Deferred<Integer>> _mappings;
+
+        public DeferredCompose(final List<Deferred<Integer>> mappings) {
+            _mappings = mappings;
+        }
+
+        @Override
+        protected Promise<Integer> doCompose(final Integer value) {
+            final Deferred<Integer> mapping = new Deferred<>();
+
+            _mappings.add(mapping);
+
+            return mapping;
+        }
+    }
+
+    /**
+     * Represents a subscriber recording all signals.
+     */
+    private static final class RecordingSubscriber<T> implements Subscriber<T> {
+
+        private final long _initialRequest;
+
+        private final List<T> _elements = new ArrayList<>();
+
+        private Subscription _subscription;
+
+        private Throwable _cause;
+
+        private boolean _completed;
+
+        public RecordingSubscriber(final long initialRequest) {
+            _initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            _subscription = subscription;
+            if (_initialRequest > 0) {
+                subscription.request(_initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(final T element) {
+            _elements.add(element);
+        }
+
+        @Override
+        public void onError(final Throwable cause) {
+            _cause = cause;
+        }
+
+        @Override
+        public void onComplete() {
+            _completed = true;
+        }
+    }
+
+    /**
+     * Represents a publisher signaled by the test which records requests and cancellation.
+     */
+    private static final class ManualPublisher<T> implements Publisher<T> {
+
+        private Subscriber<? super T> _subscriber;
+
+        private long _requested;
+
+        private boolean _cancelled;
+
+        @Override
+        public void subscribe(final Subscriber<? super T> subscriber) {
+            _subscriber = subscriber;
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(final long n) {
+                    _requested += n;
+                }
+
+                @Override
+                public void cancel() {
+                    _cancelled = true;
+                }
+            });
+        }
+    }
+
+    /**
+     * Represents a synchronous publisher of the elements of an iterable.
+     */
+    private static final class IterablePublisher<T> implements Publisher<T> {
+
+        private final Iterable<T> _elements;
+
+        public IterablePublisher(final Iterable<T> elements) {
+            _elements = elements;
+        }
+
+        @Override
+        public void subscribe(final Subscriber<? super T> subscriber) {
+            final Iterator<T> iterator = _elements.iterator();
+
+            subscriber.onSubscribe(new Subscription() {
+                private long _requested;
+
+                private boolean _emitting;
+
+                private boolean _done;
+
+                @Override
+                public void request(final long n) {
+                    _requested = ((_requested + n) < 0) ? Long.MAX_VALUE : (_requested + n);
+                    if (_emitting) {
+                        return;
+                    }
+                    _emitting = true;
+                    while (!_done && (_requested > 0) && iterator.hasNext()) {
+                        --_requested;
+                        subscriber.onNext(iterator.next());
+                    }
+                    if (!_done && !iterator.hasNext()) {
+                        _done = true;
+                        subscriber.onComplete();
+                    }
+                    _emitting = false;
+                }
+
+                @Override
+                public void cancel() {
+                    _done = true;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Defines an executor which knows whether the current thread runs its tasks.
+ * <p>
+ * Continuations such as {@link ExecuteOn} run inline instead of submitting a task if the current thread is already in
+ * the executor, e.g. on the thread of a single-threaded event loop.
+ */
+public interface AffineExecutor extends Executor {
+
+    /**
+     * Returns a value indicating whether the current thread is in the executor.
+     * 
+     * @return A value indicating whether the current thread is in the executor.
+     */
+    boolean inExecutor();
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Represents the aggregation of a collection of promises into a list.
+ * <p>
+ * The values are stored in a pre-sized array and a single countdown detects the completion of the last promise, so the
+ * aggregation requires no locks.
+ * 
+ * @param <T> The value type.
+ */
+final class All<T> {
+
+    /**
+     * The remaining updater.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<All> REMAINING_UPDATER = AtomicIntegerFieldUpdater.newUpdater(All.class, "_remaining");
+
+    /**
+     * A value indicating whether failures are settled as outcomes.
+     */
+    private final boolean _settled;
+
+    /**
+     * The values.
+     */
+    private final Object[] _values;
+
+    /**
+     * The result.
+     */
+    private final Deferred<List<Object>> _result;
+
+    /**
+     * The number of remaining promises.
+     */
+    private volatile int _remaining;
+
+    /**
+     * Initializes a new instance of the {@link All} class.
+     * 
+     * @param count The number of promises.
+     * @param settled A value indicating whether failures are settled as outcomes.
+     */
+    private All(final int count, final boolean settled) {
+        _settled = settled;
+        _values = new Object[count];
+        _result = new Deferred<>();
+
+        _remaining = count;
+    }
+
+    /**
+     * Returns a promise for the values of the specified promises, which fails with the first failure.
+     * 
+     * @param promises The promises.
+     * @return The promise.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T> Promise<List<T>> all(final Collection<? extends Promise<? extends T>> promises) {
+        return (Promise) aggregate(promises, false);
+    }
+
+    /**
+     * Returns a promise for the outcomes of the specified promises.
+     * 
+     * @param promises The promises.
+     * @return The promise.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T> Promise<List<Outcome<T>>> allSettled(final Collection<? extends Promise<? extends T>> promises) {
+        return (Promise) aggregate(promises, true);
+    }
+
+    /**
+     * Aggregates the specified promises.
+     * 
+     * @param promises The promises.
+     * @param settled A value indicating whether failures are settled as outcomes.
+     * @return The promise.
+     */
+    private static <T> Promise<List<Object>> aggregate(final Collection<? extends Promise<? extends T>> promises, final boolean settled) {
+        final int count = promises.size();
+
+        if (count == 0) {
+            return Promises.newSuccess(Arrays.asList(new Object[0]));
+        }
+        // The promises are validated up front, so a rejected collection leaves no elements behind.
+        for (final Promise<? extends T> promise : promises) {
+            if (promise == null) {
+                throw new IllegalArgumentException("Promise must not be null");
+            }
+        }
+
+        final All<T> all = new All<>(count, settled);
+        int index = 0;
+
+        for (final Promise<? extends T> promise : promises) {
+            promise.then(all.new Element(index++));
+        }
+
+        return all._result;
+    }
+
+    /**
+     * Sets the value at the specified index and completes the result when it was the last one.
+     * 
+     * @param index The index.
+     * @param value The value.
+     */
+    private void set(final int index, final Object value) {
+        _values[index] = value;
+        // The atomic decrement publishes the value to the thread completing the result.
+        if (REMAINING_UPDATER.decrementAndGet(this) == 0) {
+            _result.trySuccess(Arrays.asList(_values));
+        }
+    }
+
+    /**
+     * Represents an element completable.
+     */
+    private final class Element implements Completable<T> {
+
+        /**
+         * The index.
+         */
+        private final int _index;
+
+        /**
+         * Initializes a new instance of the {@link Element} class.
+         * 
+         * @param index The index.
+         */
+        public Element(final int index) {
+            _index = index;
+        }
+
+        @Override
+        public void setSuccess(final T value) {
+            if (_settled) {
+                set(_index, Outcome.newSuccess(value));
+            } else {
+                set(_index, value);
+            }
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            if (_settled) {
+                set(_index, Outcome.newFailure(cause));
+            } else {
+                _result.tryFailure(cause);
+            }
+        }
+    }
+}
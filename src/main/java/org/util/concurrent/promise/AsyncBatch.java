@@ -0,0 +1,57 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+/**
+ * Represents a batch of tasks submitted to an executor as a single task.
+ * <p>
+ * The tasks run sequentially in submission order on the executing thread.
+ */
+final class AsyncBatch implements Runnable {
+
+    /**
+     * The tasks.
+     */
+    private final AsyncTask<?>[] _tasks;
+
+    /**
+     * Initializes a new instance of the {@link AsyncBatch} class.
+     * 
+     * @param tasks The tasks.
+     */
+    public AsyncBatch(final AsyncTask<?>[] tasks) {
+        _tasks = tasks;
+    }
+
+    @Override
+    public void run() {
+        for (final AsyncTask<?> task : _tasks) {
+            task.run();
+        }
+    }
+
+    /**
+     * Fails the tasks with the specified cause.
+     * 
+     * @param cause The cause.
+     */
+    public void reject(final Throwable cause) {
+        for (final AsyncTask<?> task : _tasks) {
+            task.reject(cause);
+        }
+    }
+}
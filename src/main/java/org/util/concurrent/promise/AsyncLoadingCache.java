@@ -0,0 +1,533 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Represents a cache of promises which loads missing values asynchronously.
+ * <p>
+ * Concurrent misses of a key share a single pending load, so a load is never repeated while it is pending. Each caller
+ * waiting for a pending load gets its own promise, so cancelling it does not affect the other callers, and the load
+ * itself is only cancelled once all its callers have cancelled their promises. A failed
+ * load is removed from the cache as soon as it fails. Once the maximum size is exceeded, entries are evicted by the
+ * CLOCK policy: every hit sets the referenced bit of an entry and the eviction hand, a FIFO queue of the entries, gives
+ * referenced entries a second chance and evicts the first unreferenced entry. Entries expire after a fixed time since
+ * their load completed and are refreshed asynchronously after a shorter fixed time, while the current value is still
+ * served.
+ * <p>
+ * A hit reads the map, checks the expiry and only writes the referenced bit if it is not already set, so hits on the
+ * same entry do not contend. The expiry is checked against the coarse time of the shared hashed wheel timer instead of
+ * {@link System#nanoTime()}, so the durations are accurate to its tick duration of 10 milliseconds.
+ * 
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public final class AsyncLoadingCache<K, V> {
+
+    /**
+     * The loader.
+     */
+    private final Compose<? super K, ? extends V> _loader;
+
+    /**
+     * The maximum size.
+     */
+    private final int _maximumSize;
+
+    /**
+     * The expiry duration in nanoseconds or zero.
+     */
+    private final long _expireAfterWrite;
+
+    /**
+     * The refresh duration in nanoseconds or zero.
+     */
+    private final long _refreshAfterWrite;
+
+    /**
+     * The entries.
+     */
+    private final ConcurrentMap<K, Entry<K, V>> _entries;
+
+    /**
+     * The eviction queue, which may hold removed entries until they are swept.
+     */
+    private final Queue<Entry<K, V>> _clock;
+
+    /**
+     * The number of entries.
+     */
+    private final AtomicInteger _size;
+
+    /**
+     * The number of removed entries in the eviction queue.
+     */
+    private final AtomicInteger _removed;
+
+    /**
+     * The eviction lock, held by the evicting thread.
+     */
+    private final AtomicInteger _evicting;
+
+    /**
+     * Initializes a new instance of the {@link AsyncLoadingCache} class without expiry.
+     * 
+     * @param loader The loader.
+     * @param maximumSize The maximum size.
+     */
+    public AsyncLoadingCache(final Compose<? super K, ? extends V> loader, final int maximumSize) {
+        this(loader, maximumSize, 0, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Initializes a new instance of the {@link AsyncLoadingCache} class.
+     * 
+     * @param loader The loader.
+     * @param maximumSize The maximum size.
+     * @param expireAfterWrite The duration after the completion of a load after which the entry expires or zero.
+     * @param refreshAfterWrite The duration after the completion of a load after which the entry is refreshed on the
+     *            next hit or zero.
+     * @param timeUnit The time unit.
+     */
+    public AsyncLoadingCache(final Compose<? super K, ? extends V> loader, final int maximumSize, final long expireAfterWrite, final long refreshAfterWrite, final TimeUnit timeUnit) {
+        if (loader == null) {
+            throw new IllegalArgumentException("Loader must not be null");
+        }
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        if ((expireAfterWrite < 0) || (refreshAfterWrite < 0)) {
+            throw new IllegalArgumentException("Durations must not be negative");
+        }
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+
+        _loader = loader;
+        _maximumSize = maximumSize;
+        _expireAfterWrite = timeUnit.toNanos(expireAfterWrite);
+        _refreshAfterWrite = timeUnit.toNanos(refreshAfterWrite);
+        _entries = new ConcurrentHashMap<>();
+        _clock = new ConcurrentLinkedQueue<>();
+        _size = new AtomicInteger();
+        _removed = new AtomicInteger();
+        _evicting = new AtomicInteger();
+    }
+
+    /**
+     * Returns the promise for the value of the specified key and loads the value if missing or expired.
+     * <p>
+     * The promise of a pending load is owned by the caller, so cancelling it does not cancel the load for the other
+     * callers of the key.
+     * 
+     * @param key The key.
+     * @return The promise.
+     */
+    public Promise<V> get(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key must not be null");
+        }
+
+        while (true) {
+            final Entry<K, V> entry = _entries.get(key);
+
+            if (entry == null) {
+                final Entry<K, V> loading = new Entry<>(this, key);
+                final Entry<K, V> existing = _entries.putIfAbsent(key, loading);
+
+                if (existing == null) {
+                    _size.incrementAndGet();
+                    _clock.offer(loading);
+                    evict();
+                    loading.load();
+
+                    return loading.newPromise();
+                }
+                continue;
+            }
+            if (!isTimed()) {
+                entry.reference();
+
+                return entry.newPromise();
+            }
+            final long now = currentTime();
+
+            if (entry.isExpired(now)) {
+                final Entry<K, V> loading = new Entry<>(this, key);
+
+                if (_entries.replace(key, entry, loading)) {
+                    markRemoved(entry);
+                    _clock.offer(loading);
+                    loading.load();
+
+                    return loading.newPromise();
+                }
+                continue;
+            }
+            entry.reference();
+            if (entry.isRefreshDue(now)) {
+                entry.refresh();
+            }
+
+            return entry.newPromise();
+        }
+    }
+
+    /**
+     * Returns the promise for the value of the specified key without loading it.
+     * 
+     * @param key The key.
+     * @return The promise or {@code null} if the key is missing or expired.
+     */
+    public Promise<V> getIfPresent(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key must not be null");
+        }
+        final Entry<K, V> entry = _entries.get(key);
+
+        if ((entry == null) || ((_expireAfterWrite != 0) && entry.isExpired(currentTime()))) {
+            return null;
+        }
+        entry.reference();
+
+        return entry.newPromise();
+    }
+
+    /**
+     * Removes the specified key.
+     * 
+     * @param key The key.
+     */
+    public void invalidate(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key must not be null");
+        }
+        final Entry<K, V> entry = _entries.remove(key);
+
+        if (entry != null) {
+            _size.decrementAndGet();
+            markRemoved(entry);
+        }
+    }
+
+    /**
+     * Returns the number of entries, including pending loads and expired entries which have not been replaced yet.
+     * 
+     * @return The number of entries.
+     */
+    public int size() {
+        return _size.get();
+    }
+
+    /**
+     * Returns a value indicating whether entries expire or are refreshed after write.
+     * 
+     * @return A value indicating whether entries expire or are refreshed after write.
+     */
+    private boolean isTimed() {
+        return (_expireAfterWrite != 0) || (_refreshAfterWrite != 0);
+    }
+
+    /**
+     * Returns the coarse current time.
+     * 
+     * @return The time in nanoseconds.
+     */
+    private static long currentTime() {
+        return HashedWheelTimer.getShared().getCurrentTime();
+    }
+
+    /**
+     * Removes the specified entry if it is still cached.
+     * 
+     * @param entry The entry.
+     */
+    private void remove(final Entry<K, V> entry) {
+        if (_entries.remove(entry._key, entry)) {
+            _size.decrementAndGet();
+            markRemoved(entry);
+        }
+    }
+
+    /**
+     * Replaces the specified entry by an entry with the specified refreshed value if it is still cached.
+     * 
+     * @param entry The entry.
+     * @param value The refreshed value.
+     */
+    private void replace(final Entry<K, V> entry, final V value) {
+        final Entry<K, V> refreshed = new Entry<>(this, entry._key, value);
+
+        if (_entries.replace(entry._key, entry, refreshed)) {
+            markRemoved(entry);
+            _clock.offer(refreshed);
+        }
+    }
+
+    /**
+     * Marks the specified entry which has left the map as removed and sweeps the removed entries from the eviction
+     * queue once they outnumber the maximum size.
+     * 
+     * @param entry The entry.
+     */
+    private void markRemoved(final Entry<K, V> entry) {
+        entry._isRemoved = true;
+        if ((_removed.incrementAndGet() <= _maximumSize) || !_evicting.compareAndSet(0, 1)) {
+            return;
+        }
+        try {
+            for (final Iterator<Entry<K, V>> iterator = _clock.iterator(); iterator.hasNext();) {
+                if (iterator.next()._isRemoved) {
+                    iterator.remove();
+                    _removed.decrementAndGet();
+                }
+            }
+        } finally {
+            _evicting.set(0);
+        }
+    }
+
+    /**
+     * Evicts entries while the maximum size is exceeded.
+     * <p>
+     * Only one thread evicts at a time, other threads leave the eviction to it.
+     */
+    private void evict() {
+        while ((_size.get() > _maximumSize) && _evicting.compareAndSet(0, 1)) {
+            try {
+                while (_size.get() > _maximumSize) {
+                    final Entry<K, V> entry = _clock.poll();
+
+                    if (entry == null) {
+                        break;
+                    }
+                    if (entry._isRemoved) {
+                        _removed.decrementAndGet();
+                        continue;
+                    }
+                    if (entry._isReferenced) {
+                        // Referenced entries get a second chance.
+                        entry._isReferenced = false;
+                        _clock.offer(entry);
+                        continue;
+                    }
+                    if (_entries.remove(entry._key, entry)) {
+                        _size.decrementAndGet();
+                        entry._isRemoved = true;
+                    } else {
+                        _removed.decrementAndGet();
+                    }
+                }
+            } finally {
+                _evicting.set(0);
+            }
+        }
+    }
+
+    /**
+     * Represents a cache entry, which observes its load.
+     * 
+     * @param <K> The key type.
+     * @param <V> The value type.
+     */
+    private static final class Entry<K, V> implements Observer<V> {
+
+        /**
+         * The refreshing updater.
+         */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Entry> REFRESHING_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "_refreshing");
+
+        /**
+         * The cache.
+         */
+        private final AsyncLoadingCache<K, V> _cache;
+
+        /**
+         * The key.
+         */
+        private final K _key;
+
+        /**
+         * The promise.
+         */
+        private final Deferred<V> _promise;
+
+        /**
+         * The time in nanoseconds at which the load completed.
+         */
+        private long _loadTime;
+
+        /**
+         * A value indicating whether the load has completed successfully, which publishes the load time.
+         */
+        private volatile boolean _isLoaded;
+
+        /**
+         * A value indicating whether the entry has been hit since the eviction hand passed it.
+         */
+        private volatile boolean _isReferenced;
+
+        /**
+         * A value indicating whether the entry has left the map.
+         */
+        private volatile boolean _isRemoved;
+
+        /**
+         * A value indicating whether a refresh is pending.
+         */
+        private volatile int _refreshing;
+
+        /**
+         * Initializes a new instance of the {@link Entry} class with a pending load.
+         * 
+         * @param cache The cache.
+         * @param key The key.
+         */
+        public Entry(final AsyncLoadingCache<K, V> cache, final K key) {
+            _cache = cache;
+            _key = key;
+            _promise = new Deferred<>();
+        }
+
+        /**
+         * Initializes a new instance of the {@link Entry} class with a loaded value.
+         * 
+         * @param cache The cache.
+         * @param key The key.
+         * @param value The value.
+         */
+        public Entry(final AsyncLoadingCache<K, V> cache, final K key, final V value) {
+            _cache = cache;
+            _key = key;
+            _promise = new Deferred<>(value);
+            _loadTime = cache.isTimed() ? currentTime() : 0;
+
+            _isLoaded = true;
+        }
+
+        /**
+         * Starts the load of the entry.
+         */
+        public void load() {
+            _promise.then(this);
+            try {
+                _cache._loader.onSuccess(_key, _promise);
+            } catch (final Throwable t) {
+                _promise.tryFailure(t);
+            }
+        }
+
+        /**
+         * Returns a new promise of the entry for a single caller.
+         * <p>
+         * A complete promise is returned as is, since cancelling it has no effect. A pending load gets a dependent
+         * promise per caller, which releases the load on cancellation.
+         * 
+         * @return The promise.
+         */
+        public Promise<V> newPromise() {
+            if (_promise.isComplete()) {
+                return _promise;
+            }
+            final Deferred<V> promise = new Deferred<>();
+
+            _promise.then(promise);
+
+            return promise;
+        }
+
+        /**
+         * Sets the referenced bit unless it is already set.
+         */
+        public void reference() {
+            if (!_isReferenced) {
+                _isReferenced = true;
+            }
+        }
+
+        /**
+         * Returns a value indicating whether the entry has expired.
+         * 
+         * @param now The current time in nanoseconds.
+         * @return A value indicating whether the entry has expired.
+         */
+        public boolean isExpired(final long now) {
+            return (_cache._expireAfterWrite != 0) && _isLoaded && ((now - _loadTime) >= _cache._expireAfterWrite);
+        }
+
+        /**
+         * Returns a value indicating whether the entry is due for a refresh.
+         * 
+         * @param now The current time in nanoseconds.
+         * @return A value indicating whether the entry is due for a refresh.
+         */
+        public boolean isRefreshDue(final long now) {
+            return (_cache._refreshAfterWrite != 0) && _isLoaded && (_refreshing == 0) && ((now - _loadTime) >= _cache._refreshAfterWrite);
+        }
+
+        /**
+         * Starts a refresh unless a refresh is already pending.
+         */
+        public void refresh() {
+            if (!REFRESHING_UPDATER.compareAndSet(this, 0, 1)) {
+                return;
+            }
+            final Deferred<V> refreshed = new Deferred<>();
+
+            refreshed.then(new Completable<V>() {
+                @Override
+                public void setSuccess(final V value) {
+                    _cache.replace(Entry.this, value);
+                }
+
+                @Override
+                public void setFailure(final Throwable cause) {
+                    // The current value is served until it expires, the next hit retries the refresh.
+                    _refreshing = 0;
+                }
+            });
+            try {
+                _cache._loader.onSuccess(_key, refreshed);
+            } catch (final Throwable t) {
+                refreshed.tryFailure(t);
+            }
+        }
+
+        @Override
+        public void setSuccess(final V value) {
+            // The load time is only read by expiry and refresh, so an untimed cache never starts the timer thread.
+            if (_cache.isTimed()) {
+                _loadTime = currentTime();
+            }
+            _isLoaded = true;
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            _cache.remove(this);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Represents a nonblocking semaphore which hands out permits as promises.
+ * <p>
+ * A single counter holds the available permits minus the number of waiters, so an uncontended acquisition and release
+ * is a single atomic operation. A waiter does not occupy a thread, it only retains its deferred and a list node.
+ * <p>
+ * The waiters are managed by a single draining thread at a time. Arriving and cancelled waiters are passed to it by a
+ * lock-free event queue and a release which finds a waiter passes it a pending grant. The drainer links the waiters
+ * into a list in FIFO order, grants permits to the first ones and unlinks cancelled ones in constant time, withdrawing
+ * their counts. A waiter which releases its permit on completion thereby never recurses into the next grant and no
+ * thread ever waits for another one.
+ */
+public final class AsyncSemaphore {
+
+    /**
+     * The permits updater.
+     */
+    private static final AtomicIntegerFieldUpdater<AsyncSemaphore> PERMITS_UPDATER = AtomicIntegerFieldUpdater.newUpdater(AsyncSemaphore.class, "_permits");
+
+    /**
+     * The grants updater.
+     */
+    private static final AtomicIntegerFieldUpdater<AsyncSemaphore> GRANTS_UPDATER = AtomicIntegerFieldUpdater.newUpdater(AsyncSemaphore.class, "_grants");
+
+    /**
+     * The work in progress updater.
+     */
+    private static final AtomicIntegerFieldUpdater<AsyncSemaphore> WIP_UPDATER = AtomicIntegerFieldUpdater.newUpdater(AsyncSemaphore.class, "_wip");
+
+    /**
+     * The arriving and cancelled waiters.
+     */
+    private final Queue<Waiter> _events;
+
+    /**
+     * The first linked waiter, only accessed by the drainer.
+     */
+    private Waiter _head;
+
+    /**
+     * The last linked waiter, only accessed by the drainer.
+     */
+    private Waiter _tail;
+
+    /**
+     * The number of grants to be converted back into releases, only accessed by the drainer.
+     */
+    private int _voidedGrants;
+
+    /**
+     * The number of available permits or the negated number of waiters.
+     */
+    private volatile int _permits;
+
+    /**
+     * The number of pending grants.
+     */
+    private volatile int _grants;
+
+    /**
+     * The number of requested drains.
+     */
+    private volatile int _wip;
+
+    /**
+     * Initializes a new instance of the {@link AsyncSemaphore} class.
+     * 
+     * @param permits The number of permits.
+     */
+    public AsyncSemaphore(final int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive");
+        }
+
+        _events = new ConcurrentLinkedQueue<>();
+        _head = null;
+        _tail = null;
+        _voidedGrants = 0;
+
+        _permits = permits;
+        _grants = 0;
+        _wip = 0;
+    }
+
+    /**
+     * Acquires a permit.
+     * <p>
+     * The promise succeeds immediately if a permit is available and otherwise once a permit has been released to this
+     * waiter. Cancelling a pending promise gives up the place in the queue.
+     * 
+     * @return The promise for the permit.
+     */
+    public Promise<Permit> acquire() {
+        if (PERMITS_UPDATER.getAndDecrement(this) > 0) {
+            return new Deferred<>(new Permit(this));
+        }
+        final Waiter waiter = new Waiter(this);
+
+        waiter._deferred.onCancel(waiter);
+        _events.offer(waiter);
+        drain();
+
+        return waiter._deferred;
+    }
+
+    /**
+     * Tries to acquire a permit without waiting.
+     * 
+     * @return The permit or {@code null} if no permit is available.
+     */
+    public Permit tryAcquire() {
+        int permits;
+
+        do {
+            permits = _permits;
+            if (permits <= 0) {
+                return null;
+            }
+        } while (!PERMITS_UPDATER.compareAndSet(this, permits, permits - 1));
+
+        return new Permit(this);
+    }
+
+    /**
+     * Returns the number of available permits.
+     * 
+     * @return The number of available permits.
+     */
+    public int getAvailablePermits() {
+        return Math.max(0, _permits);
+    }
+
+    /**
+     * Returns the number of waiters.
+     * 
+     * @return The number of waiters.
+     */
+    public int getQueueLength() {
+        return Math.max(0, -_permits);
+    }
+
+    /**
+     * Releases a permit to the first waiter or makes it available.
+     */
+    private void release() {
+        if (PERMITS_UPDATER.getAndIncrement(this) < 0) {
+            GRANTS_UPDATER.incrementAndGet(this);
+            drain();
+        }
+    }
+
+    /**
+     * Drains the events and the pending grants.
+     * <p>
+     * Only one thread drains at a time, the others merely request another pass.
+     */
+    private void drain() {
+        if (WIP_UPDATER.getAndIncrement(this) != 0) {
+            return;
+        }
+        do {
+            Waiter waiter;
+
+            while ((waiter = _events.poll()) != null) {
+                if (waiter._link == Waiter.NEW) {
+                    link(waiter);
+                } else if (waiter._link == Waiter.LINKED) {
+                    // The second event of a waiter is its cancellation.
+                    unlink(waiter);
+                    withdraw();
+                }
+            }
+            while (_grants > 0) {
+                if (_voidedGrants > 0) {
+                    --_voidedGrants;
+                    GRANTS_UPDATER.decrementAndGet(this);
+                    releaseGrant();
+                    continue;
+                }
+                waiter = _head;
+                // A waiter which has been counted but not passed to the drainer yet requests another pass.
+                if (waiter == null) {
+                    break;
+                }
+                unlink(waiter);
+                GRANTS_UPDATER.decrementAndGet(this);
+                if (!waiter._deferred.trySuccess(new Permit(this))) {
+                    // The waiter has been cancelled and its cancellation event is ignored, so its permit is released.
+                    releaseGrant();
+                }
+            }
+        } while (WIP_UPDATER.decrementAndGet(this) != 0);
+    }
+
+    /**
+     * Releases the permit of a consumed grant again.
+     */
+    private void releaseGrant() {
+        if (PERMITS_UPDATER.getAndIncrement(this) < 0) {
+            GRANTS_UPDATER.incrementAndGet(this);
+        }
+    }
+
+    /**
+     * Withdraws the count of an unlinked cancelled waiter.
+     * <p>
+     * If the count has already been matched by a release, the grant of that release is voided instead.
+     */
+    private void withdraw() {
+        int permits;
+
+        do {
+            permits = _permits;
+            if (permits >= 0) {
+                ++_voidedGrants;
+
+                return;
+            }
+        } while (!PERMITS_UPDATER.compareAndSet(this, permits, permits + 1));
+    }
+
+    /**
+     * Links the specified waiter as the last waiter.
+     * 
+     * @param waiter The waiter.
+     */
+    private void link(final Waiter waiter) {
+        waiter._link = Waiter.LINKED;
+        waiter._previous = _tail;
+        if (_tail == null) {
+            _head = waiter;
+        } else {
+            _tail._next = waiter;
+        }
+        _tail = waiter;
+    }
+
+    /**
+     * Unlinks the specified waiter.
+     * 
+     * @param waiter The waiter.
+     */
+    private void unlink(final Waiter waiter) {
+        final Waiter previous = waiter._previous;
+        final Waiter next = waiter._next;
+
+        if (previous == null) {
+            _head = next;
+        } else {
+            previous._next = next;
+        }
+        if (next == null) {
+            _tail = previous;
+        } else {
+            next._previous = previous;
+        }
+        waiter._link = Waiter.DONE;
+        waiter._previous = null;
+        waiter._next = null;
+    }
+
+    /**
+     * Represents a permit of an {@link AsyncSemaphore}.
+     */
+    public static final class Permit {
+
+        /**
+         * The released updater.
+         */
+        private static final AtomicIntegerFieldUpdater<Permit> RELEASED_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Permit.class, "_released");
+
+        /**
+         * The semaphore.
+         */
+        private final AsyncSemaphore _semaphore;
+
+        /**
+         * A value indicating whether the permit has been released.
+         */
+        private volatile int _released;
+
+        /**
+         * Initializes a new instance of the {@link Permit} class.
+         * 
+         * @param semaphore The semaphore.
+         */
+        private Permit(final AsyncSemaphore semaphore) {
+            _semaphore = semaphore;
+        }
+
+        /**
+         * Releases the permit.
+         * <p>
+         * Only the first release of a permit has an effect.
+         */
+        public void release() {
+            if (RELEASED_UPDATER.compareAndSet(this, 0, 1)) {
+                _semaphore.release();
+            }
+        }
+    }
+
+    /**
+     * Represents a waiter, which doubles as the cancellation hook of its deferred.
+     * <p>
+     * A waiter is passed to the drainer on arrival and again on cancellation. Its link state and list pointers are
+     * only accessed by the drainer.
+     */
+    private static final class Waiter implements Runnable {
+
+        /**
+         * The state of a waiter which has not been linked yet.
+         */
+        private static final int NEW = 0;
+
+        /**
+         * The state of a linked waiter.
+         */
+        private static final int LINKED = 1;
+
+        /**
+         * The state of an unlinked waiter.
+         */
+        private static final int DONE = 2;
+
+        /**
+         * The semaphore.
+         */
+        private final AsyncSemaphore _semaphore;
+
+        /**
+         * The deferred.
+         */
+        private final Deferred<Permit> _deferred;
+
+        /**
+         * The link state.
+         */
+        private int _link;
+
+        /**
+         * The previous waiter or {@code null}.
+         */
+        private Waiter _previous;
+
+        /**
+         * The next waiter or {@code null}.
+         */
+        private Waiter _next;
+
+        /**
+         * Initializes a new instance of the {@link Waiter} class.
+         * 
+         * @param semaphore The semaphore.
+         */
+        public Waiter(final AsyncSemaphore semaphore) {
+            _semaphore = semaphore;
+            _deferred = new Deferred<>();
+            _link = NEW;
+            _previous = null;
+            _next = null;
+        }
+
+        @Override
+        public void run() {
+            _semaphore._events.offer(this);
+            _semaphore.drain();
+        }
+    }
+}
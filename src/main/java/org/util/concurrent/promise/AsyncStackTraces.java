@@ -0,0 +1,162 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents a sampling recorder of the registration sites of continuations.
+ * <p>
+ * A failure thrown by a continuation only carries the stack of the thread which completed the source promise. For a
+ * sampled continuation the stack of its registration by {@link Promise#then(Continuation)} is captured and attached to
+ * such a failure as a suppressed {@link AsyncStackTrace}. The capture only records the native backtrace, the stack trace
+ * elements are materialized when the failure is printed.
+ * <p>
+ * The recorder is configured by the following system properties:
+ * <ul>
+ * <li>{@code org.util.concurrent.promise.asyncStackTraces.level}: {@code disabled} (default), {@code sample} to record
+ * a random sample of registrations or {@code all} to record every registration.</li>
+ * <li>{@code org.util.concurrent.promise.asyncStackTraces.samplingInterval}: the average number of registrations per
+ * sampled registration, {@code 1024} by default.</li>
+ * </ul>
+ */
+final class AsyncStackTraces {
+
+    /**
+     * The private logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncStackTraces.class);
+
+    /**
+     * The default sampling interval.
+     */
+    private static final int DEFAULT_SAMPLING_INTERVAL = 1024;
+
+    /**
+     * The installed recorder or {@code null}.
+     */
+    private static final AsyncStackTraces INSTALLED = load(System.getProperty("org.util.concurrent.promise.asyncStackTraces.level", "disabled"), Integer.getInteger("org.util.concurrent.promise.asyncStackTraces.samplingInterval", DEFAULT_SAMPLING_INTERVAL));
+
+    /**
+     * The sampling interval.
+     */
+    private final int _samplingInterval;
+
+    /**
+     * Initializes a new instance of the {@link AsyncStackTraces} class.
+     * 
+     * @param samplingInterval The average number of registrations per sampled registration.
+     */
+    public AsyncStackTraces(final int samplingInterval) {
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("Sampling interval must be positive");
+        }
+
+        _samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Returns the installed recorder.
+     * 
+     * @return The installed recorder or {@code null} if async stack traces are disabled.
+     */
+    public static AsyncStackTraces getInstalled() {
+        return INSTALLED;
+    }
+
+    /**
+     * Returns a value indicating whether every registration is recorded.
+     * 
+     * @return A value indicating whether every registration is recorded.
+     */
+    public boolean isRecordingAll() {
+        return (_samplingInterval == 1);
+    }
+
+    /**
+     * Samples the current registration and captures its stack if sampled.
+     * 
+     * @return The async stack trace or {@code null} if not sampled.
+     */
+    public AsyncStackTrace capture() {
+        if ((_samplingInterval > 1) && (ThreadLocalRandom.current().nextInt(_samplingInterval) != 0)) {
+            return null;
+        }
+
+        return new AsyncStackTrace();
+    }
+
+    /**
+     * Attaches the specified async stack trace to the specified failure.
+     * 
+     * @param cause The failure.
+     * @param site The async stack trace or {@code null}.
+     */
+    public static void attach(final Throwable cause, final AsyncStackTrace site) {
+        if ((site != null) && (cause != site)) {
+            cause.addSuppressed(site);
+        }
+    }
+
+    /**
+     * Loads the recorder for the specified level.
+     * 
+     * @param level The level.
+     * @param samplingInterval The sampling interval.
+     * @return The recorder or {@code null} if async stack traces are disabled.
+     */
+    private static AsyncStackTraces load(final String level, final int samplingInterval) {
+        switch (level.toLowerCase(Locale.ROOT)) {
+        case "disabled":
+            return null;
+        case "sample":
+            LOGGER.info("Async stack traces enabled, sampling 1 of {} registrations", samplingInterval);
+
+            return new AsyncStackTraces(samplingInterval);
+        case "all":
+            LOGGER.info("Async stack traces enabled, recording all registrations");
+
+            return new AsyncStackTraces(1);
+        default:
+            LOGGER.warn("Unknown async stack trace level {}, async stack traces disabled", level);
+
+            return null;
+        }
+    }
+
+    /**
+     * Represents the stack of the registration of a continuation.
+     */
+    static final class AsyncStackTrace extends Exception {
+
+        /**
+         * The serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Initializes a new instance of the {@link AsyncStackTrace} class.
+         */
+        public AsyncStackTrace() {
+            super("Async stack of continuation registration", null, false, true);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Represents a task completing a deferred with the outcome of a callable.
+ * <p>
+ * The callable is skipped if the deferred has been completed, e.g. cancelled, before the task started.
+ * 
+ * @param <V> The type of the value.
+ */
+final class AsyncTask<V> implements Runnable {
+
+    /**
+     * The callable.
+     */
+    private final Callable<? extends V> _callable;
+
+    /**
+     * The result.
+     */
+    private final Deferred<V> _result = new Deferred<>();
+
+    /**
+     * Initializes a new instance of the {@link AsyncTask} class.
+     * 
+     * @param callable The callable.
+     */
+    public AsyncTask(final Callable<? extends V> callable) {
+        _callable = callable;
+    }
+
+    /**
+     * Initializes a new instance of the {@link AsyncTask} class.
+     * 
+     * @param runnable The runnable.
+     * @param value The value.
+     */
+    public AsyncTask(final Runnable runnable, final V value) {
+        _callable = new Callable<V>() {
+            @Override
+            public V call() {
+                runnable.run();
+
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Returns the result.
+     * 
+     * @return The result.
+     */
+    public Deferred<V> getResult() {
+        return _result;
+    }
+
+    @Override
+    public void run() {
+        if (_result.isComplete()) {
+            return;
+        }
+        try {
+            final V value = _callable.call();
+
+            _result.trySuccess(value);
+        } catch (final Throwable t) {
+            _result.tryFailure(t);
+        }
+    }
+
+    /**
+     * Fails the result with the specified cause.
+     * 
+     * @param cause The cause.
+     */
+    public void reject(final Throwable cause) {
+        _result.tryFailure(cause);
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents an executor which batches tasks into a single task of a target executor.
+ * <p>
+ * Tasks are appended to a lock-free multi-producer single-consumer queue and a single drain task submitted to the target
+ * executor runs them sequentially in submission order. A burst of tasks therefore costs a single submission to the
+ * target executor instead of one per task, e.g. when many promises complete on an I/O thread and hop to a worker pool
+ * using {@link ExecuteOn}. Since tasks do not run in parallel, the executor suits short tasks such as completing
+ * continuations. The drain task yields the target thread after running a maximum number of tasks by resubmitting
+ * itself.
+ * <p>
+ * A single instance should be shared per target executor. The thread running the drain task is in the executor, so
+ * {@link ExecuteOn} completes inline on it.
+ */
+public final class BatchingExecutor implements AffineExecutor {
+
+    /**
+     * The private logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingExecutor.class);
+
+    /**
+     * The default maximum number of tasks run by a drain task.
+     */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+
+    /**
+     * The tail updater.
+     */
+    private static final AtomicReferenceFieldUpdater<BatchingExecutor, Node> TAIL_UPDATER = AtomicReferenceFieldUpdater.newUpdater(BatchingExecutor.class, Node.class, "_tail");
+
+    /**
+     * The scheduled updater.
+     */
+    private static final AtomicIntegerFieldUpdater<BatchingExecutor> SCHEDULED_UPDATER = AtomicIntegerFieldUpdater.newUpdater(BatchingExecutor.class, "_scheduled");
+
+    /**
+     * The target executor.
+     */
+    private final Executor _executor;
+
+    /**
+     * The maximum number of tasks run by a drain task.
+     */
+    private final int _maxBatchSize;
+
+    /**
+     * The drain task.
+     */
+    private final Runnable _drain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * The head node, only accessed by the drain task.
+     */
+    private Node _head;
+
+    /**
+     * The tail node.
+     */
+    private volatile Node _tail;
+
+    /**
+     * The thread running the drain task.
+     */
+    private volatile Thread _drainThread;
+
+    /**
+     * A value indicating whether the drain task is scheduled.
+     */
+    private volatile int _scheduled;
+
+    /**
+     * Initializes a new instance of the {@link BatchingExecutor} class.
+     * 
+     * @param executor The target executor.
+     */
+    public BatchingExecutor(final Executor executor) {
+        this(executor, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Initializes a new instance of the {@link BatchingExecutor} class.
+     * 
+     * @param executor The target executor.
+     * @param maxBatchSize The maximum number of tasks run by a drain task.
+     */
+    public BatchingExecutor(final Executor executor, final int maxBatchSize) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor must not be null");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+
+        _executor = executor;
+        _maxBatchSize = maxBatchSize;
+        _head = new Node(null);
+        _tail = _head;
+    }
+
+    /**
+     * Executes the specified task.
+     * <p>
+     * If the target executor rejects the drain task, the exception is rethrown and the task is removed, so it never runs.
+     * Tasks queued concurrently by other threads run with the next drain task accepted by the target executor.
+     */
+    @Override
+    public void execute(final Runnable task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task must not be null");
+        }
+
+        final Node node = new Node(task);
+
+        TAIL_UPDATER.getAndSet(this, node)._next = node;
+
+        if ((_scheduled == 0) && SCHEDULED_UPDATER.compareAndSet(this, 0, 1)) {
+            boolean submitted = false;
+
+            try {
+                _executor.execute(_drain);
+                submitted = true;
+            } finally {
+                if (!submitted) {
+                    // No drain task runs while the drain task is scheduled, so the task can be removed safely.
+                    node._task = null;
+                    _scheduled = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean inExecutor() {
+        return (_drainThread == Thread.currentThread());
+    }
+
+    /**
+     * Runs the queued tasks.
+     */
+    private void drain() {
+        final Thread thread = Thread.currentThread();
+
+        _drainThread = thread;
+
+        for (;;) {
+            for (int i = 0; i < _maxBatchSize; i++) {
+                final Runnable task = poll();
+
+                if (task == null) {
+                    // The thread leaves the executor before the next drain task may be scheduled.
+                    _drainThread = null;
+                    _scheduled = 0;
+
+                    // A task may have been queued after the poll but before the reset.
+                    if (_head == _tail || !SCHEDULED_UPDATER.compareAndSet(this, 0, 1)) {
+                        return;
+                    }
+                    _drainThread = thread;
+                    continue;
+                }
+
+                try {
+                    task.run();
+                } catch (final Throwable t) {
+                    LOGGER.warn("Failed to run task", t);
+                }
+            }
+
+            _drainThread = null;
+            try {
+                _executor.execute(_drain);
+
+                return;
+            } catch (final RejectedExecutionException e) {
+                // Keep draining on the current thread.
+                _drainThread = thread;
+            } catch (final Throwable t) {
+                // The next executed task schedules a new drain task.
+                _scheduled = 0;
+
+                throw t;
+            }
+        }
+    }
+
+    /**
+     * Removes the next task, skipping removed tasks.
+     * 
+     * @return The task or {@code null} if the queue is empty.
+     */
+    private Runnable poll() {
+        for (;;) {
+            final Node head = _head;
+
+            Node next = head._next;
+
+            if (next == null) {
+                if (head == _tail) {
+                    return null;
+                }
+
+                // A producer has replaced the tail but not linked the node yet.
+                while ((next = head._next) == null) {
+                    Thread.yield();
+                }
+            }
+
+            final Runnable task = next._task;
+
+            next._task = null;
+            _head = next;
+            if (task != null) {
+                return task;
+            }
+        }
+    }
+
+    /**
+     * Represents a queue node.
+     */
+    private static final class Node {
+
+        /**
+         * The task or {@code null} if the task has been removed.
+         */
+        private volatile Runnable _task;
+
+        /**
+         * The next node.
+         */
+        private volatile Node _next;
+
+        /**
+         * Initializes a new instance of the {@link Node} class.
+         * 
+         * @param task The task.
+         */
+        public Node(final Runnable task) {
+            _task = task;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Represents a loader which coalesces the loads of individual keys into batch loads.
+ * <p>
+ * The keys loaded within a window or up to the maximum batch size are collected into a batch, which is dispatched as a
+ * single call of the batch function with the distinct keys of the batch. Every load is completed from the map of the
+ * batch result: a key mapped to {@code null} succeeds with {@code null}, a key missing from the map fails with a
+ * {@link NoSuchElementException} and a failed batch fails all its loads.
+ * <p>
+ * A batch is collected without locks: a load reserves a slot by an atomic increment and the last of the loads and the
+ * closing of the batch to finish dispatches it. A full batch is dispatched on the thread of its last load, a batch
+ * closed by its window on the thread of the shared hashed wheel timer.
+ * 
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public final class BatchingLoader<K, V> {
+
+    /**
+     * The current batch updater.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<BatchingLoader, Batch> CURRENT_UPDATER = AtomicReferenceFieldUpdater.newUpdater(BatchingLoader.class, Batch.class, "_current");
+
+    /**
+     * The batch function.
+     */
+    private final Compose<? super List<K>, ? extends Map<K, ? extends V>> _batchFunction;
+
+    /**
+     * The maximum batch size.
+     */
+    private final int _maxBatchSize;
+
+    /**
+     * The window in nanoseconds.
+     */
+    private final long _window;
+
+    /**
+     * The batch collecting loads or {@code null}.
+     */
+    private volatile Batch<K, V> _current;
+
+    /**
+     * Initializes a new instance of the {@link BatchingLoader} class.
+     * 
+     * @param batchFunction The batch function.
+     * @param maxBatchSize The maximum batch size.
+     * @param window The window after the first load of a batch after which the batch is dispatched.
+     * @param timeUnit The time unit.
+     */
+    public BatchingLoader(final Compose<? super List<K>, ? extends Map<K, ? extends V>> batchFunction, final int maxBatchSize, final long window, final TimeUnit timeUnit) {
+        if (batchFunction == null) {
+            throw new IllegalArgumentException("Batch function must not be null");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        if (window <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+
+        _batchFunction = batchFunction;
+        _maxBatchSize = maxBatchSize;
+        _window = timeUnit.toNanos(window);
+
+        _current = null;
+    }
+
+    /**
+     * Loads the value of the specified key as part of the current batch.
+     * 
+     * @param key The key.
+     * @return The promise for the value.
+     */
+    public Promise<V> load(final K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key must not be null");
+        }
+
+        while (true) {
+            final Batch<K, V> batch = _current;
+
+            if ((batch == null) || batch.isClosed()) {
+                final Batch<K, V> next = new Batch<>(this);
+
+                if (CURRENT_UPDATER.compareAndSet(this, batch, next)) {
+                    next.schedule();
+                }
+                continue;
+            }
+            final Deferred<V> result = batch.add(key);
+
+            if (result != null) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Dispatches the current batch without waiting for its window.
+     */
+    public void dispatch() {
+        final Batch<K, V> batch = _current;
+
+        if (batch != null) {
+            batch.close();
+        }
+    }
+
+    /**
+     * Represents a batch of loads.
+     * 
+     * @param <K> The key type.
+     * @param <V> The value type.
+     */
+    private static final class Batch<K, V> implements Runnable {
+
+        /**
+         * The size updater.
+         */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Batch> SIZE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Batch.class, "_size");
+
+        /**
+         * The pending updater.
+         */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Batch> PENDING_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Batch.class, "_pending");
+
+        /**
+         * The closed updater.
+         */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Batch> CLOSED_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Batch.class, "_closed");
+
+        /**
+         * The dispatched updater.
+         */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Batch> DISPATCHED_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Batch.class, "_dispatched");
+
+        /**
+         * The loader.
+         */
+        private final BatchingLoader<K, V> _loader;
+
+        /**
+         * The keys.
+         */
+        private final AtomicReferenceArray<K> _keys;
+
+        /**
+         * The results.
+         */
+        private final AtomicReferenceArray<Deferred<V>> _results;
+
+        /**
+         * The number of reserved slots, which may exceed the maximum batch size.
+         */
+        private volatile int _size;
+
+        /**
+         * The number of loads writing their slots plus one while the batch is open.
+         */
+        private volatile int _pending;
+
+        /**
+         * A value indicating whether the batch has been closed.
+         */
+        private volatile int _closed;
+
+        /**
+         * A value indicating whether the batch has been dispatched.
+         */
+        private volatile int _dispatched;
+
+        /**
+         * The window timeout or {@code null}.
+         */
+        private volatile HashedWheelTimer.Timeout _timeout;
+
+        /**
+         * Initializes a new instance of the {@link Batch} class.
+         * 
+         * @param loader The loader.
+         */
+        public Batch(final BatchingLoader<K, V> loader) {
+            _loader = loader;
+            _keys = new AtomicReferenceArray<>(loader._maxBatchSize);
+            _results = new AtomicReferenceArray<>(loader._maxBatchSize);
+
+            _size = 0;
+            _pending = 1;
+            _closed = 0;
+            _dispatched = 0;
+        }
+
+        /**
+         * Schedules the window of the batch.
+         */
+        public void schedule() {
+            _timeout = HashedWheelTimer.getShared().schedule(this, _loader._window, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns a value indicating whether the batch has been closed.
+         * 
+         * @return A value indicating whether the batch has been closed.
+         */
+        public boolean isClosed() {
+            return (_closed != 0) || (_size >= _keys.length());
+        }
+
+        /**
+         * Adds a load of the specified key.
+         * 
+         * @param key The key.
+         * @return The promise for the value or {@code null} if the batch is closed.
+         */
+        public Deferred<V> add(final K key) {
+            PENDING_UPDATER.incrementAndGet(this);
+            // A load which starts after the batch has been closed must not reserve a slot, since the batch may already
+            // have been dispatched.
+            if (_closed != 0) {
+                leave();
+
+                return null;
+            }
+            final int index = SIZE_UPDATER.getAndIncrement(this);
+
+            if (index >= _keys.length()) {
+                leave();
+
+                return null;
+            }
+            final Deferred<V> result = new Deferred<>();
+
+            _keys.lazySet(index, key);
+            _results.lazySet(index, result);
+            if (index == (_keys.length() - 1)) {
+                close();
+            }
+            leave();
+
+            return result;
+        }
+
+        /**
+         * Closes the batch, which dispatches it once all pending loads have written their slots.
+         */
+        public void close() {
+            if (CLOSED_UPDATER.compareAndSet(this, 0, 1)) {
+                leave();
+            }
+        }
+
+        @Override
+        public void run() {
+            close();
+        }
+
+        /**
+         * Leaves the batch and dispatches it if it is closed and no load is pending.
+         */
+        private void leave() {
+            if ((PENDING_UPDATER.decrementAndGet(this) == 0) && DISPATCHED_UPDATER.compareAndSet(this, 0, 1)) {
+                dispatch();
+            }
+        }
+
+        /**
+         * Dispatches the batch.
+         */
+        private void dispatch() {
+            final HashedWheelTimer.Timeout timeout = _timeout;
+
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            final int size = Math.min(_size, _keys.length());
+
+            if (size == 0) {
+                return;
+            }
+            final Map<K, List<Deferred<V>>> loads = new LinkedHashMap<>();
+
+            for (int i = 0; i < size; i++) {
+                final K key = _keys.get(i);
+                List<Deferred<V>> results = loads.get(key);
+
+                if (results == null) {
+                    results = new ArrayList<>(1);
+                    loads.put(key, results);
+                }
+                results.add(_results.get(i));
+            }
+            final Deferred<Map<K, ? extends V>> values = new Deferred<>();
+
+            values.then(new BatchResult<K, V>(loads));
+            try {
+                _loader._batchFunction.onSuccess(new ArrayList<>(loads.keySet()), values);
+            } catch (final Throwable t) {
+                values.tryFailure(t);
+            }
+        }
+    }
+
+    /**
+     * Represents the completion of the loads of a batch from the batch result.
+     * 
+     * @param <K> The key type.
+     * @param <V> The value type.
+     */
+    private static final class BatchResult<K, V> implements Completable<Map<K, ? extends V>> {
+
+        /**
+         * The loads by key.
+         */
+        private final Map<K, List<Deferred<V>>> _loads;
+
+        /**
+         * Initializes a new instance of the {@link BatchResult} class.
+         * 
+         * @param loads The loads by key.
+         */
+        public BatchResult(final Map<K, List<Deferred<V>>> loads) {
+            _loads = loads;
+        }
+
+        @Override
+        public void setSuccess(final Map<K, ? extends V> values) {
+            for (final Map.Entry<K, List<Deferred<V>>> entry : _loads.entrySet()) {
+                final K key = entry.getKey();
+
+                if ((values == null) || !values.containsKey(key)) {
+                    final NoSuchElementException cause = new NoSuchElementException("Batch result misses key " + key);
+
+                    for (final Deferred<V> result : entry.getValue()) {
+                        result.tryFailure(cause);
+                    }
+                    continue;
+                }
+                final V value = values.get(key);
+
+                for (final Deferred<V> result : entry.getValue()) {
+                    result.trySuccess(value);
+                }
+            }
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            for (final List<Deferred<V>> results : _loads.values()) {
+                for (final Deferred<V> result : results) {
+                    result.tryFailure(cause);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Represents a nonblocking bulkhead which limits the number of concurrent promise-returning calls.
+ * <p>
+ * A call takes a permit of an {@link AsyncSemaphore} and releases it once its promise is complete. Without an
+ * available permit the call waits in line unless the maximum number of waiting calls has been reached, in which case
+ * it is rejected by a failed promise with a {@link RejectedExecutionException}. Cancelling a waiting call removes it
+ * from the line. No thread ever blocks on a bulkhead. The outcomes of the executed calls are counted, except for
+ * cancelled calls.
+ */
+public final class Bulkhead {
+
+    /**
+     * The semaphore.
+     */
+    private final AsyncSemaphore _semaphore;
+
+    /**
+     * The maximum number of waiting calls.
+     */
+    private final int _maxWaitingCalls;
+
+    /**
+     * The number of successful calls.
+     */
+    private final StripedCounter _successfulCalls;
+
+    /**
+     * The number of failed calls.
+     */
+    private final StripedCounter _failedCalls;
+
+    /**
+     * The number of rejected calls.
+     */
+    private final StripedCounter _rejectedCalls;
+
+    /**
+     * Initializes a new instance of the {@link Bulkhead} class without waiting calls.
+     * 
+     * @param maxConcurrentCalls The maximum number of concurrent calls.
+     */
+    public Bulkhead(final int maxConcurrentCalls) {
+        this(maxConcurrentCalls, 0);
+    }
+
+    /**
+     * Initializes a new instance of the {@link Bulkhead} class.
+     * 
+     * @param maxConcurrentCalls The maximum number of concurrent calls.
+     * @param maxWaitingCalls The maximum number of calls waiting for a permit.
+     */
+    public Bulkhead(final int maxConcurrentCalls, final int maxWaitingCalls) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("Maximum concurrent calls must be positive");
+        }
+        if (maxWaitingCalls < 0) {
+            throw new IllegalArgumentException("Maximum waiting calls must not be negative");
+        }
+
+        _semaphore = new AsyncSemaphore(maxConcurrentCalls);
+        _maxWaitingCalls = maxWaitingCalls;
+        _successfulCalls = new StripedCounter();
+        _failedCalls = new StripedCounter();
+        _rejectedCalls = new StripedCounter();
+    }
+
+    /**
+     * Calls the specified operation once a permit is available unless the bulkhead rejects the call.
+     * 
+     * @param operation The operation.
+     * @return The promise of the operation or a failed promise if the call has been rejected.
+     */
+    public <T> Promise<T> call(final Callable<? extends Promise<? extends T>> operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Operation must not be null");
+        }
+        final AsyncSemaphore.Permit permit = _semaphore.tryAcquire();
+
+        if (permit != null) {
+            return execute(operation, permit);
+        }
+        // The bound of the waiting calls is approximate under contention.
+        if (_semaphore.getQueueLength() >= _maxWaitingCalls) {
+            _rejectedCalls.increment();
+
+            return Promises.newFailure(new RejectedExecutionException("Bulkhead is full"));
+        }
+
+        return _semaphore.acquire().then(new Compose<AsyncSemaphore.Permit, T>() {
+            @Override
+            protected Promise<T> doCompose(final AsyncSemaphore.Permit value) {
+                return execute(operation, value);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of available concurrent calls.
+     * 
+     * @return The number of available concurrent calls.
+     */
+    public int getAvailableConcurrentCalls() {
+        return _semaphore.getAvailablePermits();
+    }
+
+    /**
+     * Returns the number of calls waiting for a permit.
+     * 
+     * @return The number of waiting calls.
+     */
+    public int getWaitingCalls() {
+        return _semaphore.getQueueLength();
+    }
+
+    /**
+     * Returns the number of successful calls.
+     * 
+     * @return The number of successful calls.
+     */
+    public long getSuccessfulCalls() {
+        return _successfulCalls.sum();
+    }
+
+    /**
+     * Returns the number of failed calls.
+     * 
+     * @return The number of failed calls.
+     */
+    public long getFailedCalls() {
+        return _failedCalls.sum();
+    }
+
+    /**
+     * Returns the number of rejected calls.
+     * 
+     * @return The number of rejected calls.
+     */
+    public long getRejectedCalls() {
+        return _rejectedCalls.sum();
+    }
+
+    /**
+     * Executes the specified operation holding the specified permit.
+     * 
+     * @param operation The operation.
+     * @param permit The permit.
+     * @return The promise of the operation.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Promise<T> execute(final Callable<? extends Promise<? extends T>> operation, final AsyncSemaphore.Permit permit) {
+        final Promise<? extends T> promise;
+
+        try {
+            promise = operation.call();
+            if (promise == null) {
+                throw new NullPointerException("Operation must not return null");
+            }
+        } catch (final Throwable t) {
+            permit.release();
+            _failedCalls.increment();
+
+            return Promises.newFailure(t);
+        }
+        promise.then(new PermitRelease(this, permit));
+
+        return (Promise<T>) promise;
+    }
+
+    /**
+     * Represents the release of a permit on completion of a call.
+     */
+    private static final class PermitRelease implements Observer<Object> {
+
+        /**
+         * The bulkhead.
+         */
+        private final Bulkhead _bulkhead;
+
+        /**
+         * The permit.
+         */
+        private final AsyncSemaphore.Permit _permit;
+
+        /**
+         * Initializes a new instance of the {@link PermitRelease} class.
+         * 
+         * @param bulkhead The bulkhead.
+         * @param permit The permit.
+         */
+        public PermitRelease(final Bulkhead bulkhead, final AsyncSemaphore.Permit permit) {
+            _bulkhead = bulkhead;
+            _permit = permit;
+        }
+
+        @Override
+        public void setSuccess(final Object value) {
+            _permit.release();
+            _bulkhead._successfulCalls.increment();
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            _permit.release();
+            if (!(cause instanceof CancellationException)) {
+                _bulkhead._failedCalls.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,630 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Represents a nonblocking circuit breaker for promise-returning calls.
+ * <p>
+ * While closed, the outcomes of the calls are recorded in a sliding window of {@value #BUCKETS} time buckets. Once the
+ * window holds the minimum number of calls and the failure rate or the slow call rate reaches its threshold, the
+ * breaker opens and rejects all calls by a failed promise with a {@link RejectedExecutionException}. After the open
+ * duration a single trial call is permitted, which closes the breaker on success and opens it again otherwise. A trial
+ * call which has not completed within the open duration is abandoned, so the next call becomes a new trial call and the
+ * outcome of the abandoned call is no longer recorded. Cancelled calls are not recorded.
+ * <p>
+ * A bucket is replaced by a compare and swap once per bucket duration and its counters are updated atomically, so
+ * recording an outcome requires no locks. The state and the time at which the breaker opened are kept in a single
+ * immutable status, so both are changed by a single compare and swap. The durations are measured by the coarse time of the shared hashed wheel
+ * timer, so they are accurate to its tick duration of 10 milliseconds.
+ */
+public final class CircuitBreaker {
+
+    /**
+     * Defines the state of a circuit breaker.
+     */
+    public enum State {
+
+        /**
+         * The closed state, which permits all calls.
+         */
+        CLOSED,
+
+        /**
+         * The open state, which rejects all calls.
+         */
+        OPEN,
+
+        /**
+         * The half open state, which permits a single trial call.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * The number of buckets of the sliding window.
+     */
+    private static final int BUCKETS = 10;
+
+    /**
+     * The permission of a rejected call.
+     */
+    private static final int REJECTED = 0;
+
+    /**
+     * The permission of a call in the closed state.
+     */
+    private static final int PERMITTED = 1;
+
+    /**
+     * The permission of the trial call in the half open state.
+     */
+    private static final int TRIAL = 2;
+
+    /**
+     * The trial time if no trial call is pending.
+     */
+    private static final long NO_TRIAL = Long.MIN_VALUE;
+
+    /**
+     * The closed status.
+     */
+    private static final Status CLOSED = new Status(State.CLOSED, 0);
+
+    /**
+     * The half open status.
+     */
+    private static final Status HALF_OPEN = new Status(State.HALF_OPEN, 0);
+
+    /**
+     * The status updater.
+     */
+    private static final AtomicReferenceFieldUpdater<CircuitBreaker, Status> STATUS_UPDATER = AtomicReferenceFieldUpdater.newUpdater(CircuitBreaker.class, Status.class, "_status");
+
+    /**
+     * The trial time updater.
+     */
+    private static final AtomicLongFieldUpdater<CircuitBreaker> TRIAL_TIME_UPDATER = AtomicLongFieldUpdater.newUpdater(CircuitBreaker.class, "_trialTime");
+
+    /**
+     * The failure rate threshold.
+     */
+    private final double _failureRateThreshold;
+
+    /**
+     * The slow call rate threshold.
+     */
+    private final double _slowCallRateThreshold;
+
+    /**
+     * The slow call duration in nanoseconds.
+     */
+    private final long _slowCallDuration;
+
+    /**
+     * The minimum number of calls in the window.
+     */
+    private final int _minimumCalls;
+
+    /**
+     * The bucket duration in nanoseconds.
+     */
+    private final long _bucketDuration;
+
+    /**
+     * The open duration in nanoseconds.
+     */
+    private final long _openDuration;
+
+    /**
+     * The origin of the bucket epochs in nanoseconds.
+     */
+    private final long _origin;
+
+    /**
+     * The buckets.
+     */
+    private final AtomicReferenceArray<Bucket> _buckets;
+
+    /**
+     * The number of successful calls.
+     */
+    private final StripedCounter _successfulCalls;
+
+    /**
+     * The number of failed calls.
+     */
+    private final StripedCounter _failedCalls;
+
+    /**
+     * The number of slow calls.
+     */
+    private final StripedCounter _slowCalls;
+
+    /**
+     * The number of rejected calls.
+     */
+    private final StripedCounter _rejectedCalls;
+
+    /**
+     * The status.
+     */
+    private volatile Status _status;
+
+    /**
+     * The start time in nanoseconds of the pending trial call or {@link #NO_TRIAL}.
+     */
+    private volatile long _trialTime;
+
+    /**
+     * Initializes a new instance of the {@link CircuitBreaker} class without a slow call threshold.
+     * 
+     * @param failureRateThreshold The failure rate between zero and one at which the breaker opens.
+     * @param minimumCalls The minimum number of calls in the window before the breaker opens.
+     * @param window The duration of the sliding window.
+     * @param openDuration The duration after which an open breaker permits a trial call.
+     * @param timeUnit The time unit.
+     */
+    public CircuitBreaker(final double failureRateThreshold, final int minimumCalls, final long window, final long openDuration, final TimeUnit timeUnit) {
+        this(failureRateThreshold, 1, Long.MAX_VALUE, minimumCalls, window, openDuration, timeUnit);
+    }
+
+    /**
+     * Initializes a new instance of the {@link CircuitBreaker} class.
+     * 
+     * @param failureRateThreshold The failure rate between zero and one at which the breaker opens.
+     * @param slowCallRateThreshold The slow call rate between zero and one at which the breaker opens.
+     * @param slowCallDuration The duration from which a call is slow.
+     * @param minimumCalls The minimum number of calls in the window before the breaker opens.
+     * @param window The duration of the sliding window.
+     * @param openDuration The duration after which an open breaker permits a trial call.
+     * @param timeUnit The time unit.
+     */
+    public CircuitBreaker(final double failureRateThreshold, final double slowCallRateThreshold, final long slowCallDuration, final int minimumCalls, final long window, final long openDuration, final TimeUnit timeUnit) {
+        if (!(failureRateThreshold > 0) || (failureRateThreshold > 1)) {
+            throw new IllegalArgumentException("Failure rate threshold must be between zero and one");
+        }
+        if (!(slowCallRateThreshold > 0) || (slowCallRateThreshold > 1)) {
+            throw new IllegalArgumentException("Slow call rate threshold must be between zero and one");
+        }
+        if (slowCallDuration <= 0) {
+            throw new IllegalArgumentException("Slow call duration must be positive");
+        }
+        if (minimumCalls <= 0) {
+            throw new IllegalArgumentException("Minimum calls must be positive");
+        }
+        if ((window <= 0) || (openDuration <= 0)) {
+            throw new IllegalArgumentException("Durations must be positive");
+        }
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+
+        _failureRateThreshold = failureRateThreshold;
+        _slowCallRateThreshold = slowCallRateThreshold;
+        _slowCallDuration = timeUnit.toNanos(slowCallDuration);
+        _minimumCalls = minimumCalls;
+        _bucketDuration = Math.max(1, timeUnit.toNanos(window) / BUCKETS);
+        _openDuration = timeUnit.toNanos(openDuration);
+        _origin = currentTime();
+        _buckets = new AtomicReferenceArray<>(BUCKETS);
+        _successfulCalls = new StripedCounter();
+        _failedCalls = new StripedCounter();
+        _slowCalls = new StripedCounter();
+        _rejectedCalls = new StripedCounter();
+
+        _status = CLOSED;
+        _trialTime = NO_TRIAL;
+    }
+
+    /**
+     * Calls the specified operation unless the breaker rejects the call.
+     * 
+     * @param operation The operation.
+     * @return The promise of the operation or a failed promise if the call has been rejected.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Promise<T> call(final Callable<? extends Promise<? extends T>> operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Operation must not be null");
+        }
+        final long startTime = currentTime();
+        final int permission = acquirePermission(startTime);
+
+        if (permission == REJECTED) {
+            _rejectedCalls.increment();
+
+            return Promises.newFailure(new RejectedExecutionException("Circuit breaker is open"));
+        }
+        final Promise<? extends T> promise;
+
+        try {
+            promise = operation.call();
+            if (promise == null) {
+                throw new NullPointerException("Operation must not return null");
+            }
+        } catch (final Throwable t) {
+            onComplete(permission, startTime, t);
+
+            return Promises.newFailure(t);
+        }
+        promise.then(new CallObserver(this, permission, startTime));
+
+        return (Promise<T>) promise;
+    }
+
+    /**
+     * Returns the state.
+     * 
+     * @return The state.
+     */
+    public State getState() {
+        final Status status = _status;
+
+        if ((status._state == State.OPEN) && ((currentTime() - status._openedTime) >= _openDuration)) {
+            return State.HALF_OPEN;
+        }
+
+        return status._state;
+    }
+
+    /**
+     * Returns the failure rate of the sliding window.
+     * 
+     * @return The failure rate or zero if the window holds no calls.
+     */
+    public double getFailureRate() {
+        final long[] counts = sum(currentTime());
+
+        return (counts[0] == 0) ? 0 : ((double) counts[1] / counts[0]);
+    }
+
+    /**
+     * Returns the number of successful calls.
+     * 
+     * @return The number of successful calls.
+     */
+    public long getSuccessfulCalls() {
+        return _successfulCalls.sum();
+    }
+
+    /**
+     * Returns the number of failed calls.
+     * 
+     * @return The number of failed calls.
+     */
+    public long getFailedCalls() {
+        return _failedCalls.sum();
+    }
+
+    /**
+     * Returns the number of slow calls, which are also counted as successful or failed calls.
+     * 
+     * @return The number of slow calls.
+     */
+    public long getSlowCalls() {
+        return _slowCalls.sum();
+    }
+
+    /**
+     * Returns the number of rejected calls.
+     * 
+     * @return The number of rejected calls.
+     */
+    public long getRejectedCalls() {
+        return _rejectedCalls.sum();
+    }
+
+    /**
+     * Acquires the permission of a call.
+     * 
+     * @param now The current time in nanoseconds.
+     * @return The permission.
+     */
+    private int acquirePermission(final long now) {
+        final Status status = _status;
+
+        if (status == CLOSED) {
+            return PERMITTED;
+        }
+        if ((status._state == State.OPEN) && (((now - status._openedTime) < _openDuration) || !STATUS_UPDATER.compareAndSet(this, status, HALF_OPEN))) {
+            return REJECTED;
+        }
+        final long trialTime = _trialTime;
+
+        // A trial call pending for longer than the open duration is abandoned.
+        if (((trialTime == NO_TRIAL) || ((now - trialTime) >= _openDuration)) && TRIAL_TIME_UPDATER.compareAndSet(this, trialTime, now)) {
+            return TRIAL;
+        }
+
+        return REJECTED;
+    }
+
+    /**
+     * Records the outcome of a call.
+     * 
+     * @param permission The permission of the call.
+     * @param startTime The start time of the call in nanoseconds.
+     * @param cause The cause or {@code null} if the call succeeded.
+     */
+    private void onComplete(final int permission, final long startTime, final Throwable cause) {
+        if (cause instanceof CancellationException) {
+            if (permission == TRIAL) {
+                TRIAL_TIME_UPDATER.compareAndSet(this, startTime, NO_TRIAL);
+            }
+            return;
+        }
+        final long now = currentTime();
+        final boolean failed = (cause != null);
+        final boolean slow = ((now - startTime) >= _slowCallDuration);
+
+        if (failed) {
+            _failedCalls.increment();
+        } else {
+            _successfulCalls.increment();
+        }
+        if (slow) {
+            _slowCalls.increment();
+        }
+        if (permission == TRIAL) {
+            // The trial call identified by its start time may have been abandoned in the meantime.
+            if (_trialTime != startTime) {
+                return;
+            }
+            if (failed || slow) {
+                open(State.HALF_OPEN, now);
+            } else {
+                for (int i = 0; i < BUCKETS; i++) {
+                    _buckets.set(i, null);
+                }
+                _status = CLOSED;
+            }
+            TRIAL_TIME_UPDATER.compareAndSet(this, startTime, NO_TRIAL);
+
+            return;
+        }
+        if (_status != CLOSED) {
+            return;
+        }
+        bucket(now).record(failed, slow);
+        // A success or a fast call cannot raise a rate above its threshold.
+        if (!failed && !slow) {
+            return;
+        }
+        final long[] counts = sum(now);
+
+        if ((counts[0] >= _minimumCalls) && ((counts[1] >= (_failureRateThreshold * counts[0])) || (counts[2] >= (_slowCallRateThreshold * counts[0])))) {
+            open(State.CLOSED, now);
+        }
+    }
+
+    /**
+     * Opens the breaker if it is in the specified state.
+     * 
+     * @param expected The expected state.
+     * @param now The current time in nanoseconds.
+     */
+    private void open(final State expected, final long now) {
+        final Status status = _status;
+
+        // The open time is published together with the open state, so a failed transition never moves the open window.
+        if (status._state == expected) {
+            STATUS_UPDATER.compareAndSet(this, status, new Status(State.OPEN, now));
+        }
+    }
+
+    /**
+     * Returns the bucket of the specified time.
+     * 
+     * @param now The current time in nanoseconds.
+     * @return The bucket.
+     */
+    private Bucket bucket(final long now) {
+        final long epoch = (now - _origin) / _bucketDuration;
+        final int index = (int) (epoch % BUCKETS);
+
+        while (true) {
+            final Bucket bucket = _buckets.get(index);
+
+            if ((bucket != null) && (bucket._epoch >= epoch)) {
+                return bucket;
+            }
+            final Bucket next = new Bucket(epoch);
+
+            if (_buckets.compareAndSet(index, bucket, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Sums the counts of the buckets in the sliding window of the specified time.
+     * 
+     * @param now The current time in nanoseconds.
+     * @return The number of calls, failed calls and slow calls.
+     */
+    private long[] sum(final long now) {
+        final long epoch = (now - _origin) / _bucketDuration;
+        final long[] counts = new long[3];
+
+        for (int i = 0; i < BUCKETS; i++) {
+            final Bucket bucket = _buckets.get(i);
+
+            if ((bucket != null) && (bucket._epoch > (epoch - BUCKETS))) {
+                counts[0] += bucket._calls;
+                counts[1] += bucket._failures;
+                counts[2] += bucket._slowCalls;
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Returns the coarse current time.
+     * 
+     * @return The time in nanoseconds.
+     */
+    private static long currentTime() {
+        return HashedWheelTimer.getShared().getCurrentTime();
+    }
+
+    /**
+     * Represents the immutable status of a circuit breaker.
+     */
+    private static final class Status {
+
+        /**
+         * The state.
+         */
+        private final State _state;
+
+        /**
+         * The time in nanoseconds at which the breaker opened.
+         */
+        private final long _openedTime;
+
+        /**
+         * Initializes a new instance of the {@link Status} class.
+         * 
+         * @param state The state.
+         * @param openedTime The time in nanoseconds at which the breaker opened.
+         */
+        public Status(final State state, final long openedTime) {
+            _state = state;
+            _openedTime = openedTime;
+        }
+    }
+
+    /**
+     * Represents a bucket of the sliding window.
+     */
+    private static final class Bucket {
+
+        /**
+         * The calls updater.
+         */
+        private static final AtomicLongFieldUpdater<Bucket> CALLS_UPDATER = AtomicLongFieldUpdater.newUpdater(Bucket.class, "_calls");
+
+        /**
+         * The failures updater.
+         */
+        private static final AtomicLongFieldUpdater<Bucket> FAILURES_UPDATER = AtomicLongFieldUpdater.newUpdater(Bucket.class, "_failures");
+
+        /**
+         * The slow calls updater.
+         */
+        private static final AtomicLongFieldUpdater<Bucket> SLOW_CALLS_UPDATER = AtomicLongFieldUpdater.newUpdater(Bucket.class, "_slowCalls");
+
+        /**
+         * The epoch.
+         */
+        private final long _epoch;
+
+        /**
+         * The number of calls.
+         */
+        private volatile long _calls;
+
+        /**
+         * The number of failed calls.
+         */
+        private volatile long _failures;
+
+        /**
+         * The number of slow calls.
+         */
+        private volatile long _slowCalls;
+
+        /**
+         * Initializes a new instance of the {@link Bucket} class.
+         * 
+         * @param epoch The epoch.
+         */
+        public Bucket(final long epoch) {
+            _epoch = epoch;
+        }
+
+        /**
+         * Records the outcome of a call.
+         * 
+         * @param failed A value indicating whether the call failed.
+         * @param slow A value indicating whether the call was slow.
+         */
+        public void record(final boolean failed, final boolean slow) {
+            // The failures and slow calls are recorded first, so a concurrent sum never sees a rate above one.
+            if (failed) {
+                FAILURES_UPDATER.incrementAndGet(this);
+            }
+            if (slow) {
+                SLOW_CALLS_UPDATER.incrementAndGet(this);
+            }
+            CALLS_UPDATER.incrementAndGet(this);
+        }
+    }
+
+    /**
+     * Represents the observer of a permitted call.
+     */
+    private static final class CallObserver implements Observer<Object> {
+
+        /**
+         * The circuit breaker.
+         */
+        private final CircuitBreaker _breaker;
+
+        /**
+         * The permission of the call.
+         */
+        private final int _permission;
+
+        /**
+         * The start time of the call in nanoseconds.
+         */
+        private final long _startTime;
+
+        /**
+         * Initializes a new instance of the {@link CallObserver} class.
+         * 
+         * @param breaker The circuit breaker.
+         * @param permission The permission of the call.
+         * @param startTime The start time of the call in nanoseconds.
+         */
+        public CallObserver(final CircuitBreaker breaker, final int permission, final long startTime) {
+            _breaker = breaker;
+            _permission = permission;
+            _startTime = startTime;
+        }
+
+        @Override
+        public void setSuccess(final Object value) {
+            _breaker.onComplete(_permission, _startTime, null);
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            _breaker.onComplete(_permission, _startTime, cause);
+        }
+    }
+}
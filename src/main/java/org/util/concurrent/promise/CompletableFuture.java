@@ -16,105 +16,344 @@
 
 package org.util.concurrent.promise;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Represents a completable future.
+ * <p>
+ * The result is stored directly in a single volatile field. Waiting threads spin briefly and then park themselves on a
+ * lock-free stack of waiters, which is unparked on completion. Waiters which time out or are interrupted are unlinked
+ * from the stack. Parking relies on {@link LockSupport} only and never holds a monitor.
  * 
  * @param <T> The value type.
  */
 final class CompletableFuture<T> implements Completable<T>, Future<T> {
 
     /**
-     * Defines a value.
-     * 
-     * @param <V> The value type.
+     * The number of spins before a waiting thread parks itself.
      */
-    private interface Value<V> {
-        /**
-         * Returns the value.
-         * 
-         * @return The value.
-         * @throws ExecutionException
-         */
-        V get() throws ExecutionException;
-    }
+    private static final int MAX_SPINS = (Runtime.getRuntime().availableProcessors() > 1) ? 128 : 0;
+
+    /**
+     * The null result.
+     */
+    private static final Object NULL = new Object();
 
     /**
-     * The count down latch.
+     * The cancelled result.
      */
-    private final CountDownLatch _latch;
+    private static final Object CANCELLED = new Object();
 
     /**
-     * The value.
+     * The result updater.
      */
-    private Value<T> _value;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<CompletableFuture, Object> RESULT_UPDATER = AtomicReferenceFieldUpdater.newUpdater(CompletableFuture.class, Object.class, "_result");
+
+    /**
+     * The waiters updater.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<CompletableFuture, Waiter> WAITERS_UPDATER = AtomicReferenceFieldUpdater.newUpdater(CompletableFuture.class, Waiter.class, "_waiters");
+
+    /**
+     * The source promise.
+     */
+    private final Promise<?> _source;
+
+    /**
+     * The stamp of the source promise.
+     */
+    private final int _stamp;
+
+    /**
+     * The result, which is {@code null} while the future is pending.
+     */
+    private volatile Object _result;
+
+    /**
+     * The top of the waiter stack.
+     */
+    private volatile Waiter _waiters;
 
     /**
      * Initializes a new instance of the {@link CompletableFuture} class.
      */
     public CompletableFuture() {
-        _latch = new CountDownLatch(1);
+        this(null);
+    }
+
+    /**
+     * Initializes a new instance of the {@link CompletableFuture} class.
+     * 
+     * @param source The source promise to be released on cancellation or {@code null}.
+     */
+    public CompletableFuture(final Promise<?> source) {
+        _source = source;
+        _stamp = Deferred.getStamp(source);
+    }
+
+    /**
+     * Tries to set the specified result.
+     * 
+     * @param result The result.
+     * @return A value indicating whether the result has been set.
+     */
+    private boolean trySetResult(final Object result) {
+        if (!RESULT_UPDATER.compareAndSet(this, null, result)) {
+            return false;
+        }
+        Waiter waiter = WAITERS_UPDATER.getAndSet(this, null);
+
+        while (waiter != null) {
+            final Thread thread = waiter._thread;
+
+            if (thread != null) {
+                waiter._thread = null;
+                LockSupport.unpark(thread);
+            }
+            waiter = waiter._next;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the value of the specified result.
+     * 
+     * @param result The result.
+     * @return The value.
+     * @throws ExecutionException
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T report(final Object result) throws ExecutionException {
+        if (result == NULL) {
+            return null;
+        }
+        if (result == CANCELLED) {
+            throw new CancellationException("Future has been cancelled");
+        }
+        if (result instanceof Failure) {
+            throw new ExecutionException(((Failure) result)._cause);
+        }
+
+        return (T) result;
+    }
+
+    /**
+     * Awaits the result.
+     * 
+     * @param timed A value indicating whether the wait is timed.
+     * @param timeout The timeout in nanoseconds.
+     * @return The result or {@code null} if the timeout elapsed.
+     * @throws InterruptedException
+     */
+    private Object awaitResult(final boolean timed, final long timeout) throws InterruptedException {
+        Object result = null;
+
+        for (int i = 0; i < MAX_SPINS; ++i) {
+            if ((result = _result) != null) {
+                return result;
+            }
+        }
+        final long deadline = timed ? (System.nanoTime() + timeout) : 0;
+        final Waiter waiter = new Waiter(Thread.currentThread());
+
+        pushWaiter(waiter);
+        try {
+            while ((result = _result) == null) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (timed) {
+                    final long remaining = deadline - System.nanoTime();
+
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+
+            return result;
+        } finally {
+            if (result == null) {
+                // Unlinks the waiter of a thread which timed out or has been interrupted.
+                removeWaiter(waiter);
+            } else {
+                // Prevents a late unpark of a thread which no longer waits.
+                waiter._thread = null;
+            }
+        }
+    }
+
+    /**
+     * Pushes the specified waiter onto the waiter stack.
+     * 
+     * @param waiter The waiter.
+     */
+    private void pushWaiter(final Waiter waiter) {
+        Waiter top;
+
+        do {
+            top = _waiters;
+            waiter._next = top;
+        } while (!WAITERS_UPDATER.compareAndSet(this, top, waiter));
+    }
+
+    /**
+     * Removes the specified waiter and all other dead waiters from the waiter stack.
+     * <p>
+     * The stack is traversed again whenever a concurrent removal races with this one.
+     * 
+     * @param waiter The waiter.
+     */
+    private void removeWaiter(final Waiter waiter) {
+        waiter._thread = null;
+        retry: for (;;) {
+            Waiter previous = null;
+            Waiter next;
+
+            for (Waiter current = _waiters; current != null; current = next) {
+                next = current._next;
+                if (current._thread != null) {
+                    previous = current;
+                } else if (previous != null) {
+                    previous._next = next;
+                    if (previous._thread == null) {
+                        continue retry;
+                    }
+                } else if (!WAITERS_UPDATER.compareAndSet(this, current, next)) {
+                    continue retry;
+                }
+            }
 
-        _value = null;
+            return;
+        }
+    }
+
+    /**
+     * Returns the number of waiting threads.
+     * 
+     * @return The number of waiting threads.
+     */
+    int getWaiterCount() {
+        int count = 0;
+
+        for (Waiter waiter = _waiters; waiter != null; waiter = waiter._next) {
+            ++count;
+        }
+
+        return count;
     }
 
     @Override
     public boolean cancel(final boolean mayInterruptIfRunning) {
-        return false;
+        if (!trySetResult(CANCELLED)) {
+            return false;
+        }
+        if (_source != null) {
+            Deferred.release(_source, _stamp);
+        }
+
+        return true;
     }
 
     @Override
     public boolean isCancelled() {
-        return false;
+        return (_result == CANCELLED);
     }
 
     @Override
     public boolean isDone() {
-        final long count = _latch.getCount();
-
-        return (count == 0);
+        return (_result != null);
     }
 
     @Override
     public T get() throws InterruptedException, ExecutionException {
-        _latch.await();
+        Object result = _result;
 
-        return _value.get();
+        if (result == null) {
+            result = awaitResult(false, 0);
+        }
+
+        return report(result);
     }
 
     @Override
     public T get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        if (!_latch.await(timeout, unit)) {
-            throw new TimeoutException("A timeout occured while waiting for completion");
+        Object result = _result;
+
+        if (result == null) {
+            result = awaitResult(true, unit.toNanos(timeout));
+            if (result == null) {
+                throw new TimeoutException("A timeout occured while waiting for completion");
+            }
         }
 
-        return _value.get();
+        return report(result);
     }
 
     @Override
     public void setSuccess(final T value) {
-        _value = new Value<T>() {
-            @Override
-            public T get() throws ExecutionException {
-                return value;
-            }
-        };
-        _latch.countDown();
+        trySetResult((value == null) ? NULL : value);
     }
 
     @Override
     public void setFailure(final Throwable cause) {
-        _value = new Value<T>() {
-            @Override
-            public T get() throws ExecutionException {
-                throw new ExecutionException(cause);
-            }
-        };
-        _latch.countDown();
+        trySetResult(new Failure(cause));
+    }
+
+    /**
+     * Represents a failure result.
+     */
+    private static final class Failure {
+
+        /**
+         * The cause.
+         */
+        private final Throwable _cause;
+
+        /**
+         * Initializes a new instance of the {@link Failure} class.
+         * 
+         * @param cause The cause.
+         */
+        public Failure(final Throwable cause) {
+            _cause = cause;
+        }
+    }
+
+    /**
+     * Represents a waiting thread.
+     */
+    private static final class Waiter {
+
+        /**
+         * The thread or {@code null} if the thread no longer waits.
+         */
+        private volatile Thread _thread;
+
+        /**
+         * The next waiter.
+         */
+        private volatile Waiter _next;
+
+        /**
+         * Initializes a new instance of the {@link Waiter} class.
+         * 
+         * @param thread The thread.
+         */
+        public Waiter(final Thread thread) {
+            _thread = thread;
+        }
     }
 }
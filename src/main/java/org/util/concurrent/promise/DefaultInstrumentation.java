@@ -0,0 +1,173 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+/**
+ * Represents the default instrumentation, collecting lifecycle metrics of deferreds.
+ * <p>
+ * Counters are striped to keep contention low and the pending times and numbers of completables per deferred are
+ * recorded into histograms. A growing number of pending deferreds indicates deferreds which are never completed.
+ */
+public final class DefaultInstrumentation extends Instrumentation {
+
+    /**
+     * The number of created deferreds.
+     */
+    private final StripedCounter _created = new StripedCounter();
+
+    /**
+     * The number of succeeded deferreds.
+     */
+    private final StripedCounter _succeeded = new StripedCounter();
+
+    /**
+     * The number of failed deferreds.
+     */
+    private final StripedCounter _failed = new StripedCounter();
+
+    /**
+     * The number of registered completables.
+     */
+    private final StripedCounter _registrations = new StripedCounter();
+
+    /**
+     * The number of completables which failed to complete.
+     */
+    private final StripedCounter _stageFailures = new StripedCounter();
+
+    /**
+     * The pending times in nanoseconds.
+     */
+    private final Histogram _pendingTimes = new Histogram();
+
+    /**
+     * The numbers of completables per deferred.
+     */
+    private final Histogram _completables = new Histogram();
+
+    /**
+     * Initializes a new instance of the {@link DefaultInstrumentation} class.
+     */
+    public DefaultInstrumentation() {
+    }
+
+    /**
+     * Returns the number of created deferreds.
+     * 
+     * @return The number of created deferreds.
+     */
+    public long getCreated() {
+        return _created.sum();
+    }
+
+    /**
+     * Returns the number of succeeded deferreds.
+     * 
+     * @return The number of succeeded deferreds.
+     */
+    public long getSucceeded() {
+        return _succeeded.sum();
+    }
+
+    /**
+     * Returns the number of failed deferreds.
+     * 
+     * @return The number of failed deferreds.
+     */
+    public long getFailed() {
+        return _failed.sum();
+    }
+
+    /**
+     * Returns the number of pending deferreds.
+     * 
+     * @return The number of pending deferreds.
+     */
+    public long getPending() {
+        // Read the completions first, so concurrent updates never yield a negative number.
+        final long completed = _succeeded.sum() + _failed.sum();
+
+        return _created.sum() - completed;
+    }
+
+    /**
+     * Returns the number of registered completables.
+     * 
+     * @return The number of registered completables.
+     */
+    public long getRegistrations() {
+        return _registrations.sum();
+    }
+
+    /**
+     * Returns the number of completables which failed to complete.
+     * 
+     * @return The number of completables which failed to complete.
+     */
+    public long getStageFailures() {
+        return _stageFailures.sum();
+    }
+
+    /**
+     * Returns the histogram of the pending times in nanoseconds.
+     * 
+     * @return The histogram.
+     */
+    public Histogram getPendingTimes() {
+        return _pendingTimes;
+    }
+
+    /**
+     * Returns the histogram of the numbers of completables per deferred.
+     * 
+     * @return The histogram.
+     */
+    public Histogram getCompletables() {
+        return _completables;
+    }
+
+    @Override
+    public void onCreate() {
+        _created.increment();
+    }
+
+    @Override
+    public void onThen() {
+        _registrations.increment();
+    }
+
+    @Override
+    public void onComplete(final long pendingNanos, final int completables, final boolean success) {
+        if (success) {
+            _succeeded.increment();
+        } else {
+            _failed.increment();
+        }
+        _pendingTimes.record(pendingNanos);
+        _completables.record(completables);
+    }
+
+    @Override
+    public void onStageFailure(final Throwable cause) {
+        _stageFailures.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultInstrumentation [created=" + getCreated() + ", pending=" + getPending() + ", failed=" + getFailed() + ", p99PendingNanos=" + _pendingTimes.getValueAtPercentile(99) + ", maxCompletables=" + _completables.getMax() + "]";
+    }
+}
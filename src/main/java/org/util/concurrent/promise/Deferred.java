@@ -16,16 +16,29 @@
 
 package org.util.concurrent.promise;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Represents a deferred.
+ * <p>
+ * The whole state of a deferred is kept in a single volatile field. While the deferred is pending, the field either
+ * holds {@code null}, the only completable added so far or the top {@link Stage} of a lock-free stack of
+ * completables. Once complete, the field holds a {@link CompleteState}. A pending deferred with at most one
+ * completable therefore costs exactly one object. If an {@link Instrumentation} is installed, a probe recording the
+ * creation time is added as the first completable.
+ * <p>
+ * Completables added by {@link #listen(Completable)} can be removed again. They are kept in a single {@link Listeners}
+ * group per deferred, which deletes a removed completable logically in constant time and compacts itself once the
+ * removed completables outnumber the live ones, so a long-lived pending deferred does not grow with abandoned
+ * listeners.
  * 
  * @param <T> The value type.
  */
@@ -36,374 +49,1601 @@ public final class Deferred<T> implements Promise<T>, Completable<T> {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(Deferred.class);
 
+    /**
+     * A value indicating whether completables are trampolined, which is opt-in by the system property
+     * {@code org.util.concurrent.promise.trampoline}.
+     */
+    private static final boolean TRAMPOLINE_ENABLED = Boolean.getBoolean("org.util.concurrent.promise.trampoline");
+
+    /**
+     * The maximum number of nested completions per thread before completables are trampolined.
+     */
+    private static final int MAX_STACK_DEPTH = 16;
+
+    /**
+     * The trampoline of the current thread.
+     */
+    private static final ThreadLocal<Trampoline> TRAMPOLINE = new ThreadLocal<Trampoline>() {
+        @Override
+        protected Trampoline initialValue() {
+            return new Trampoline();
+        }
+    };
+
+    /**
+     * The installed instrumentation or {@code null}.
+     */
+    private static final Instrumentation INSTRUMENTATION = Instrumentation.getInstalled();
+
+    /**
+     * The installed leak detector or {@code null}.
+     */
+    private static final LeakDetector LEAK_DETECTOR = LeakDetector.getInstalled();
+
+    /**
+     * The installed async stack trace recorder or {@code null}.
+     */
+    private static final AsyncStackTraces ASYNC_STACK_TRACES = AsyncStackTraces.getInstalled();
+
+    /**
+     * The value returned by {@link #poll(Promise)} for a pending promise.
+     */
+    static final Object PENDING = new Object();
+
+    /**
+     * The state updater.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Deferred, Object> STATE_UPDATER = AtomicReferenceFieldUpdater.newUpdater(Deferred.class, Object.class, "_state");
+
+    /**
+     * The upstream updater.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Deferred, Deferred> UPSTREAM_UPDATER = AtomicReferenceFieldUpdater.newUpdater(Deferred.class, Deferred.class, "_upstream");
+
+    /**
+     * The dependents updater.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Deferred> DEPENDENTS_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Deferred.class, "_dependents");
+
     /**
      * The state of the deferred.
      */
-    private final AtomicReference<State<T>> _state;
+    private volatile Object _state;
+
+    /**
+     * The upstream deferred to be released on cancellation or {@code null}.
+     */
+    private volatile Deferred<?> _upstream;
+
+    /**
+     * The number of dependents which have not been released.
+     */
+    private volatile int _dependents;
 
     /**
      * Initializes a new instance of the {@link Deferred} class.
      */
     public Deferred() {
-        final State<T> initialState = new PendingState();
+        if ((INSTRUMENTATION != null) || (LEAK_DETECTOR != null)) {
+            initState();
+        }
+    }
+
+    /**
+     * Initializes a new instance of the {@link Deferred} class.
+     * 
+     * @param upstream The upstream deferred.
+     */
+    private Deferred(final Deferred<?> upstream) {
+        UPSTREAM_UPDATER.lazySet(this, upstream);
+        if ((INSTRUMENTATION != null) || (LEAK_DETECTOR != null)) {
+            initState();
+        }
+    }
+
+    /**
+     * Initializes a new instance of the {@link Deferred} class.
+     * 
+     * @param value The value.
+     */
+    public Deferred(final T value) {
+        _state = new SuccessState<>(value);
+        if (INSTRUMENTATION != null) {
+            INSTRUMENTATION.onCreate();
+            INSTRUMENTATION.onComplete(0, 0, true);
+        }
+    }
+
+    /**
+     * Initializes a new instance of the {@link Deferred} class.
+     * 
+     * @param cause The cause.
+     */
+    public Deferred(final Throwable cause) {
+        if (cause == null) {
+            throw new IllegalArgumentException("Cause must not be null");
+        }
+
+        _state = new FailureState<>(cause);
+        if (INSTRUMENTATION != null) {
+            INSTRUMENTATION.onCreate();
+            INSTRUMENTATION.onComplete(0, 0, false);
+        }
+    }
+
+    /**
+     * Tries to complete the deferred with the specified value.
+     * 
+     * @param value The value.
+     * @return A value indicating whether the deferred has been completed.
+     */
+    public final boolean trySuccess(final T value) {
+        if (_state instanceof CompleteState) {
+            return false;
+        }
+
+        return tryComplete(new SuccessState<>(value));
+    }
+
+    /**
+     * Tries to complete the deferred with the specified cause.
+     * 
+     * @param cause The cause.
+     * @return A value indicating whether the deferred has been completed.
+     */
+    public final boolean tryFailure(final Throwable cause) {
+        if (cause == null) {
+            throw new IllegalArgumentException("Cause must not be null");
+        }
+        if (_state instanceof CompleteState) {
+            return false;
+        }
+
+        return tryComplete(new FailureState<T>(cause));
+    }
+
+    /**
+     * Tries to cancel the deferred.
+     * <p>
+     * The deferred fails with a {@link CancellationException}, the cancellation hooks are run and the upstream deferred
+     * is released.
+     * 
+     * @return A value indicating whether the deferred has been cancelled.
+     */
+    public final boolean cancel() {
+        if (_state instanceof CompleteState) {
+            return false;
+        }
+        final Deferred<?> upstream = _upstream;
+
+        if (!tryComplete(new FailureState<T>(new CancellationException("Deferred has been cancelled")))) {
+            return false;
+        }
+        if (upstream != null) {
+            upstream.releaseDependent();
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a value indicating whether the deferred has been cancelled.
+     * 
+     * @return A value indicating whether the deferred has been cancelled.
+     */
+    public final boolean isCancelled() {
+        final Object state = _state;
+
+        return (state instanceof FailureState) && (((FailureState<?>) state)._cause instanceof CancellationException);
+    }
+
+    /**
+     * Adds the specified cancellation hook.
+     * <p>
+     * The hook runs when the deferred is cancelled and does not count as a dependent of the deferred.
+     * 
+     * @param hook The hook.
+     */
+    public void onCancel(final Runnable hook) {
+        if (hook == null) {
+            throw new IllegalArgumentException("Hook must not be null");
+        }
+
+        addCompletable(new CancelHook<T>(hook));
+    }
+
+    /**
+     * Adds the specified completable, which can be removed again by the returned registration.
+     * <p>
+     * The completable does not count as a dependent of the deferred. All listeners of a deferred share a single
+     * {@link Listeners} group, so a removed listener leaves nothing behind once the group has been compacted. The group
+     * completes its listeners at the position of the first listener.
+     * 
+     * @param completable The completable.
+     * @return The registration.
+     */
+    @SuppressWarnings("unchecked")
+    public Registration listen(final Completable<? super T> completable) {
+        if (completable == null) {
+            throw new IllegalArgumentException("Completable must not be null");
+        }
+
+        while (true) {
+            final Object state = _state;
+
+            if (state instanceof CompleteState) {
+                addCompletable(completable);
+
+                return new Registration(null, null);
+            }
+            final Object top = (state instanceof Stage) ? ((Stage<?>) state)._completable : state;
+
+            if (top instanceof Listeners) {
+                final Registration registration = ((Listeners<T>) top).add(completable);
+
+                // A closed group belongs to a deferred which has been completed in the meantime.
+                if (registration != null) {
+                    if (INSTRUMENTATION != null) {
+                        INSTRUMENTATION.onThen();
+                    }
+
+                    return registration;
+                }
+                continue;
+            }
+            final Listeners<T> found = findListeners(state);
+            final Listeners<T> listeners = (found != null) ? found : new Listeners<T>();
+            final Registration registration = listeners.add(completable);
+
+            if (registration == null) {
+                continue;
+            }
+            // The group is pushed again on top, so the next listener finds it without walking the stack. Completing
+            // the group at a further stage has no effect, since the group has been closed by then.
+            addCompletable(listeners);
+
+            return registration;
+        }
+    }
+
+    /**
+     * Adds the specified observer as a dependent, which can be removed again by the returned registration.
+     * <p>
+     * Unlike a listener, the observer counts as a dependent of the deferred until it is released by
+     * {@link #release(Promise)}, which is the duty of the owner of the registration.
+     * 
+     * @param observer The observer.
+     * @return The registration.
+     */
+    Registration listenDependent(final Observer<? super T> observer) {
+        // A dependent is counted before it is published, so a concurrent release never cancels the deferred ahead of it.
+        DEPENDENTS_UPDATER.incrementAndGet(this);
+
+        return listen(observer);
+    }
+
+    /**
+     * Returns the number of registrations held by the listener groups of the deferred, including removed ones which
+     * have not been compacted yet.
+     * 
+     * @return The number of registrations.
+     */
+    int getListenerCount() {
+        int count = 0;
+        Listeners<?> previous = null;
+        Object next = _state;
+
+        while (next != null) {
+            final Object completable = (next instanceof Stage) ? ((Stage<?>) next)._completable : next;
+
+            if ((completable instanceof Listeners) && (completable != previous)) {
+                previous = (Listeners<?>) completable;
+                count += previous.size();
+            }
+            next = (next instanceof Stage) ? ((Stage<?>) next)._next : null;
+        }
+
+        return count;
+    }
+
+    /**
+     * Releases a cancelled dependent and cancels the deferred when all dependents have been released.
+     */
+    void releaseDependent() {
+        if ((DEPENDENTS_UPDATER.decrementAndGet(this) <= 0) && !(_state instanceof CompleteState)) {
+            cancel();
+        }
+    }
+
+    @Override
+    public void setSuccess(final T value) {
+        if (!trySuccess(value)) {
+            throw new IllegalStateException("Deferred is already complete");
+        }
+    }
+
+    @Override
+    public void setFailure(final Throwable cause) {
+        if (!tryFailure(cause)) {
+            throw new IllegalStateException("Deferred is already complete");
+        }
+    }
+
+    @Override
+    public final boolean isComplete() {
+        return (_state instanceof CompleteState);
+    }
+
+    @Override
+    public void then(final Completable<? super T> completable) {
+        if (completable == null) {
+            throw new IllegalArgumentException("Completable must not be null");
+        }
+
+        if ((completable instanceof Deferred) && !(_state instanceof CompleteState)) {
+            addCompletable(completable, adoptDownstream((Deferred<?>) completable));
+
+            return;
+        }
+        addCompletable(completable);
+    }
+
+    /**
+     * Makes the deferred the upstream deferred of the specified downstream deferred unless the downstream deferred
+     * already has a pending upstream deferred.
+     * <p>
+     * A deferred completed by several deferreds only depends on the upstream deferred it releases on cancellation, so
+     * no other deferred keeps a dependent which is never released. A complete upstream deferred is replaced, as it can
+     * no longer be cancelled.
+     * 
+     * @param downstream The downstream deferred.
+     * @return A value indicating whether the downstream deferred depends on the deferred.
+     */
+    private boolean adoptDownstream(final Deferred<?> downstream) {
+        while (true) {
+            final Deferred<?> upstream = downstream._upstream;
+
+            if ((upstream != null) && !(upstream._state instanceof CompleteState)) {
+                return false;
+            }
+            if (UPSTREAM_UPDATER.compareAndSet(downstream, upstream, this)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final <R> Promise<R> then(final Continuation<? super T, ? extends R> continuation) {
+        if (continuation == null) {
+            throw new IllegalArgumentException("Continuation must not be null");
+        }
+
+        final Object state = _state;
+
+        if (state instanceof CompleteState) {
+            return thenComplete((CompleteState<T>) state, continuation);
+        }
+        final Deferred<R> result = new Deferred<>(this);
+
+        addCompletable(new ContinuationStage<T, R>(continuation, result, (ASYNC_STACK_TRACES != null) ? ASYNC_STACK_TRACES.capture() : null));
+
+        return result;
+    }
+
+    /**
+     * Resets the complete deferred to pending for reuse by a {@link DeferredPool}.
+     */
+    void reset() {
+        DEPENDENTS_UPDATER.lazySet(this, 0);
+        UPSTREAM_UPDATER.lazySet(this, null);
+        STATE_UPDATER.lazySet(this, ((INSTRUMENTATION != null) || (LEAK_DETECTOR != null)) ? newInitialState() : null);
+    }
+
+    /**
+     * Returns the stamp identifying the current use of the specified promise.
+     * 
+     * @param promise The promise or {@code null}.
+     * @return The stamp of a pooled deferred or {@code 0}.
+     * @throws IllegalStateException
+     */
+    static int getStamp(final Promise<?> promise) {
+        return (promise instanceof PooledDeferred) ? ((PooledDeferred<?>) promise).getStamp() : 0;
+    }
+
+    /**
+     * Releases a cancelled dependent of the specified promise.
+     * <p>
+     * A pooled deferred is only released if the specified stamp is still current, so a stale dependent never releases
+     * a later use of the deferred.
+     * 
+     * @param promise The promise.
+     * @param stamp The stamp read by {@link #getStamp(Promise)} when the dependent has been added.
+     */
+    static void release(final Promise<?> promise, final int stamp) {
+        if (promise instanceof Deferred) {
+            ((Deferred<?>) promise).releaseDependent();
+        } else if (promise instanceof PooledDeferred) {
+            ((PooledDeferred<?>) promise).release(stamp);
+        }
+    }
+
+    /**
+     * Enters a nested inline completion of the current thread.
+     * <p>
+     * Inline completions share the stack depth of the current thread with the completions of deferreds.
+     * 
+     * @return The previous stack depth or {@code -1} when the maximum stack depth has been reached.
+     */
+    static int enterInline() {
+        return TRAMPOLINE.get().enter();
+    }
+
+    /**
+     * Leaves a nested inline completion of the current thread.
+     * 
+     * @param depth The previous stack depth.
+     */
+    static void leaveInline(final int depth) {
+        TRAMPOLINE.get().leave(depth);
+    }
+
+    /**
+     * Returns a value indicating whether completables are trampolined.
+     * 
+     * @return A value indicating whether completables are trampolined.
+     */
+    static boolean isTrampolineEnabled() {
+        return TRAMPOLINE_ENABLED;
+    }
+
+    /**
+     * Returns the value of the specified promise without blocking.
+     * 
+     * @param promise The promise.
+     * @return The value or {@link #PENDING} if the promise is not a complete deferred or complete promise.
+     * @throws ExecutionException
+     */
+    static Object poll(final Promise<?> promise) throws ExecutionException {
+        if (promise instanceof PooledDeferred) {
+            final PooledDeferred<?> deferred = (PooledDeferred<?>) promise;
+
+            return deferred.poll(deferred.getStamp());
+        }
+        final Object state = (promise instanceof Deferred) ? ((Deferred<?>) promise)._state : promise;
+
+        if (state instanceof CompleteState) {
+            return ((CompleteState<?>) state).get();
+        }
+
+        return PENDING;
+    }
+
+    /**
+     * Returns a new success promise.
+     * 
+     * @param value The value.
+     * @return The promise.
+     */
+    static <T> Promise<T> newSuccess(final T value) {
+        if (INSTRUMENTATION != null) {
+            INSTRUMENTATION.onCreate();
+            INSTRUMENTATION.onComplete(0, 0, true);
+        }
+
+        return new SuccessState<T>(value);
+    }
+
+    /**
+     * Returns a new failure promise.
+     * 
+     * @param cause The cause.
+     * @return The promise.
+     */
+    static <T> Promise<T> newFailure(final Throwable cause) {
+        if (cause == null) {
+            throw new IllegalArgumentException("Cause must not be null");
+        }
+        if (INSTRUMENTATION != null) {
+            INSTRUMENTATION.onCreate();
+            INSTRUMENTATION.onComplete(0, 0, false);
+        }
+
+        return new FailureState<T>(cause);
+    }
+
+    /**
+     * Tries to change the state to the specified complete state.
+     * 
+     * @param state The complete state.
+     * @return A value indicating whether the state has been changed.
+     */
+    private boolean tryComplete(final CompleteState<T> state) {
+        Object stages;
+
+        do {
+            stages = _state;
+            if (stages instanceof CompleteState) {
+                return false;
+            }
+        } while (!STATE_UPDATER.compareAndSet(this, stages, state));
+        UPSTREAM_UPDATER.lazySet(this, null);
+        if (INSTRUMENTATION != null) {
+            instrumentCompletion(stages, state);
+        }
+        completeStages(stages, state);
+
+        return true;
+    }
+
+    /**
+     * Adds the specified completable.
+     * 
+     * @param completable The completable.
+     */
+    private void addCompletable(final Completable<? super T> completable) {
+        addCompletable(completable, !(completable instanceof Observer));
+    }
+
+    /**
+     * Adds the specified completable.
+     * 
+     * @param completable The completable.
+     * @param dependent A value indicating whether the completable counts as a dependent.
+     */
+    @SuppressWarnings("unchecked")
+    private void addCompletable(final Completable<? super T> completable, final boolean dependent) {
+        // A dependent is counted before it is published, so a concurrent release never cancels the deferred ahead of it.
+        if (dependent) {
+            DEPENDENTS_UPDATER.incrementAndGet(this);
+        }
+
+        Stage<T> stage = null;
+
+        while (true) {
+            final Object state = _state;
+
+            if (state instanceof CompleteState) {
+                dispatch(completable, (CompleteState<T>) state);
+
+                return;
+            }
+            if (LEAK_DETECTOR != null) {
+                trackCompletable(state);
+            }
+            // The first completable is stored as is, only further completables require a stage.
+            final Object newState;
+
+            if (state == null) {
+                newState = completable;
+            } else {
+                if (stage == null) {
+                    stage = new Stage<>(completable);
+                }
+                stage._next = state;
+                newState = stage;
+            }
+            if (STATE_UPDATER.compareAndSet(this, state, newState)) {
+                if (INSTRUMENTATION != null) {
+                    INSTRUMENTATION.onThen();
+                }
+
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the listener group in the specified state.
+     * <p>
+     * The group is pushed on top whenever a listener is added, so only the completables added since the last listener
+     * are walked.
+     * 
+     * @param state The state.
+     * @return The listener group or {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Listeners<T> findListeners(final Object state) {
+        Object next = state;
+
+        while (next instanceof Stage) {
+            final Object completable = ((Stage<?>) next)._completable;
+
+            if (completable instanceof Listeners) {
+                return (Listeners<T>) completable;
+            }
+            next = ((Stage<?>) next)._next;
+        }
+
+        return (next instanceof Listeners) ? (Listeners<T>) next : null;
+    }
+
+    /**
+     * Returns the initial state of the deferred if instrumented or tracked by the leak detector.
+     * <p>
+     * The state holds the instrumentation probe as the first completable and the leak tracker on top of it, so the
+     * first added completable finds the tracker on the top of the stack.
+     * 
+     * @return The initial state.
+     */
+    private Object newInitialState() {
+        Object state = null;
+
+        if (INSTRUMENTATION != null) {
+            INSTRUMENTATION.onCreate();
+            state = new Probe<T>(System.nanoTime());
+        }
+        if (LEAK_DETECTOR != null) {
+            final LeakDetector.LeakTracker tracker = LEAK_DETECTOR.track(this);
+
+            if (tracker != null) {
+                if (state == null) {
+                    state = tracker;
+                } else {
+                    final Stage<Object> stage = new Stage<Object>(tracker);
+
+                    stage._next = state;
+                    state = stage;
+                }
+            }
+        }
+
+        return state;
+    }
+
+    /**
+     * Initializes the state of a new deferred if instrumented or tracked by the leak detector.
+     * <p>
+     * The initial state is only written if needed, since an unsampled deferred must not pay for a volatile write.
+     */
+    private void initState() {
+        final Object state = newInitialState();
+
+        if (state != null) {
+            STATE_UPDATER.lazySet(this, state);
+        }
+    }
+
+    /**
+     * Records the addition of a completable if the leak tracker is on the top of the specified state.
+     * 
+     * @param state The state.
+     */
+    private static void trackCompletable(final Object state) {
+        final Object top = (state instanceof Stage) ? ((Stage<?>) state)._completable : state;
+
+        if (top instanceof LeakDetector.LeakTracker) {
+            ((LeakDetector.LeakTracker) top).onThen();
+        }
+    }
+
+    /**
+     * Reports the completion of a deferred with the specified stages to the instrumentation.
+     * <p>
+     * The probe added on creation is the first completable, so it is found at the bottom of the stack.
+     * 
+     * @param stages The stages.
+     * @param state The complete state.
+     */
+    private static void instrumentCompletion(final Object stages, final CompleteState<?> state) {
+        int completables = 0;
+        Object next = stages;
+
+        while (next instanceof Stage) {
+            final Object completable = ((Stage<?>) next)._completable;
+
+            if (!(completable instanceof Probe) && !(completable instanceof LeakDetector.LeakTracker)) {
+                ++completables;
+            }
+            next = ((Stage<?>) next)._next;
+        }
+
+        long pendingNanos = 0;
+
+        if (next instanceof Probe) {
+            pendingNanos = System.nanoTime() - ((Probe<?>) next)._creationNanos;
+        } else if ((next != null) && !(next instanceof LeakDetector.LeakTracker)) {
+            ++completables;
+        }
+        INSTRUMENTATION.onComplete(pendingNanos, completables, state instanceof SuccessState);
+    }
+
+    /**
+     * Completes the specified stages with the specified state.
+     * 
+     * @param stages The stages.
+     * @param state The state.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> void completeStages(final Object stages, final CompleteState<T> state) {
+        if (stages == null) {
+            return;
+        }
+        if (!(stages instanceof Stage)) {
+            completeStage((Completable<? super T>) stages, state);
+
+            return;
+        }
+        // The stack holds the completables in reverse order, so it is reversed in place to complete the completables
+        // in the order they have been added. The stages are no longer reachable through the deferred at this point.
+        Stage<T> stage = (Stage<T>) stages;
+        Stage<T> reversed = null;
+        Object first;
+
+        while (true) {
+            final Object next = stage._next;
+
+            stage._next = reversed;
+            reversed = stage;
+            if (!(next instanceof Stage)) {
+                first = next;
+                break;
+            }
+            stage = (Stage<T>) next;
+        }
+        if (first != null) {
+            completeStage((Completable<? super T>) first, state);
+        }
+        for (stage = reversed; stage != null; stage = (Stage<T>) stage._next) {
+            completeStage(stage._completable, state);
+        }
+    }
+
+    /**
+     * Completes the specified completable with the specified state.
+     * 
+     * @param completable The completable.
+     * @param state The state.
+     */
+    private static <T> void completeStage(final Completable<? super T> completable, final CompleteState<T> state) {
+        // A cancelled dependent deferred releases this deferred, which may in turn be cancelled and complete it again.
+        if ((completable instanceof Deferred) && ((Deferred<?>) completable).isCancelled()) {
+            return;
+        }
+        try {
+            dispatch(completable, state);
+        } catch (final Throwable t) {
+            LOGGER.warn("Failed to complete stage", t);
+            if (INSTRUMENTATION != null) {
+                INSTRUMENTATION.onStageFailure(t);
+            }
+        }
+    }
+
+    /**
+     * Dispatches the completion of the specified completable with the specified state.
+     * 
+     * @param completable The completable.
+     * @param state The state.
+     */
+    private static <T> void dispatch(final Completable<? super T> completable, final CompleteState<T> state) {
+        if (!TRAMPOLINE_ENABLED) {
+            state.complete(completable);
+
+            return;
+        }
+        dispatch(state, completable);
+    }
+
+    /**
+     * Dispatches the specified completion of the specified completable.
+     * <p>
+     * The completion runs on the current stack unless the maximum stack depth has been reached, in which case it is
+     * trampolined.
+     * 
+     * @param completion The completion.
+     * @param completable The completable.
+     */
+    static void dispatch(final Completion completion, final Object completable) {
+        // A blocking bridge is never trampolined, since its thread may wait for it before the trampoline is drained.
+        if (!TRAMPOLINE_ENABLED || (completable instanceof CompletableFuture)) {
+            completion.completeTo(completable);
+
+            return;
+        }
+        final Trampoline trampoline = TRAMPOLINE.get();
+        final int depth = trampoline.enter();
+
+        if (depth < 0) {
+            trampoline.offer(completable, completion);
+
+            return;
+        }
+        try {
+            completion.completeTo(completable);
+        } finally {
+            trampoline.leave(depth);
+        }
+    }
+
+    /**
+     * Evaluates the specified continuation against the specified complete state.
+     * 
+     * @param state The complete state.
+     * @param continuation The continuation.
+     * @return The result.
+     */
+    private static <T, R> Promise<R> thenComplete(final CompleteState<T> state, final Continuation<? super T, ? extends R> continuation) {
+        if (!TRAMPOLINE_ENABLED) {
+            return state.evaluate(continuation);
+        }
+        final Trampoline trampoline = TRAMPOLINE.get();
+        final int depth = trampoline.enter();
+
+        if (depth < 0) {
+            final Deferred<R> result = new Deferred<>();
+
+            trampoline.offer(new ContinuationStage<T, R>(continuation, result, (ASYNC_STACK_TRACES != null) ? ASYNC_STACK_TRACES.capture() : null), state);
+
+            return result;
+        }
+        try {
+            return state.evaluate(continuation);
+        } finally {
+            trampoline.leave(depth);
+        }
+    }
+
+    /**
+     * Defines a completion of completables which can be trampolined.
+     */
+    interface Completion {
+
+        /**
+         * Completes the specified completable.
+         * 
+         * @param completable The completable.
+         */
+        void completeTo(Object completable);
+    }
+
+    /**
+     * Represents a complete state.
+     * <p>
+     * A complete state is immutable and thus doubles as a complete promise.
+     * 
+     * @param <T> The value type.
+     */
+    private abstract static class CompleteState<T> implements Promise<T>, Completion {
+
+        /**
+         * Completes the specified completable.
+         * 
+         * @param completable The completable.
+         */
+        public abstract void complete(Completable<? super T> completable);
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public final void completeTo(final Object completable) {
+            complete((Completable<? super T>) completable);
+        }
+
+        /**
+         * Returns the value.
+         * 
+         * @return The value.
+         * @throws ExecutionException
+         */
+        public abstract T get() throws ExecutionException;
+
+        /**
+         * Evaluates the specified continuation.
+         * 
+         * @param continuation The continuation.
+         * @return The result.
+         */
+        public abstract <R> Promise<R> evaluate(Continuation<? super T, ? extends R> continuation);
+
+        @Override
+        public final boolean isComplete() {
+            return true;
+        }
+
+        @Override
+        public final void then(final Completable<? super T> completable) {
+            if (completable == null) {
+                throw new IllegalArgumentException("Completable must not be null");
+            }
+
+            dispatch(completable, this);
+        }
+
+        @Override
+        public final <R> Promise<R> then(final Continuation<? super T, ? extends R> continuation) {
+            if (continuation == null) {
+                throw new IllegalArgumentException("Continuation must not be null");
+            }
+
+            return thenComplete(this, continuation);
+        }
+    }
+
+    /**
+     * Represents a success state.
+     * 
+     * @param <T> The value type.
+     */
+    private static final class SuccessState<T> extends CompleteState<T> {
+
+        /**
+         * The value.
+         */
+        private final T _value;
+
+        /**
+         * Initializes a new instance of the {@link SuccessState} class.
+         * 
+         * @param value The value.
+         */
+        public SuccessState(final T value) {
+            _value = value;
+        }
+
+        @Override
+        public void complete(final Completable<? super T> completable) {
+            completable.setSuccess(_value);
+        }
+
+        @Override
+        public T get() {
+            return _value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <R> Promise<R> evaluate(final Continuation<? super T, ? extends R> continuation) {
+            // Stateless continuations are evaluated into a complete state without an intermediate pending deferred.
+            if (continuation instanceof Apply) {
+                try {
+                    final R value = ((Apply<? super T, ? extends R>) continuation).doApply(_value);
+
+                    return newSuccess(value);
+                } catch (final Throwable t) {
+                    return newFailure(t);
+                }
+            }
+            if (continuation instanceof Catch) {
+                try {
+                    ((Catch<? super T>) continuation).onSuccess(_value);
+                } catch (final Throwable t) {
+                    return newFailure(t);
+                }
+
+                return (Promise<R>) this;
+            }
+            final Deferred<R> result = new Deferred<>();
+
+            try {
+                continuation.onSuccess(_value, result);
+            } catch (final Throwable t) {
+                result.setFailure(t);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Represents a failure state.
+     * 
+     * @param <T> The value type.
+     */
+    private static final class FailureState<T> extends CompleteState<T> {
+
+        /**
+         * The cause.
+         */
+        private final Throwable _cause;
+
+        /**
+         * Initializes a new instance of the {@link FailureState} class.
+         * 
+         * @param cause The cause.
+         */
+        public FailureState(final Throwable cause) {
+            _cause = cause;
+        }
+
+        @Override
+        public void complete(final Completable<? super T> completable) {
+            completable.setFailure(_cause);
+        }
+
+        @Override
+        public T get() throws ExecutionException {
+            throw new ExecutionException(_cause);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <R> Promise<R> evaluate(final Continuation<? super T, ? extends R> continuation) {
+            // Stateless continuations are evaluated into a complete state without an intermediate pending deferred.
+            if (continuation instanceof Apply) {
+                try {
+                    ((Apply<? super T, ? extends R>) continuation).onFailure(_cause);
+                } catch (final Throwable t) {
+                    t.addSuppressed(_cause);
+
+                    return newFailure(t);
+                }
+
+                return (Promise<R>) this;
+            }
+            if (continuation instanceof Catch) {
+                try {
+                    final R value = (R) ((Catch<? super T>) continuation).doCatch(_cause);
+
+                    return newSuccess(value);
+                } catch (final Throwable t) {
+                    t.addSuppressed(_cause);
+
+                    return newFailure(t);
+                }
+            }
+            final Deferred<R> result = new Deferred<>();
+
+            try {
+                continuation.onFailure(_cause, result);
+            } catch (final Throwable t) {
+                t.addSuppressed(_cause);
+                result.setFailure(t);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Represents a stage of the completable stack.
+     * 
+     * @param <T> The value type.
+     */
+    private static final class Stage<T> {
+
+        /**
+         * The completable.
+         */
+        private final Completable<? super T> _completable;
+
+        /**
+         * The next stage, the first completable or {@code null}.
+         */
+        private Object _next;
+
+        /**
+         * Initializes a new instance of the {@link Stage} class.
+         * 
+         * @param completable The completable.
+         */
+        public Stage(final Completable<? super T> completable) {
+            _completable = completable;
 
-        _state = new AtomicReference<>(initialState);
+            _next = null;
+        }
     }
 
     /**
-     * Initializes a new instance of the {@link Deferred} class.
+     * Represents a continuation stage.
      * 
-     * @param value The value.
+     * @param <T> The value type.
+     * @param <R> The result type.
      */
-    public Deferred(final T value) {
-        final State<T> initialState = new SuccessState<>(value);
+    private static final class ContinuationStage<T, R> implements Completable<T> {
 
-        _state = new AtomicReference<>(initialState);
-    }
+        /**
+         * The continuation.
+         */
+        private final Continuation<? super T, ? extends R> _continuation;
 
-    /**
-     * Initializes a new instance of the {@link Deferred} class.
-     * 
-     * @param cause The cause.
-     */
-    public Deferred(final Throwable cause) {
-        if (cause == null) {
-            throw new IllegalArgumentException("Cause must not be null");
+        /**
+         * The result.
+         */
+        private final Deferred<R> _result;
+
+        /**
+         * The registration site of the continuation or {@code null}.
+         */
+        private final AsyncStackTraces.AsyncStackTrace _site;
+
+        /**
+         * Initializes a new instance of the {@link ContinuationStage} class.
+         * 
+         * @param continuation The continuation.
+         * @param result The result.
+         * @param site The registration site of the continuation or {@code null}.
+         */
+        public ContinuationStage(final Continuation<? super T, ? extends R> continuation, final Deferred<R> result, final AsyncStackTraces.AsyncStackTrace site) {
+            _continuation = continuation;
+            _result = result;
+            _site = site;
         }
 
-        final State<T> initialState = new FailureState<>(cause);
+        @Override
+        public void setSuccess(final T value) {
+            // Skip the continuation when the result has been cancelled in the meantime.
+            if (_result.isComplete()) {
+                return;
+            }
+            try {
+                _continuation.onSuccess(value, _result);
+            } catch (final Throwable t) {
+                AsyncStackTraces.attach(t, _site);
+                _result.setFailure(t);
+            }
+        }
 
-        _state = new AtomicReference<>(initialState);
+        @Override
+        public void setFailure(final Throwable cause) {
+            if (_result.isComplete()) {
+                return;
+            }
+            try {
+                _continuation.onFailure(cause, _result);
+            } catch (final Throwable t) {
+                t.addSuppressed(cause);
+                AsyncStackTraces.attach(t, _site);
+                _result.setFailure(t);
+            }
+        }
     }
 
     /**
-     * Tries to complete the deferred with the specified value.
-     * 
-     * @param value The value.
-     * @return A value indicating whether the deferred has been completed.
+     * Represents the registration of a removable completable.
      */
-    public final boolean trySuccess(final T value) {
-        return _state.get().trySuccess(value);
-    }
+    public static final class Registration {
 
-    /**
-     * Tries to complete the deferred with the specified cause.
-     * 
-     * @param cause The cause.
-     * @return A value indicating whether the deferred has been completed.
-     */
-    public final boolean tryFailure(final Throwable cause) {
-        if (cause == null) {
-            throw new IllegalArgumentException("Cause must not be null");
-        }
+        /**
+         * The completable updater.
+         */
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Registration, Completable> COMPLETABLE_UPDATER = AtomicReferenceFieldUpdater.newUpdater(Registration.class, Completable.class, "_completable");
 
-        return _state.get().tryFailure(cause);
-    }
+        /**
+         * The group of the registration or {@code null}.
+         */
+        private final Listeners<?> _listeners;
 
-    @Override
-    public void setSuccess(final T value) {
-        if (!trySuccess(value)) {
-            throw new IllegalStateException("Deferred is already complete");
-        }
-    }
+        /**
+         * The completable or {@code null} once it has been removed or completed.
+         */
+        private volatile Completable<?> _completable;
 
-    @Override
-    public void setFailure(final Throwable cause) {
-        if (!tryFailure(cause)) {
-            throw new IllegalStateException("Deferred is already complete");
+        /**
+         * Initializes a new instance of the {@link Registration} class.
+         * 
+         * @param completable The completable or {@code null}.
+         * @param listeners The group of the registration or {@code null}.
+         */
+        Registration(final Completable<?> completable, final Listeners<?> listeners) {
+            _listeners = listeners;
+            _completable = completable;
         }
-    }
 
-    @Override
-    public final boolean isComplete() {
-        return _state.get().isComplete();
-    }
+        /**
+         * Removes the completable unless it has already been completed.
+         * 
+         * @return A value indicating whether the completable has been removed.
+         */
+        public boolean remove() {
+            if (COMPLETABLE_UPDATER.getAndSet(this, null) == null) {
+                return false;
+            }
+            if (_listeners != null) {
+                _listeners.onRemove();
+            }
 
-    @Override
-    public void then(final Completable<? super T> completable) {
-        if (completable == null) {
-            throw new IllegalArgumentException("Completable must not be null");
+            return true;
         }
 
-        _state.get().then(completable);
-    }
-
-    @Override
-    public final <R> Promise<R> then(final Continuation<? super T, ? extends R> continuation) {
-        if (continuation == null) {
-            throw new IllegalArgumentException("Continuation must not be null");
+        /**
+         * Returns a value indicating whether the completable has been removed or completed.
+         * 
+         * @return A value indicating whether the completable has been removed or completed.
+         */
+        boolean isRemoved() {
+            return (_completable == null);
         }
 
-        final Deferred<R> result = new Deferred<>();
-
-        _state.get().then(new Completable<T>() {
-            @Override
-            public void setSuccess(final T value) {
-                try {
-                    continuation.onSuccess(value, result);
-                } catch (final Throwable t) {
-                    result.setFailure(t);
-                }
-            }
+        /**
+         * Completes the completable with the specified state unless it has been removed.
+         * 
+         * @param state The state.
+         */
+        @SuppressWarnings("unchecked")
+        <T> void complete(final CompleteState<T> state) {
+            final Completable<? super T> completable = COMPLETABLE_UPDATER.getAndSet(this, null);
 
-            @Override
-            public void setFailure(final Throwable cause) {
-                try {
-                    continuation.onFailure(cause, result);
-                } catch (final Throwable t) {
-                    t.addSuppressed(cause);
-                    result.setFailure(t);
-                }
+            if (completable != null) {
+                completeStage(completable, state);
             }
-        });
-
-        return result;
+        }
     }
 
     /**
-     * Defines a state.
+     * Represents a group of removable completables.
+     * <p>
+     * The registrations are kept in a lock-free stack of immutable nodes. Completing the group swaps the stack for a
+     * closed marker, so a registration is either completed or added again to the complete deferred. The group may be
+     * held by several stages of the deferred, of which only the first one completes its registrations. A removed
+     * registration is only marked as such; once the removed registrations reach the compaction threshold, the live
+     * ones are copied into a new stack, which replaces the old one unless the stack has changed in the meantime. The
+     * next threshold is the number of live registrations, so compaction takes amortized constant time per removal.
      * 
      * @param <T> The value type.
      */
-    private interface State<T> {
+    private static final class Listeners<T> implements Observer<T> {
 
         /**
-         * Returns a value indicating whether the deferred is complete.
-         * 
-         * @return a value indicating whether the deferred is complete.
+         * The minimum number of removed registrations before the group is compacted.
          */
-        boolean isComplete();
+        private static final int MIN_COMPACTION_THRESHOLD = 16;
 
         /**
-         * Tries to complete the deferred with the specified value.
-         * 
-         * @param value The value.
-         * @return A value indicating whether the deferred has been completed.
+         * The head of a closed group.
          */
-        boolean trySuccess(T value);
+        private static final Object CLOSED = new Object();
 
         /**
-         * Tries to complete the deferred with the specified cause.
-         * 
-         * @param cause The cause.
-         * @return A value indicating whether the deferred has been completed.
+         * The head updater.
          */
-        boolean tryFailure(Throwable cause);
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Listeners, Object> HEAD_UPDATER = AtomicReferenceFieldUpdater.newUpdater(Listeners.class, Object.class, "_head");
 
         /**
-         * Adds the specified completable.
-         * 
-         * @param completable The completable.
+         * The removed updater.
          */
-        void then(Completable<? super T> completable);
-    }
-
-    /**
-     * Represents a pending state.
-     */
-    private final class PendingState implements State<T> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Listeners> REMOVED_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Listeners.class, "_removed");
 
         /**
-         * The stage queue.
+         * The top node, {@code null} or {@link #CLOSED}.
          */
-        private final Queue<Stage<T>> _stages;
+        private volatile Object _head;
 
         /**
-         * Initializes a new instance of the {@link PendingState} class.
+         * The number of removed registrations which are still in the stack.
          */
-        public PendingState() {
-            _stages = new ConcurrentLinkedQueue<>();
-        }
+        private volatile int _removed;
 
         /**
-         * Tries to change the state to the specified state.
-         * 
-         * @param state The state.
-         * @return A value indicating whether the state has been changed.
+         * The number of removed registrations at which the group is compacted.
          */
-        private boolean tryChangeState(final State<T> state) {
-            if (!_state.compareAndSet(this, state)) {
-                return false;
-            }
-            completeStages(state);
+        private volatile int _threshold;
 
-            return true;
+        /**
+         * Initializes a new instance of the {@link Listeners} class.
+         */
+        public Listeners() {
+            _head = null;
+            _removed = 0;
+            _threshold = MIN_COMPACTION_THRESHOLD;
         }
 
         /**
-         * Adds the specified stage.
+         * Adds the specified completable.
          * 
-         * @param stage The stage.
+         * @param completable The completable.
+         * @return The registration or {@code null} if the group has been closed.
          */
-        private void addStage(final Stage<T> stage) {
-            // As the queue is unbounded, this method will never return false.
-            _stages.offer(stage);
-            // Trigger completion when the promise has been completed in the meantime.
-            final State<T> state = _state.get();
+        public Registration add(final Completable<? super T> completable) {
+            final Registration registration = new Registration(completable, this);
 
-            if (state.isComplete()) {
-                completeStages(state);
+            while (true) {
+                final Object head = _head;
+
+                if (head == CLOSED) {
+                    return null;
+                }
+                if (HEAD_UPDATER.compareAndSet(this, head, new Node(registration, (Node) head))) {
+                    return registration;
+                }
             }
         }
 
         /**
-         * Completes the stages with the specified state.
+         * Returns the number of registrations in the stack.
          * 
-         * @param state The state.
+         * @return The number of registrations.
          */
-        private void completeStages(final State<T> state) {
-            Stage<T> stage;
+        public int size() {
+            int size = 0;
+            final Object head = _head;
 
-            while ((stage = _stages.poll()) != null) {
-                try {
-                    stage.complete(state);
-                } catch (final Throwable t) {
-                    LOGGER.warn("Failed to complete stage", t);
+            if (head instanceof Node) {
+                for (Node node = (Node) head; node != null; node = node._next) {
+                    ++size;
                 }
             }
+
+            return size;
         }
 
-        @Override
-        public boolean isComplete() {
-            return false;
+        /**
+         * Records a removed registration and compacts the group if the threshold has been reached.
+         */
+        public void onRemove() {
+            if (REMOVED_UPDATER.incrementAndGet(this) >= _threshold) {
+                compact();
+            }
         }
 
         @Override
-        public boolean trySuccess(final T value) {
-            final State<T> state = new SuccessState<>(value);
-
-            return tryChangeState(state);
+        public void setSuccess(final T value) {
+            complete(new SuccessState<>(value));
         }
 
         @Override
-        public boolean tryFailure(final Throwable cause) {
-            final State<T> state = new FailureState<>(cause);
+        public void setFailure(final Throwable cause) {
+            complete(new FailureState<T>(cause));
+        }
+
+        /**
+         * Copies the live registrations into a new stack.
+         */
+        private void compact() {
+            final Object head = _head;
 
-            return tryChangeState(state);
+            if (!(head instanceof Node)) {
+                return;
+            }
+            final List<Registration> live = new ArrayList<>();
+            int removed = 0;
+
+            for (Node node = (Node) head; node != null; node = node._next) {
+                if (node._registration.isRemoved()) {
+                    ++removed;
+                } else {
+                    live.add(node._registration);
+                }
+            }
+
+            Node compacted = null;
+
+            for (int i = live.size() - 1; i >= 0; i--) {
+                compacted = new Node(live.get(i), compacted);
+            }
+            // A failed swap leaves the count untouched, so the next removal tries again.
+            if (HEAD_UPDATER.compareAndSet(this, head, compacted)) {
+                _threshold = Math.max(MIN_COMPACTION_THRESHOLD, live.size());
+                REMOVED_UPDATER.addAndGet(this, -removed);
+            }
         }
 
-        @Override
-        public void then(final Completable<? super T> completable) {
-            final Stage<T> stage = new Stage<>(completable);
+        /**
+         * Closes the group and completes the registrations in the order they have been added.
+         * 
+         * @param state The state.
+         */
+        private void complete(final CompleteState<T> state) {
+            final Object head = HEAD_UPDATER.getAndSet(this, CLOSED);
 
-            addStage(stage);
+            if (!(head instanceof Node)) {
+                return;
+            }
+            final List<Registration> registrations = new ArrayList<>();
+
+            for (Node node = (Node) head; node != null; node = node._next) {
+                registrations.add(node._registration);
+            }
+            for (int i = registrations.size() - 1; i >= 0; i--) {
+                registrations.get(i).complete(state);
+            }
         }
     }
 
     /**
-     * Represents a complete state.
-     * 
-     * @param <T> The value type.
+     * Represents a node of the registration stack.
      */
-    private abstract static class CompleteState<T> implements State<T> {
+    private static final class Node {
 
-        @Override
-        public boolean isComplete() {
-            return true;
-        }
+        /**
+         * The registration.
+         */
+        private final Registration _registration;
 
-        @Override
-        public final boolean trySuccess(final T value) {
-            return false;
-        }
+        /**
+         * The next node or {@code null}.
+         */
+        private final Node _next;
 
-        @Override
-        public final boolean tryFailure(final Throwable cause) {
-            return false;
+        /**
+         * Initializes a new instance of the {@link Node} class.
+         * 
+         * @param registration The registration.
+         * @param next The next node or {@code null}.
+         */
+        public Node(final Registration registration, final Node next) {
+            _registration = registration;
+            _next = next;
         }
     }
 
     /**
-     * Represents a success state.
+     * Represents a probe holding the creation time of an instrumented deferred.
      * 
      * @param <T> The value type.
      */
-    private static final class SuccessState<T> extends CompleteState<T> {
+    private static final class Probe<T> implements Observer<T> {
 
         /**
-         * The value.
+         * The creation time in nanoseconds.
          */
-        private final T _value;
+        private final long _creationNanos;
 
         /**
-         * Initializes a new instance of the {@link SuccessState} class.
+         * Initializes a new instance of the {@link Probe} class.
          * 
-         * @param value The value.
+         * @param creationNanos The creation time in nanoseconds.
          */
-        public SuccessState(final T value) {
-            _value = value;
+        public Probe(final long creationNanos) {
+            _creationNanos = creationNanos;
         }
 
         @Override
-        public void then(final Completable<? super T> completable) {
-            completable.setSuccess(_value);
+        public void setSuccess(final T value) {
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
         }
     }
 
     /**
-     * Represents a failure state.
+     * Represents a cancellation hook.
      * 
      * @param <T> The value type.
      */
-    private static final class FailureState<T> extends CompleteState<T> {
+    private static final class CancelHook<T> implements Observer<T> {
 
         /**
-         * The cause.
+         * The hook.
          */
-        private final Throwable _cause;
+        private final Runnable _hook;
 
         /**
-         * Initializes a new instance of the {@link FailureState} class.
+         * Initializes a new instance of the {@link CancelHook} class.
          * 
-         * @param cause The cause.
+         * @param hook The hook.
          */
-        public FailureState(final Throwable cause) {
-            _cause = cause;
+        public CancelHook(final Runnable hook) {
+            _hook = hook;
         }
 
         @Override
-        public void then(final Completable<? super T> completable) {
-            completable.setFailure(_cause);
+        public void setSuccess(final T value) {
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            if (cause instanceof CancellationException) {
+                _hook.run();
+            }
         }
     }
 
     /**
-     * Represents a stage.
-     * 
-     * @param <T> The value type.
+     * Represents a trampoline queuing completions which would exceed the maximum stack depth.
      */
-    private static final class Stage<T> {
+    private static final class Trampoline {
 
         /**
-         * The completable.
+         * The initial capacity of the queue.
          */
-        private final Completable<? super T> _completable;
+        private static final int INITIAL_CAPACITY = 32;
 
         /**
-         * A value indicating whether the stage completed.
+         * The queue holding pairs of completables and completions.
          */
-        private final AtomicBoolean _completed;
+        private Object[] _queue;
 
         /**
-         * Initializes a new instance of the {@link Stage} class.
+         * The head index of the queue.
+         */
+        private int _head;
+
+        /**
+         * The tail index of the queue.
+         */
+        private int _tail;
+
+        /**
+         * The current stack depth.
+         */
+        private int _depth;
+
+        /**
+         * Initializes a new instance of the {@link Trampoline} class.
+         */
+        public Trampoline() {
+            _queue = new Object[INITIAL_CAPACITY];
+            _head = 0;
+            _tail = 0;
+            _depth = 0;
+        }
+
+        /**
+         * Enters a nested completion.
          * 
-         * @param completable The completable.
+         * @return The previous stack depth or {@code -1} when the maximum stack depth has been reached.
          */
-        public Stage(final Completable<? super T> completable) {
-            _completable = completable;
+        public int enter() {
+            final int depth = _depth;
+
+            if (depth >= MAX_STACK_DEPTH) {
+                return -1;
+            }
+            _depth = depth + 1;
 
-            _completed = new AtomicBoolean(false);
+            return depth;
         }
 
         /**
-         * Completes the stage with the specified state.
+         * Leaves a nested completion and drains the queue when leaving the outermost completion.
          * 
-         * @param state The state.
+         * @param depth The previous stack depth.
+         */
+        public void leave(final int depth) {
+            if (depth == 0) {
+                drain();
+            }
+            _depth = depth;
+        }
+
+        /**
+         * Queues the specified completion of the specified completable.
+         * 
+         * @param completable The completable.
+         * @param completion The completion.
+         */
+        public void offer(final Object completable, final Completion completion) {
+            _queue[_tail] = completable;
+            _queue[_tail + 1] = completion;
+            _tail = (_tail + 2) & (_queue.length - 1);
+            if (_tail == _head) {
+                grow();
+            }
+        }
+
+        /**
+         * Completes the queued completables until the queue is empty.
          */
-        public void complete(final State<T> state) {
-            if (_completed.compareAndSet(false, true)) {
-                state.then(_completable);
+        public void drain() {
+            while (_head != _tail) {
+                final Object completable = _queue[_head];
+                final Completion completion = (Completion) _queue[_head + 1];
+
+                _queue[_head] = null;
+                _queue[_head + 1] = null;
+                _head = (_head + 2) & (_queue.length - 1);
+                _depth = 1;
+                try {
+                    completion.completeTo(completable);
+                } catch (final Throwable t) {
+                    LOGGER.warn("Failed to complete stage", t);
+                    if (INSTRUMENTATION != null) {
+                        INSTRUMENTATION.onStageFailure(t);
+                    }
+                }
             }
         }
+
+        /**
+         * Doubles the capacity of the full queue.
+         */
+        private void grow() {
+            final int length = _queue.length;
+            final Object[] queue = new Object[length << 1];
+            final int count = length - _head;
+
+            System.arraycopy(_queue, _head, queue, 0, count);
+            System.arraycopy(_queue, 0, queue, count, _head);
+            _queue = queue;
+            _head = 0;
+            _tail = length;
+        }
     }
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Represents a pool of reusable deferreds.
+ * <p>
+ * The pool suits short-lived deferreds owned by a single component, e.g. correlating requests and responses of a
+ * client. Each thread caches a few recycled deferreds to avoid contention, further deferreds spill into a bounded
+ * lock-free queue shared by all threads, so they can be recycled on a different thread than the one acquiring them.
+ * Deferreds recycled while the pool is full are left to the garbage collector.
+ * <p>
+ * In debug mode, recycled deferreds are never reused, so any later use of a recycled deferred fails with an
+ * {@link IllegalStateException}. The default mode is set by the {@code org.util.concurrent.promise.pool.debug} system
+ * property.
+ * 
+ * @param <T> The value type.
+ * @see PooledDeferred
+ */
+public final class DeferredPool<T> {
+
+    /**
+     * A value indicating whether pools run in debug mode by default.
+     */
+    private static final boolean DEFAULT_DEBUG = Boolean.getBoolean("org.util.concurrent.promise.pool.debug");
+
+    /**
+     * The default capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The maximum number of deferreds cached per thread.
+     */
+    private static final int MAX_LOCAL_CAPACITY = 16;
+
+    /**
+     * The sequences of the slots.
+     */
+    private final AtomicLongArray _sequences;
+
+    /**
+     * The slots.
+     */
+    private final AtomicReferenceArray<PooledDeferred<T>> _slots;
+
+    /**
+     * The mask of the slot indices.
+     */
+    private final int _mask;
+
+    /**
+     * The number of deferreds cached per thread.
+     */
+    private final int _localCapacity;
+
+    /**
+     * The enqueue position.
+     */
+    private final AtomicLong _enqueuePosition = new AtomicLong();
+
+    /**
+     * The dequeue position.
+     */
+    private final AtomicLong _dequeuePosition = new AtomicLong();
+
+    /**
+     * A value indicating whether the pool runs in debug mode.
+     */
+    private final boolean _debug;
+
+    /**
+     * The deferreds cached by the current thread.
+     */
+    private final ThreadLocal<LocalCache> _localCache = new ThreadLocal<LocalCache>() {
+        @Override
+        protected LocalCache initialValue() {
+            return new LocalCache(_localCapacity);
+        }
+    };
+
+    /**
+     * Initializes a new instance of the {@link DeferredPool} class.
+     */
+    public DeferredPool() {
+        this(DEFAULT_CAPACITY, DEFAULT_DEBUG);
+    }
+
+    /**
+     * Initializes a new instance of the {@link DeferredPool} class.
+     * 
+     * @param capacity The maximum number of deferreds in the shared queue, rounded up to a power of two. Each thread
+     *            caches up to as many deferreds, but at most 16, in addition.
+     * @param debug A value indicating whether the pool runs in debug mode.
+     */
+    public DeferredPool(final int capacity, final boolean debug) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must not exceed 2^30");
+        }
+
+        final int length = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+        _sequences = new AtomicLongArray(length);
+        _slots = new AtomicReferenceArray<>(length);
+        _mask = length - 1;
+        _localCapacity = Math.min(MAX_LOCAL_CAPACITY, capacity);
+        _debug = debug;
+        for (int i = 0; i < length; i++) {
+            _sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Returns a value indicating whether the pool runs in debug mode.
+     * 
+     * @return A value indicating whether the pool runs in debug mode.
+     */
+    public boolean isDebug() {
+        return _debug;
+    }
+
+    /**
+     * Acquires a pending deferred.
+     * 
+     * @return The deferred.
+     */
+    @SuppressWarnings("unchecked")
+    public PooledDeferred<T> acquire() {
+        final LocalCache localCache = _localCache.get();
+        PooledDeferred<T> deferred;
+
+        if (localCache._size > 0) {
+            deferred = (PooledDeferred<T>) localCache._deferreds[--localCache._size];
+            localCache._deferreds[localCache._size] = null;
+        } else {
+            deferred = poll();
+        }
+
+        if (deferred == null) {
+            return new PooledDeferred<>(this);
+        }
+        deferred.reuse();
+
+        return deferred;
+    }
+
+    /**
+     * Returns the specified recycled deferred to the pool.
+     * 
+     * @param deferred The deferred.
+     */
+    void release(final PooledDeferred<T> deferred) {
+        if (_debug) {
+            return;
+        }
+
+        final LocalCache localCache = _localCache.get();
+
+        if (localCache._size < localCache._deferreds.length) {
+            localCache._deferreds[localCache._size++] = deferred;
+        } else {
+            offer(deferred);
+        }
+    }
+
+    /**
+     * Adds the specified deferred to the queue.
+     * 
+     * @param deferred The deferred.
+     * @return A value indicating whether the deferred has been added.
+     */
+    private boolean offer(final PooledDeferred<T> deferred) {
+        long position = _enqueuePosition.get();
+
+        while (true) {
+            final int index = (int) position & _mask;
+            final long difference = _sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (_enqueuePosition.compareAndSet(position, position + 1)) {
+                    _slots.lazySet(index, deferred);
+                    _sequences.set(index, position + 1);
+
+                    return true;
+                }
+                position = _enqueuePosition.get();
+            } else if (difference < 0) {
+                // The queue is full.
+                return false;
+            } else {
+                position = _enqueuePosition.get();
+            }
+        }
+    }
+
+    /**
+     * Removes a deferred from the queue.
+     * 
+     * @return The deferred or {@code null} if the queue is empty.
+     */
+    private PooledDeferred<T> poll() {
+        long position = _dequeuePosition.get();
+
+        while (true) {
+            final int index = (int) position & _mask;
+            final long difference = _sequences.get(index) - (position + 1);
+
+            if (difference == 0) {
+                if (_dequeuePosition.compareAndSet(position, position + 1)) {
+                    final PooledDeferred<T> deferred = _slots.get(index);
+
+                    _slots.lazySet(index, null);
+                    _sequences.set(index, position + _mask + 1);
+
+                    return deferred;
+                }
+                position = _dequeuePosition.get();
+            } else if (difference < 0) {
+                // The queue is empty.
+                return null;
+            } else {
+                position = _dequeuePosition.get();
+            }
+        }
+    }
+
+    /**
+     * Represents the deferreds cached by a thread.
+     */
+    private static final class LocalCache {
+
+        /**
+         * The deferreds.
+         */
+        private final PooledDeferred<?>[] _deferreds;
+
+        /**
+         * The number of deferreds.
+         */
+        private int _size;
+
+        /**
+         * Initializes a new instance of the {@link LocalCache} class.
+         * 
+         * @param capacity The capacity.
+         */
+        public LocalCache(final int capacity) {
+            _deferreds = new PooledDeferred<?>[capacity];
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+/**
+ * Defines a continuation of a {@code double} value.
+ */
+public interface DoubleContinuation {
+
+    /**
+     * Completes the continuation with the specified value.
+     * 
+     * @param value The value.
+     * @param result The completable result.
+     * @throws Exception
+     */
+    void onSuccess(double value, DoubleCompletable result) throws Exception;
+
+    /**
+     * Completes the continuation with the specified cause.
+     * 
+     * @param cause The cause.
+     * @param result The completable result.
+     * @throws Exception
+     */
+    void onFailure(Throwable cause, DoubleCompletable result) throws Exception;
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+/**
+ * Represents a deferred {@code double} value.
+ * <p>
+ * The value is stored without boxing. A {@link DoubleApply} added to a succeeded deferred is evaluated immediately and
+ * allocates nothing but the resulting deferred.
+ */
+public final class DoubleDeferred extends PrimitiveDeferred implements DoublePromise, DoubleCompletable {
+
+    /**
+     * The value, published by the complete state.
+     */
+    private double _value;
+
+    /**
+     * Initializes a new instance of the {@link DoubleDeferred} class.
+     */
+    public DoubleDeferred() {
+    }
+
+    /**
+     * Initializes a new instance of the {@link DoubleDeferred} class.
+     * 
+     * @param value The value.
+     */
+    public DoubleDeferred(final double value) {
+        _value = value;
+        initSuccess();
+    }
+
+    /**
+     * Initializes a new instance of the {@link DoubleDeferred} class.
+     * 
+     * @param cause The cause.
+     */
+    public DoubleDeferred(final Throwable cause) {
+        initFailure(cause);
+    }
+
+    /**
+     * Tries to complete the deferred with the specified value.
+     * 
+     * @param value The value.
+     * @return A value indicating whether the deferred has been completed.
+     */
+    public final boolean trySuccess(final double value) {
+        final Object stages = claim();
+
+        if (stages == CLAIM_FAILED) {
+            return false;
+        }
+        _value = value;
+        succeed(stages);
+
+        return true;
+    }
+
+    @Override
+    public void setSuccess(final double value) {
+        if (!trySuccess(value)) {
+            throw new IllegalStateException("Deferred is already complete");
+        }
+    }
+
+    @Override
+    public void then(final DoubleCompletable completable) {
+        if (completable == null) {
+            throw new IllegalArgumentException("Completable must not be null");
+        }
+
+        addCompletable(completable);
+    }
+
+    @Override
+    public final DoublePromise then(final DoubleContinuation continuation) {
+        if (continuation == null) {
+            throw new IllegalArgumentException("Continuation must not be null");
+        }
+
+        if ((continuation instanceof DoubleApply) && isSuccess()) {
+            try {
+                return new DoubleDeferred(((DoubleApply) continuation).doApply(_value));
+            } catch (final Throwable t) {
+                return new DoubleDeferred(t);
+            }
+        }
+        final DoubleDeferred result = new DoubleDeferred();
+
+        addCompletable(new ContinuationStage(continuation, result));
+
+        return result;
+    }
+
+    @Override
+    final void completeSuccess(final Object completable) {
+        ((DoubleCompletable) completable).setSuccess(_value);
+    }
+
+    @Override
+    final void completeFailure(final Object completable, final Throwable cause) {
+        ((DoubleCompletable) completable).setFailure(cause);
+    }
+
+    /**
+     * Represents a continuation stage.
+     */
+    private static final class ContinuationStage implements DoubleCompletable {
+
+        /**
+         * The continuation.
+         */
+        private final DoubleContinuation _continuation;
+
+        /**
+         * The result.
+         */
+        private final DoubleDeferred _result;
+
+        /**
+         * Initializes a new instance of the {@link ContinuationStage} class.
+         * 
+         * @param continuation The continuation.
+         * @param result The result.
+         */
+        public ContinuationStage(final DoubleContinuation continuation, final DoubleDeferred result) {
+            _continuation = continuation;
+            _result = result;
+        }
+
+        @Override
+        public void setSuccess(final double value) {
+            try {
+                _continuation.onSuccess(value, _result);
+            } catch (final Throwable t) {
+                _result.setFailure(t);
+            }
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            try {
+                _continuation.onFailure(cause, _result);
+            } catch (final Throwable t) {
+                t.addSuppressed(cause);
+                _result.setFailure(t);
+            }
+        }
+    }
+}
@@ -23,6 +23,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Represents an execute on continuation.
+ * <p>
+ * Each completion is submitted to the executor separately. To amortize the submissions of bursts of completions, wrap
+ * the executor in a shared {@link BatchingExecutor}. If the executor is an {@link AffineExecutor} and the current thread
+ * is already in it, the completion runs inline up to the maximum stack depth shared with the completions of deferreds.
  * 
  * @param <T> The value type.
  */
@@ -53,6 +57,16 @@ public final class ExecuteOn<T> implements Continuation<T, T> {
 
     @Override
     public void onSuccess(final T value, final Completable<? super T> result) throws Exception {
+        final int depth = enterInline();
+
+        if (depth >= 0) {
+            try {
+                result.setSuccess(value);
+            } finally {
+                Deferred.leaveInline(depth);
+            }
+            return;
+        }
         _executor.execute(new Runnable() {
             @Override
             public void run() {
@@ -67,6 +81,16 @@ public final class ExecuteOn<T> implements Continuation<T, T> {
 
     @Override
     public void onFailure(final Throwable cause, final Completable<? super T> result) throws Exception {
+        final int depth = enterInline();
+
+        if (depth >= 0) {
+            try {
+                result.setFailure(cause);
+            } finally {
+                Deferred.leaveInline(depth);
+            }
+            return;
+        }
         _executor.execute(new Runnable() {
             @Override
             public void run() {
@@ -78,4 +102,18 @@ public final class ExecuteOn<T> implements Continuation<T, T> {
             }
         });
     }
+
+    /**
+     * Enters an inline completion if the current thread is in the executor and the maximum stack depth has not been
+     * reached.
+     * 
+     * @return The previous stack depth or {@code -1} if the completion must be submitted to the executor.
+     */
+    private int enterInline() {
+        if (!(_executor instanceof AffineExecutor) || !((AffineExecutor) _executor).inExecutor()) {
+            return -1;
+        }
+
+        return Deferred.enterInline();
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+/**
+ * Represents the forwarding of the completion of a source promise to a result deferred, which may have been completed
+ * in the meantime.
+ * <p>
+ * The forward counts as a dependent of the source and doubles as the cancellation hook of the result, so cancelling
+ * the result releases the source.
+ * 
+ * @param <T> The value type.
+ */
+final class Forward<T> implements Completable<T>, Runnable {
+
+    /**
+     * The source.
+     */
+    private final Promise<? extends T> _source;
+
+    /**
+     * The stamp of the source.
+     */
+    private final int _stamp;
+
+    /**
+     * The result.
+     */
+    private final Deferred<T> _result;
+
+    /**
+     * Initializes a new instance of the {@link Forward} class.
+     * 
+     * @param source The source.
+     * @param result The result.
+     */
+    private Forward(final Promise<? extends T> source, final Deferred<T> result) {
+        _source = source;
+        _stamp = Deferred.getStamp(source);
+        _result = result;
+    }
+
+    /**
+     * Forwards the completion of the specified source to the specified result.
+     * 
+     * @param source The source.
+     * @param result The result.
+     */
+    public static <T> void forward(final Promise<? extends T> source, final Deferred<T> result) {
+        final Forward<T> forward = new Forward<>(source, result);
+
+        source.then(forward);
+        result.onCancel(forward);
+    }
+
+    @Override
+    public void setSuccess(final T value) {
+        _result.trySuccess(value);
+    }
+
+    @Override
+    public void setFailure(final Throwable cause) {
+        _result.tryFailure(cause);
+    }
+
+    @Override
+    public void run() {
+        Deferred.release(_source, _stamp);
+    }
+}
@@ -0,0 +1,560 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents a hashed wheel timer.
+ * <p>
+ * Timeouts are hashed into the buckets of a wheel which is advanced by a single worker thread once per tick, so
+ * scheduling and cancelling a timeout are O(1) operations regardless of the number of pending timeouts. New and
+ * cancelled timeouts are handed to the worker thread through lock-free stacks. A cancelled timeout releases its task
+ * immediately and is unlinked from its bucket with the next tick.
+ * <p>
+ * Tasks are executed on the worker thread and should therefore be short.
+ */
+final class HashedWheelTimer {
+
+    /**
+     * The private logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    /**
+     * The default tick duration in milliseconds.
+     */
+    private static final long DEFAULT_TICK_DURATION = 10;
+
+    /**
+     * The default number of buckets.
+     */
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /**
+     * The pending timeouts updater.
+     */
+    private static final AtomicReferenceFieldUpdater<HashedWheelTimer, Timeout> PENDING_TIMEOUTS_UPDATER = AtomicReferenceFieldUpdater.newUpdater(HashedWheelTimer.class, Timeout.class, "_pendingTimeouts");
+
+    /**
+     * The cancelled timeouts updater.
+     */
+    private static final AtomicReferenceFieldUpdater<HashedWheelTimer, Timeout> CANCELLED_TIMEOUTS_UPDATER = AtomicReferenceFieldUpdater.newUpdater(HashedWheelTimer.class, Timeout.class, "_cancelledTimeouts");
+
+    /**
+     * The tick duration in nanoseconds.
+     */
+    private final long _tickDuration;
+
+    /**
+     * The buckets.
+     */
+    private final Bucket[] _wheel;
+
+    /**
+     * The start time in nanoseconds.
+     */
+    private final long _startTime;
+
+    /**
+     * The top of the pending timeout stack.
+     */
+    private volatile Timeout _pendingTimeouts;
+
+    /**
+     * The top of the cancelled timeout stack.
+     */
+    private volatile Timeout _cancelledTimeouts;
+
+    /**
+     * The current tick, which is only accessed by the worker thread.
+     */
+    private long _tick;
+
+    /**
+     * The time in nanoseconds at the last tick.
+     */
+    private volatile long _currentTime;
+
+    /**
+     * Initializes a new instance of the {@link HashedWheelTimer} class.
+     * 
+     * @param name The name of the worker thread.
+     * @param tickDuration The tick duration.
+     * @param timeUnit The time unit.
+     * @param wheelSize The number of buckets, which is rounded up to the next power of two.
+     */
+    public HashedWheelTimer(final String name, final long tickDuration, final TimeUnit timeUnit, final int wheelSize) {
+        if (name == null) {
+            throw new IllegalArgumentException("Name must not be null");
+        }
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be greater than zero");
+        }
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+        if ((wheelSize <= 0) || (wheelSize > (1 << 30))) {
+            throw new IllegalArgumentException("Wheel size must be between 1 and 2^30");
+        }
+
+        _tickDuration = timeUnit.toNanos(tickDuration);
+        _wheel = new Bucket[normalizeWheelSize(wheelSize)];
+        for (int i = 0; i < _wheel.length; ++i) {
+            _wheel[i] = new Bucket();
+        }
+        _startTime = System.nanoTime();
+
+        _currentTime = _startTime;
+        _pendingTimeouts = null;
+        _cancelledTimeouts = null;
+        _tick = 0;
+
+        final Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                work();
+            }
+        }, name);
+
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Rounds the specified wheel size up to the next power of two.
+     * 
+     * @param wheelSize The wheel size.
+     * @return The normalized wheel size.
+     */
+    private static int normalizeWheelSize(final int wheelSize) {
+        int normalizedWheelSize = 1;
+
+        while (normalizedWheelSize < wheelSize) {
+            normalizedWheelSize <<= 1;
+        }
+
+        return normalizedWheelSize;
+    }
+
+    /**
+     * Returns the shared timer.
+     * 
+     * @return The shared timer.
+     */
+    public static HashedWheelTimer getShared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * Returns the coarse current time, which is updated on every tick.
+     * <p>
+     * Reading the coarse time is cheaper than {@link System#nanoTime()} and accurate to the tick duration.
+     * 
+     * @return The time in nanoseconds.
+     */
+    long getCurrentTime() {
+        return _currentTime;
+    }
+
+    /**
+     * Schedules the specified task.
+     * 
+     * @param task The task.
+     * @param delay The delay.
+     * @param timeUnit The time unit.
+     * @return The timeout.
+     */
+    public Timeout schedule(final Runnable task, final long delay, final TimeUnit timeUnit) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task must not be null");
+        }
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+
+        long deadline = (System.nanoTime() - _startTime) + timeUnit.toNanos(Math.max(delay, 0));
+
+        // Guard against overflow.
+        if (deadline < 0) {
+            deadline = Long.MAX_VALUE;
+        }
+        final Timeout timeout = new Timeout(this, task, deadline);
+
+        pushPending(timeout);
+
+        return timeout;
+    }
+
+    /**
+     * Pushes the specified timeout onto the pending timeout stack.
+     * 
+     * @param timeout The timeout.
+     */
+    private void pushPending(final Timeout timeout) {
+        Timeout top;
+
+        do {
+            top = _pendingTimeouts;
+            timeout._nextPending = top;
+        } while (!PENDING_TIMEOUTS_UPDATER.compareAndSet(this, top, timeout));
+    }
+
+    /**
+     * Pushes the specified timeout onto the cancelled timeout stack.
+     * 
+     * @param timeout The timeout.
+     */
+    private void pushCancelled(final Timeout timeout) {
+        Timeout top;
+
+        do {
+            top = _cancelledTimeouts;
+            timeout._nextCancelled = top;
+        } while (!CANCELLED_TIMEOUTS_UPDATER.compareAndSet(this, top, timeout));
+    }
+
+    /**
+     * Runs the worker loop.
+     */
+    private void work() {
+        while (true) {
+            waitForNextTick();
+            removeCancelledTimeouts();
+            transferPendingTimeouts();
+            _wheel[(int) (_tick & (_wheel.length - 1))].expireTimeouts();
+            ++_tick;
+        }
+    }
+
+    /**
+     * Waits until the next tick has been reached.
+     */
+    private void waitForNextTick() {
+        final long deadline = _tickDuration * (_tick + 1);
+
+        while (true) {
+            final long now = System.nanoTime();
+            final long sleepTime = deadline - (now - _startTime);
+
+            if (sleepTime <= 0) {
+                _currentTime = now;
+
+                return;
+            }
+            LockSupport.parkNanos(this, sleepTime);
+        }
+    }
+
+    /**
+     * Removes the cancelled timeouts from their buckets.
+     */
+    private void removeCancelledTimeouts() {
+        Timeout timeout = CANCELLED_TIMEOUTS_UPDATER.getAndSet(this, null);
+
+        while (timeout != null) {
+            final Timeout next = timeout._nextCancelled;
+
+            timeout._nextCancelled = null;
+            if (timeout._bucket != null) {
+                timeout._bucket.remove(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Transfers the pending timeouts into their buckets.
+     */
+    private void transferPendingTimeouts() {
+        Timeout timeout = PENDING_TIMEOUTS_UPDATER.getAndSet(this, null);
+
+        while (timeout != null) {
+            final Timeout next = timeout._nextPending;
+
+            timeout._nextPending = null;
+            if (!timeout.isCancelled()) {
+                final long calculated = timeout._deadline / _tickDuration;
+                final long ticks = Math.max(calculated, _tick);
+
+                timeout._remainingRounds = (calculated - _tick) / _wheel.length;
+                _wheel[(int) (ticks & (_wheel.length - 1))].add(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Represents a timeout.
+     * <p>
+     * A timeout observing a promise is cancelled once the promise completes.
+     */
+    static final class Timeout implements Observer<Object> {
+
+        /**
+         * The initial state.
+         */
+        private static final int INITIAL = 0;
+
+        /**
+         * The cancelled state.
+         */
+        private static final int CANCELLED = 1;
+
+        /**
+         * The expired state.
+         */
+        private static final int EXPIRED = 2;
+
+        /**
+         * The state updater.
+         */
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "_state");
+
+        /**
+         * The timer.
+         */
+        private final HashedWheelTimer _timer;
+
+        /**
+         * The deadline relative to the start time of the timer.
+         */
+        private final long _deadline;
+
+        /**
+         * The task or {@code null} if the timeout has been cancelled.
+         */
+        private Runnable _task;
+
+        /**
+         * The state.
+         */
+        private volatile int _state;
+
+        /**
+         * The next timeout on the pending timeout stack.
+         */
+        private Timeout _nextPending;
+
+        /**
+         * The next timeout on the cancelled timeout stack.
+         */
+        private Timeout _nextCancelled;
+
+        /**
+         * The remaining rounds, which is only accessed by the worker thread.
+         */
+        private long _remainingRounds;
+
+        /**
+         * The bucket, which is only accessed by the worker thread.
+         */
+        private Bucket _bucket;
+
+        /**
+         * The previous timeout in the bucket, which is only accessed by the worker thread.
+         */
+        private Timeout _previous;
+
+        /**
+         * The next timeout in the bucket, which is only accessed by the worker thread.
+         */
+        private Timeout _next;
+
+        /**
+         * Initializes a new instance of the {@link Timeout} class.
+         * 
+         * @param timer The timer.
+         * @param task The task.
+         * @param deadline The deadline relative to the start time of the timer.
+         */
+        private Timeout(final HashedWheelTimer timer, final Runnable task, final long deadline) {
+            _timer = timer;
+            _deadline = deadline;
+            _task = task;
+
+            _state = INITIAL;
+        }
+
+        /**
+         * Returns a value indicating whether the timeout has been cancelled.
+         * 
+         * @return A value indicating whether the timeout has been cancelled.
+         */
+        public boolean isCancelled() {
+            return (_state == CANCELLED);
+        }
+
+        /**
+         * Returns a value indicating whether the timeout has expired.
+         * 
+         * @return A value indicating whether the timeout has expired.
+         */
+        public boolean isExpired() {
+            return (_state == EXPIRED);
+        }
+
+        /**
+         * Tries to cancel the timeout.
+         * 
+         * @return A value indicating whether the timeout has been cancelled.
+         */
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, INITIAL, CANCELLED)) {
+                return false;
+            }
+            _task = null;
+            _timer.pushCancelled(this);
+
+            return true;
+        }
+
+        /**
+         * Expires the timeout.
+         */
+        private void expire() {
+            if (!STATE_UPDATER.compareAndSet(this, INITIAL, EXPIRED)) {
+                return;
+            }
+            final Runnable task = _task;
+
+            _task = null;
+            try {
+                task.run();
+            } catch (final Throwable t) {
+                LOGGER.warn("Failed to run timer task", t);
+            }
+        }
+
+        @Override
+        public void setSuccess(final Object value) {
+            cancel();
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            cancel();
+        }
+    }
+
+    /**
+     * Represents a bucket, which is only accessed by the worker thread.
+     */
+    private static final class Bucket {
+
+        /**
+         * The head timeout.
+         */
+        private Timeout _head;
+
+        /**
+         * The tail timeout.
+         */
+        private Timeout _tail;
+
+        /**
+         * Initializes a new instance of the {@link Bucket} class.
+         */
+        public Bucket() {
+            _head = null;
+            _tail = null;
+        }
+
+        /**
+         * Adds the specified timeout.
+         * 
+         * @param timeout The timeout.
+         */
+        public void add(final Timeout timeout) {
+            timeout._bucket = this;
+            if (_head == null) {
+                _head = timeout;
+                _tail = timeout;
+            } else {
+                _tail._next = timeout;
+                timeout._previous = _tail;
+                _tail = timeout;
+            }
+        }
+
+        /**
+         * Removes the specified timeout.
+         * 
+         * @param timeout The timeout.
+         * @return The next timeout.
+         */
+        public Timeout remove(final Timeout timeout) {
+            final Timeout next = timeout._next;
+
+            if (timeout._previous != null) {
+                timeout._previous._next = next;
+            }
+            if (timeout._next != null) {
+                timeout._next._previous = timeout._previous;
+            }
+            if (timeout == _head) {
+                _head = next;
+            }
+            if (timeout == _tail) {
+                _tail = timeout._previous;
+            }
+            timeout._previous = null;
+            timeout._next = null;
+            timeout._bucket = null;
+
+            return next;
+        }
+
+        /**
+         * Expires the due timeouts.
+         */
+        public void expireTimeouts() {
+            Timeout timeout = _head;
+
+            while (timeout != null) {
+                if (timeout._remainingRounds <= 0) {
+                    final Timeout next = remove(timeout);
+
+                    timeout.expire();
+                    timeout = next;
+                } else if (timeout.isCancelled()) {
+                    timeout = remove(timeout);
+                } else {
+                    --timeout._remainingRounds;
+                    timeout = timeout._next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Represents the holder of the lazily started shared timer.
+     */
+    private static final class SharedHolder {
+
+        /**
+         * The shared timer.
+         */
+        public static final HashedWheelTimer INSTANCE = new HashedWheelTimer("promises-timer", DEFAULT_TICK_DURATION, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents a concurrent histogram of non-negative values.
+ * <p>
+ * Values are recorded into log-linear buckets in the style of an HDR histogram: values below 32 are recorded exactly,
+ * larger values are recorded into one of 16 linear sub-buckets per power of two, bounding the relative error to about
+ * 6%. Recording is lock-free and does not allocate.
+ */
+public final class Histogram {
+
+    /**
+     * The number of linear sub-buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 16;
+
+    /**
+     * The number of buckets covering all non-negative long values.
+     */
+    private static final int BUCKETS = (SUB_BUCKETS * 59) + SUB_BUCKETS;
+
+    /**
+     * The counts of the buckets.
+     */
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * The maximum value.
+     */
+    private final AtomicLong _max = new AtomicLong();
+
+    /**
+     * Initializes a new instance of the {@link Histogram} class.
+     */
+    public Histogram() {
+    }
+
+    /**
+     * Records the specified value.
+     * 
+     * @param value The value, negative values are recorded as zero.
+     */
+    public void record(final long value) {
+        final long clampedValue = Math.max(0, value);
+
+        _counts.incrementAndGet(indexOf(clampedValue));
+
+        long max;
+
+        while (clampedValue > (max = _max.get())) {
+            if (_max.compareAndSet(max, clampedValue)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of recorded values.
+     * 
+     * @return The number of recorded values.
+     */
+    public long getCount() {
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            count += _counts.get(i);
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the maximum recorded value.
+     * 
+     * @return The maximum recorded value or {@code 0} if no value has been recorded.
+     */
+    public long getMax() {
+        return _max.get();
+    }
+
+    /**
+     * Returns the value at the specified percentile.
+     * 
+     * @param percentile The percentile between {@code 0} and {@code 100}.
+     * @return The highest value equivalent to the value at the percentile or {@code 0} if no value has been recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if ((percentile < 0) || (percentile > 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+
+        final long total = getCount();
+
+        if (total == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil((percentile / 100) * total));
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            count += _counts.get(i);
+            if (count >= rank) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Returns the bucket index of the specified value.
+     * 
+     * @param value The value.
+     * @return The bucket index.
+     */
+    static int indexOf(final long value) {
+        if (value < (SUB_BUCKETS << 1)) {
+            return (int) value;
+        }
+
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - 4;
+
+        return (SUB_BUCKETS * shift) + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest value of the specified bucket.
+     * 
+     * @param index The bucket index.
+     * @return The highest value.
+     */
+    static long highestEquivalentValue(final int index) {
+        if (index < (SUB_BUCKETS << 1)) {
+            return index;
+        }
+
+        final int shift = (index / SUB_BUCKETS) - 1;
+        final long subBucket = (index % SUB_BUCKETS) + SUB_BUCKETS;
+
+        return (((subBucket + 1) << shift) - 1);
+    }
+}
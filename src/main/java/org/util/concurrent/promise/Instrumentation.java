@@ -0,0 +1,105 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents the instrumentation of the {@link Deferred} lifecycle.
+ * <p>
+ * An instrumentation is installed by setting the {@code org.util.concurrent.promise.instrumentation} system property
+ * to the name of a subclass with a public no-argument constructor, e.g. {@link DefaultInstrumentation}, before the
+ * first deferred is created. The installed instrumentation is held in a constant, so the hooks cost nothing if no
+ * instrumentation is installed.
+ * <p>
+ * The hooks are invoked on the hot path of every deferred and must be fast, thread-safe and must not throw.
+ */
+public abstract class Instrumentation {
+
+    /**
+     * The private logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(Instrumentation.class);
+
+    /**
+     * The installed instrumentation or {@code null}.
+     */
+    private static final Instrumentation INSTALLED = load(System.getProperty("org.util.concurrent.promise.instrumentation"));
+
+    /**
+     * Returns the installed instrumentation.
+     * 
+     * @return The installed instrumentation or {@code null} if no instrumentation is installed.
+     */
+    public static Instrumentation getInstalled() {
+        return INSTALLED;
+    }
+
+    /**
+     * Handles the creation of a deferred.
+     */
+    public void onCreate() {
+    }
+
+    /**
+     * Handles the registration of a completable with a pending deferred.
+     */
+    public void onThen() {
+    }
+
+    /**
+     * Handles the completion of a deferred.
+     * 
+     * @param pendingNanos The time in nanoseconds the deferred has been pending.
+     * @param completables The number of completables registered while the deferred was pending.
+     * @param success A value indicating whether the deferred succeeded.
+     */
+    public void onComplete(final long pendingNanos, final int completables, final boolean success) {
+    }
+
+    /**
+     * Handles a completable which failed to complete.
+     * 
+     * @param cause The cause.
+     */
+    public void onStageFailure(final Throwable cause) {
+    }
+
+    /**
+     * Loads the instrumentation with the specified class name.
+     * 
+     * @param className The class name or {@code null}.
+     * @return The instrumentation or {@code null}.
+     */
+    private static Instrumentation load(final String className) {
+        if ((className == null) || className.isEmpty()) {
+            return null;
+        }
+        try {
+            final Instrumentation instrumentation = Class.forName(className).asSubclass(Instrumentation.class).getDeclaredConstructor().newInstance();
+
+            LOGGER.info("Installed instrumentation {}", className);
+
+            return instrumentation;
+        } catch (final Exception e) {
+            LOGGER.warn("Failed to install instrumentation " + className, e);
+
+            return null;
+        }
+    }
+}
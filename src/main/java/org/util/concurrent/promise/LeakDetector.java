@@ -0,0 +1,244 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents a sampling detector of deferreds which are garbage collected without ever being completed.
+ * <p>
+ * A sampled deferred is tracked by a weak reference which doubles as an observer of the deferred. Completing the
+ * deferred stops the tracking. If a tracked deferred with completables becomes unreachable while still pending, its
+ * completables will never run, so the leak is logged together with the stack trace of the creation of the deferred.
+ * Leaks are reported whenever a further deferred is sampled.
+ * <p>
+ * The detector is configured by the following system properties:
+ * <ul>
+ * <li>{@code org.util.concurrent.promise.leakDetection.level}: {@code disabled} (default), {@code sample} to track a
+ * random sample of deferreds or {@code paranoid} to track every deferred.</li>
+ * <li>{@code org.util.concurrent.promise.leakDetection.samplingInterval}: the average number of deferreds per sampled
+ * deferred, {@code 4096} by default.</li>
+ * </ul>
+ * Capturing the creation stack trace dominates the cost of a sampled deferred, so the sampling interval bounds the
+ * overhead.
+ */
+final class LeakDetector {
+
+    /**
+     * The private logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeakDetector.class);
+
+    /**
+     * The default sampling interval.
+     */
+    private static final int DEFAULT_SAMPLING_INTERVAL = 4096;
+
+    /**
+     * The installed detector or {@code null}.
+     */
+    private static final LeakDetector INSTALLED = load(System.getProperty("org.util.concurrent.promise.leakDetection.level", "disabled"), Integer.getInteger("org.util.concurrent.promise.leakDetection.samplingInterval", DEFAULT_SAMPLING_INTERVAL));
+
+    /**
+     * The sampling interval.
+     */
+    private final int _samplingInterval;
+
+    /**
+     * The trackers of the tracked deferreds, keeping the trackers reachable.
+     */
+    private final Set<LeakTracker> _trackers = Collections.newSetFromMap(new ConcurrentHashMap<LeakTracker, Boolean>());
+
+    /**
+     * The queue of the trackers of collected deferreds.
+     */
+    private final ReferenceQueue<Object> _queue = new ReferenceQueue<>();
+
+    /**
+     * The number of reported leaks.
+     */
+    private final AtomicLong _leaks = new AtomicLong();
+
+    /**
+     * Initializes a new instance of the {@link LeakDetector} class.
+     * 
+     * @param samplingInterval The average number of deferreds per sampled deferred.
+     */
+    public LeakDetector(final int samplingInterval) {
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("Sampling interval must be positive");
+        }
+
+        _samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Returns the installed detector.
+     * 
+     * @return The installed detector or {@code null} if leak detection is disabled.
+     */
+    public static LeakDetector getInstalled() {
+        return INSTALLED;
+    }
+
+    /**
+     * Returns the number of reported leaks.
+     * 
+     * @return The number of reported leaks.
+     */
+    public long getLeaks() {
+        return _leaks.get();
+    }
+
+    /**
+     * Samples the specified deferred and starts tracking it if sampled.
+     * 
+     * @param deferred The deferred.
+     * @return The tracker to be added as the first completable of the deferred or {@code null} if not sampled.
+     */
+    public LeakTracker track(final Deferred<?> deferred) {
+        if ((_samplingInterval > 1) && (ThreadLocalRandom.current().nextInt(_samplingInterval) != 0)) {
+            return null;
+        }
+        reportLeaks();
+
+        final LeakTracker tracker = new LeakTracker(deferred, _queue, _trackers);
+
+        _trackers.add(tracker);
+
+        return tracker;
+    }
+
+    /**
+     * Reports the leaks of the collected deferreds.
+     * 
+     * @return The number of reported leaks.
+     */
+    public int reportLeaks() {
+        int leaks = 0;
+        LeakTracker tracker;
+
+        while ((tracker = (LeakTracker) _queue.poll()) != null) {
+            // A completed tracker has already been removed.
+            if (!_trackers.remove(tracker) || !tracker._hasCompletables) {
+                continue;
+            }
+            ++leaks;
+            _leaks.incrementAndGet();
+            LOGGER.error("Deferred with completables has been garbage collected without being completed", tracker._creation);
+        }
+
+        return leaks;
+    }
+
+    /**
+     * Loads the detector for the specified level.
+     * 
+     * @param level The level.
+     * @param samplingInterval The sampling interval.
+     * @return The detector or {@code null} if leak detection is disabled.
+     */
+    private static LeakDetector load(final String level, final int samplingInterval) {
+        switch (level.toLowerCase(Locale.ROOT)) {
+        case "disabled":
+            return null;
+        case "sample":
+            LOGGER.info("Leak detection enabled, sampling 1 of {} deferreds", samplingInterval);
+
+            return new LeakDetector(samplingInterval);
+        case "paranoid":
+            LOGGER.info("Leak detection enabled, tracking all deferreds");
+
+            return new LeakDetector(1);
+        default:
+            LOGGER.warn("Unknown leak detection level {}, leak detection disabled", level);
+
+            return null;
+        }
+    }
+
+    /**
+     * Represents the tracker of a deferred.
+     */
+    static final class LeakTracker extends WeakReference<Object> implements Observer<Object> {
+
+        /**
+         * The trackers of the detector.
+         */
+        private final Set<LeakTracker> _trackers;
+
+        /**
+         * The stack trace of the creation of the deferred.
+         */
+        private final Throwable _creation;
+
+        /**
+         * A value indicating whether completables have been added to the deferred.
+         */
+        private volatile boolean _hasCompletables;
+
+        /**
+         * Initializes a new instance of the {@link LeakTracker} class.
+         * 
+         * @param deferred The deferred.
+         * @param queue The reference queue.
+         * @param trackers The trackers of the detector.
+         */
+        public LeakTracker(final Deferred<?> deferred, final ReferenceQueue<Object> queue, final Set<LeakTracker> trackers) {
+            super(deferred, queue);
+            _trackers = trackers;
+            _creation = new Exception("Deferred created");
+        }
+
+        /**
+         * Records that a completable has been added to the deferred.
+         */
+        public void onThen() {
+            if (!_hasCompletables) {
+                _hasCompletables = true;
+            }
+        }
+
+        @Override
+        public void setSuccess(final Object value) {
+            close();
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            close();
+        }
+
+        /**
+         * Stops tracking the completed deferred.
+         */
+        private void close() {
+            _trackers.remove(this);
+            clear();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Represents the mapping of a collection of items by a compose continuation with a bounded number of pending mappings.
+ * <p>
+ * Every item waits for a permit of an {@link AsyncSemaphore} and releases it once its mapping is complete, so the
+ * waiting items only retain their deferreds. Once a mapping fails, the pending and waiting mappings are cancelled.
+ * 
+ * @param <T> The item type.
+ * @param <R> The result type.
+ */
+final class MapConcurrently<T, R> extends Compose<AsyncSemaphore.Permit, R> {
+
+    /**
+     * The item.
+     */
+    private final T _item;
+
+    /**
+     * The compose continuation.
+     */
+    private final Compose<? super T, ? extends R> _compose;
+
+    /**
+     * Initializes a new instance of the {@link MapConcurrently} class.
+     * 
+     * @param item The item.
+     * @param compose The compose continuation.
+     */
+    private MapConcurrently(final T item, final Compose<? super T, ? extends R> compose) {
+        _item = item;
+        _compose = compose;
+    }
+
+    /**
+     * Returns a promise for the mapped values of the specified items.
+     * 
+     * @param items The items.
+     * @param limit The maximum number of pending mappings.
+     * @param compose The compose continuation.
+     * @return The promise.
+     */
+    public static <T, R> Promise<List<R>> map(final Collection<? extends T> items, final int limit, final Compose<? super T, ? extends R> compose) {
+        final AsyncSemaphore semaphore = new AsyncSemaphore(limit);
+        final List<Promise<AsyncSemaphore.Permit>> permits = new ArrayList<>(items.size());
+        final List<Promise<R>> mappings = new ArrayList<>(items.size());
+
+        for (final T item : items) {
+            final Promise<AsyncSemaphore.Permit> permit = semaphore.acquire();
+
+            permits.add(permit);
+            mappings.add(permit.then(new MapConcurrently<T, R>(item, compose)));
+        }
+
+        final Promise<List<R>> result = All.all(mappings);
+
+        result.then(new CancelOnFailure<R>(mappings));
+        // The permits are released after the result has observed the mappings, so a failed mapping cancels the waiting
+        // mappings before its permit could start the next one.
+        for (int i = 0; i < permits.size(); i++) {
+            permits.get(i).then(new Grant<R>(mappings.get(i)));
+        }
+
+        return result;
+    }
+
+    @Override
+    protected Promise<R> doCompose(final AsyncSemaphore.Permit permit) {
+        final Deferred<R> result = new Deferred<>();
+
+        try {
+            _compose.onSuccess(_item, result);
+        } catch (final Throwable t) {
+            result.tryFailure(t);
+        }
+
+        return result;
+    }
+
+    /**
+     * Represents the grant of a permit to a mapping, which releases the permit once the mapping is complete.
+     * <p>
+     * The release is tied to the mapping rather than to the compose continuation, since the continuation is skipped
+     * for a mapping cancelled while its permit is being granted.
+     * 
+     * @param <R> The result type.
+     */
+    private static final class Grant<R> implements Observer<AsyncSemaphore.Permit> {
+
+        /**
+         * The mapping.
+         */
+        private final Promise<R> _mapping;
+
+        /**
+         * Initializes a new instance of the {@link Grant} class.
+         * 
+         * @param mapping The mapping.
+         */
+        public Grant(final Promise<R> mapping) {
+            _mapping = mapping;
+        }
+
+        @Override
+        public void setSuccess(final AsyncSemaphore.Permit value) {
+            _mapping.then(new PermitRelease<R>(value));
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+        }
+    }
+
+    /**
+     * Represents the release of a permit on completion of a mapping.
+     * 
+     * @param <R> The result type.
+     */
+    private static final class PermitRelease<R> implements Observer<R> {
+
+        /**
+         * The permit.
+         */
+        private final AsyncSemaphore.Permit _permit;
+
+        /**
+         * Initializes a new instance of the {@link PermitRelease} class.
+         * 
+         * @param permit The permit.
+         */
+        public PermitRelease(final AsyncSemaphore.Permit permit) {
+            _permit = permit;
+        }
+
+        @Override
+        public void setSuccess(final R value) {
+            _permit.release();
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            _permit.release();
+        }
+    }
+
+    /**
+     * Represents the cancellation of the remaining mappings on failure of the result.
+     * 
+     * @param <R> The result type.
+     */
+    private static final class CancelOnFailure<R> implements Observer<List<R>> {
+
+        /**
+         * The mappings.
+         */
+        private final List<Promise<R>> _mappings;
+
+        /**
+         * Initializes a new instance of the {@link CancelOnFailure} class.
+         * 
+         * @param mappings The mappings.
+         */
+        public CancelOnFailure(final List<Promise<R>> mappings) {
+            _mappings = mappings;
+        }
+
+        @Override
+        public void setSuccess(final List<R> value) {
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            // The waiting mappings are cancelled first, so no permit released by a cancelled mapping starts them.
+            for (int i = _mappings.size() - 1; i >= 0; i--) {
+                Promises.cancel(_mappings.get(i));
+            }
+        }
+    }
+}
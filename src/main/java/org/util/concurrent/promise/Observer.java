@@ -0,0 +1,28 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+/**
+ * Defines a completable which observes a deferred without depending on it.
+ * <p>
+ * Observers are not counted as dependents, so they never keep a deferred from being cancelled once all its dependents
+ * have been cancelled.
+ * 
+ * @param <T> The value type.
+ */
+interface Observer<T> extends Completable<T> {
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+/**
+ * Represents the outcome of a complete promise.
+ * 
+ * @param <T> The value type.
+ */
+public final class Outcome<T> {
+
+    /**
+     * The value.
+     */
+    private final T _value;
+
+    /**
+     * The cause.
+     */
+    private final Throwable _cause;
+
+    /**
+     * Initializes a new instance of the {@link Outcome} class.
+     * 
+     * @param value The value.
+     * @param cause The cause.
+     */
+    private Outcome(final T value, final Throwable cause) {
+        _value = value;
+        _cause = cause;
+    }
+
+    /**
+     * Returns a new success outcome.
+     * 
+     * @param value The value.
+     * @return The outcome.
+     */
+    public static <T> Outcome<T> newSuccess(final T value) {
+        return new Outcome<>(value, null);
+    }
+
+    /**
+     * Returns a new failure outcome.
+     * 
+     * @param cause The cause.
+     * @return The outcome.
+     */
+    public static <T> Outcome<T> newFailure(final Throwable cause) {
+        if (cause == null) {
+            throw new IllegalArgumentException("Cause must not be null");
+        }
+
+        return new Outcome<>(null, cause);
+    }
+
+    /**
+     * Returns a value indicating whether the outcome is a success.
+     * 
+     * @return A value indicating whether the outcome is a success.
+     */
+    public boolean isSuccess() {
+        return (_cause == null);
+    }
+
+    /**
+     * Returns the value.
+     * 
+     * @return The value or {@code null} if the outcome is a failure.
+     */
+    public T getValue() {
+        return _value;
+    }
+
+    /**
+     * Returns the cause.
+     * 
+     * @return The cause or {@code null} if the outcome is a success.
+     */
+    public Throwable getCause() {
+        return _cause;
+    }
+
+    @Override
+    public String toString() {
+        if (_cause == null) {
+            return "Success[" + _value + "]";
+        }
+
+        return "Failure[" + _cause + "]";
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Represents a deferred which is recycled to a {@link DeferredPool} once complete.
+ * <p>
+ * The owner of a pooled deferred must follow these rules:
+ * <ul>
+ * <li>Only the owner recycles the deferred, exactly once, after it has been completed.</li>
+ * <li>All promises derived from the deferred by continuations must be complete before recycling. Since continuations
+ * are completed together with the deferred, this only matters for continuations completing asynchronously.</li>
+ * <li>The deferred must not be referenced after recycling. Code which may complete the deferred late, e.g. a response
+ * arriving after a timeout, must use the stamped completion methods with the stamp read when the deferred was
+ * acquired. Futures and forwards of the deferred read the stamp when they are created, so cancelling them late never
+ * releases a later use.</li>
+ * </ul>
+ * Any use of a recycled deferred before it is acquired again fails with an {@link IllegalStateException}. In debug
+ * mode, recycled deferreds are never reused and stale stamps fail as well, so violations are detected reliably.
+ * <p>
+ * The stamp and the number of calls in progress share a single word. Each call changing the deferred pins it by
+ * incrementing the number of calls with the same compare-and-set which checks the stamp, so a stale stamp never
+ * completes a later use. A recycled deferred returns to the pool only once the last call in progress has returned,
+ * e.g. once the completing call has completed all stages, so it is never reused while it is still in use.
+ * 
+ * @param <T> The value type.
+ */
+public final class PooledDeferred<T> implements Promise<T>, Completable<T> {
+
+    /**
+     * The increment of the stamp in the state.
+     */
+    private static final long STAMP_INCREMENT = 1L << 32;
+
+    /**
+     * The state updater.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicLongFieldUpdater<PooledDeferred> STATE_UPDATER = AtomicLongFieldUpdater.newUpdater(PooledDeferred.class, "_state");
+
+    /**
+     * The pool.
+     */
+    private final DeferredPool<T> _pool;
+
+    /**
+     * The deferred, reset whenever the pooled deferred is reused.
+     */
+    private final Deferred<T> _deferred = new Deferred<>();
+
+    /**
+     * The state, holding the stamp in the upper half and the number of calls in progress in the lower half. The stamp
+     * is even while the deferred is in use and odd once it has been recycled.
+     */
+    private volatile long _state;
+
+    /**
+     * Initializes a new instance of the {@link PooledDeferred} class.
+     * 
+     * @param pool The pool.
+     */
+    PooledDeferred(final DeferredPool<T> pool) {
+        _pool = pool;
+    }
+
+    /**
+     * Returns the stamp of the current use.
+     * 
+     * @return The stamp.
+     */
+    public int getStamp() {
+        return getStamp(checkNotRecycled());
+    }
+
+    /**
+     * Tries to complete the deferred with the specified value.
+     * 
+     * @param value The value.
+     * @return A value indicating whether the deferred has been completed.
+     */
+    public boolean trySuccess(final T value) {
+        pin();
+        try {
+            return _deferred.trySuccess(value);
+        } finally {
+            unpin();
+        }
+    }
+
+    /**
+     * Tries to complete the deferred with the specified value if the specified stamp is current.
+     * 
+     * @param stamp The stamp.
+     * @param value The value.
+     * @return A value indicating whether the deferred has been completed.
+     */
+    public boolean trySuccess(final int stamp, final T value) {
+        if (!pin(stamp)) {
+            return false;
+        }
+        try {
+            return _deferred.trySuccess(value);
+        } finally {
+            unpin();
+        }
+    }
+
+    /**
+     * Tries to complete the deferred with the specified cause.
+     * 
+     * @param cause The cause.
+     * @return A value indicating whether the deferred has been completed.
+     */
+    public boolean tryFailure(final Throwable cause) {
+        pin();
+        try {
+            return _deferred.tryFailure(cause);
+        } finally {
+            unpin();
+        }
+    }
+
+    /**
+     * Tries to complete the deferred with the specified cause if the specified stamp is current.
+     * 
+     * @param stamp The stamp.
+     * @param cause The cause.
+     * @return A value indicating whether the deferred has been completed.
+     */
+    public boolean tryFailure(final int stamp, final Throwable cause) {
+        if (!pin(stamp)) {
+            return false;
+        }
+        try {
+            return _deferred.tryFailure(cause);
+        } finally {
+            unpin();
+        }
+    }
+
+    /**
+     * Tries to cancel the deferred.
+     * 
+     * @return A value indicating whether the deferred has been cancelled.
+     */
+    public boolean cancel() {
+        pin();
+        try {
+            return _deferred.cancel();
+        } finally {
+            unpin();
+        }
+    }
+
+    /**
+     * Returns a value indicating whether the deferred has been cancelled.
+     * 
+     * @return A value indicating whether the deferred has been cancelled.
+     */
+    public boolean isCancelled() {
+        final long state = checkNotRecycled();
+        final boolean cancelled = _deferred.isCancelled();
+
+        checkUnchanged(state);
+
+        return cancelled;
+    }
+
+    /**
+     * Recycles the complete deferred.
+     * <p>
+     * If calls are still in progress, e.g. the completing call still completes stages, the deferred returns to the pool
+     * once the last of them has returned.
+     * 
+     * @throws IllegalStateException
+     */
+    public void recycle() {
+        checkNotRecycled();
+        if (!_deferred.isComplete()) {
+            throw new IllegalStateException("Deferred must be complete to be recycled");
+        }
+
+        // Only the owner changes the stamp of a deferred in use, but calls may pin and unpin it concurrently.
+        if (getCalls(STATE_UPDATER.addAndGet(this, STAMP_INCREMENT)) == 0) {
+            _pool.release(this);
+        }
+    }
+
+    @Override
+    public void setSuccess(final T value) {
+        pin();
+        try {
+            _deferred.setSuccess(value);
+        } finally {
+            unpin();
+        }
+    }
+
+    @Override
+    public void setFailure(final Throwable cause) {
+        pin();
+        try {
+            _deferred.setFailure(cause);
+        } finally {
+            unpin();
+        }
+    }
+
+    @Override
+    public boolean isComplete() {
+        final long state = checkNotRecycled();
+        final boolean complete = _deferred.isComplete();
+
+        checkUnchanged(state);
+
+        return complete;
+    }
+
+    @Override
+    public void then(final Completable<? super T> completable) {
+        pin();
+        try {
+            _deferred.then(completable);
+        } finally {
+            unpin();
+        }
+    }
+
+    @Override
+    public <R> Promise<R> then(final Continuation<? super T, ? extends R> continuation) {
+        pin();
+        try {
+            return _deferred.then(continuation);
+        } finally {
+            unpin();
+        }
+    }
+
+    /**
+     * Returns the value of the deferred without blocking if the specified stamp is current.
+     * 
+     * @param stamp The stamp.
+     * @return The value or {@link Deferred#PENDING} if the deferred is pending or the stamp is stale.
+     * @throws ExecutionException
+     * @throws IllegalStateException
+     */
+    Object poll(final int stamp) throws ExecutionException {
+        if (!pin(stamp)) {
+            return Deferred.PENDING;
+        }
+        try {
+            return Deferred.poll(_deferred);
+        } finally {
+            unpin();
+        }
+    }
+
+    /**
+     * Releases a cancelled dependent of the deferred if the specified stamp is current.
+     * 
+     * @param stamp The stamp.
+     * @throws IllegalStateException
+     */
+    void release(final int stamp) {
+        if (!pin(stamp)) {
+            return;
+        }
+        try {
+            _deferred.releaseDependent();
+        } finally {
+            unpin();
+        }
+    }
+
+    /**
+     * Resets the recycled deferred for reuse.
+     */
+    void reuse() {
+        _deferred.reset();
+        STATE_UPDATER.addAndGet(this, STAMP_INCREMENT);
+    }
+
+    /**
+     * Pins the deferred for a call of the owner.
+     * 
+     * @throws IllegalStateException
+     */
+    private void pin() {
+        while (true) {
+            final long state = _state;
+
+            if ((getStamp(state) & 1) != 0) {
+                throw new IllegalStateException("Deferred has been recycled");
+            }
+            if (STATE_UPDATER.compareAndSet(this, state, state + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pins the deferred for a call if the specified stamp is current.
+     * 
+     * @param stamp The stamp.
+     * @return A value indicating whether the deferred has been pinned.
+     */
+    private boolean pin(final int stamp) {
+        while (true) {
+            final long state = _state;
+
+            if (getStamp(state) != stamp) {
+                if (_pool.isDebug()) {
+                    throw new IllegalStateException("Stamp " + stamp + " is stale");
+                }
+
+                return false;
+            }
+            if (STATE_UPDATER.compareAndSet(this, state, state + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Unpins the deferred and returns it to the pool if it has been recycled and this was the last call in progress.
+     * <p>
+     * Since a recycled deferred cannot be pinned, either the owner recycling it or the last call in progress returns it
+     * to the pool, but never both.
+     */
+    private void unpin() {
+        final long state = STATE_UPDATER.decrementAndGet(this);
+
+        if ((getCalls(state) == 0) && ((getStamp(state) & 1) != 0)) {
+            _pool.release(this);
+        }
+    }
+
+    /**
+     * Checks that the deferred has not been recycled.
+     * 
+     * @return The state.
+     * @throws IllegalStateException
+     */
+    private long checkNotRecycled() {
+        final long state = _state;
+
+        if ((getStamp(state) & 1) != 0) {
+            throw new IllegalStateException("Deferred has been recycled");
+        }
+
+        return state;
+    }
+
+    /**
+     * Checks that the deferred has not been recycled since the specified state has been read.
+     * 
+     * @param state The state.
+     * @throws IllegalStateException
+     */
+    private void checkUnchanged(final long state) {
+        if (getStamp(_state) != getStamp(state)) {
+            throw new IllegalStateException("Deferred has been recycled");
+        }
+    }
+
+    /**
+     * Returns the stamp of the specified state.
+     * 
+     * @param state The state.
+     * @return The stamp.
+     */
+    private static int getStamp(final long state) {
+        return (int) (state >>> 32);
+    }
+
+    /**
+     * Returns the number of calls in progress of the specified state.
+     * 
+     * @param state The state.
+     * @return The number of calls in progress.
+     */
+    private static int getCalls(final long state) {
+        return (int) state;
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents the base class of the primitive deferreds.
+ * <p>
+ * The primitive value is held by the subclass, so a success is stored without a box. Since the value cannot be written
+ * atomically together with the state, completing claims the deferred by changing the state to a transient completing
+ * state first, writes the value and publishes the complete state afterwards. Completables added while completing are
+ * pushed onto a stack of completing stages, which is completed by the completing thread once the complete state has
+ * been published, so adding a completable never waits for the completing thread.
+ */
+abstract class PrimitiveDeferred implements Deferred.Completion {
+
+    /**
+     * The private logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrimitiveDeferred.class);
+
+    /**
+     * The completing state.
+     */
+    private static final Object COMPLETING = new Object();
+
+    /**
+     * The success state.
+     */
+    private static final Object SUCCESS = new Object();
+
+    /**
+     * The value returned by {@link #claim()} if the deferred is already complete.
+     */
+    static final Object CLAIM_FAILED = new Object();
+
+    /**
+     * The state updater.
+     */
+    private static final AtomicReferenceFieldUpdater<PrimitiveDeferred, Object> STATE_UPDATER = AtomicReferenceFieldUpdater.newUpdater(PrimitiveDeferred.class, Object.class, "_state");
+
+    /**
+     * The state of the deferred.
+     */
+    private volatile Object _state;
+
+    /**
+     * Initializes a new instance of the {@link PrimitiveDeferred} class.
+     */
+    PrimitiveDeferred() {
+    }
+
+    /**
+     * Tries to complete the deferred with the specified cause.
+     * 
+     * @param cause The cause.
+     * @return A value indicating whether the deferred has been completed.
+     */
+    public final boolean tryFailure(final Throwable cause) {
+        if (cause == null) {
+            throw new IllegalArgumentException("Cause must not be null");
+        }
+
+        final Object stages = claim();
+
+        if (stages == CLAIM_FAILED) {
+            return false;
+        }
+        publish(new FailureState(cause), stages);
+
+        return true;
+    }
+
+    /**
+     * Completes the deferred with the specified cause.
+     * 
+     * @param cause The cause.
+     * @throws IllegalStateException
+     */
+    public final void setFailure(final Throwable cause) {
+        if (!tryFailure(cause)) {
+            throw new IllegalStateException("Deferred is already complete");
+        }
+    }
+
+    /**
+     * Returns a value indicating whether the deferred is complete.
+     * 
+     * @return A value indicating whether the deferred is complete.
+     */
+    public final boolean isComplete() {
+        final Object state = _state;
+
+        return (state == SUCCESS) || (state instanceof FailureState);
+    }
+
+    @Override
+    public final void completeTo(final Object completable) {
+        final Object state = _state;
+
+        if (state == SUCCESS) {
+            completeSuccess(completable);
+        } else {
+            completeFailure(completable, ((FailureState) state)._cause);
+        }
+    }
+
+    /**
+     * Completes the specified completable with the value.
+     * 
+     * @param completable The completable.
+     */
+    abstract void completeSuccess(Object completable);
+
+    /**
+     * Completes the specified completable with the specified cause.
+     * 
+     * @param completable The completable.
+     * @param cause The cause.
+     */
+    abstract void completeFailure(Object completable, Throwable cause);
+
+    /**
+     * Initializes the deferred as succeeded after the value has been written.
+     */
+    final void initSuccess() {
+        _state = SUCCESS;
+    }
+
+    /**
+     * Initializes the deferred as failed.
+     * 
+     * @param cause The cause.
+     */
+    final void initFailure(final Throwable cause) {
+        if (cause == null) {
+            throw new IllegalArgumentException("Cause must not be null");
+        }
+
+        _state = new FailureState(cause);
+    }
+
+    /**
+     * Returns a value indicating whether the deferred has succeeded.
+     * 
+     * @return A value indicating whether the deferred has succeeded.
+     */
+    final boolean isSuccess() {
+        return (_state == SUCCESS);
+    }
+
+    /**
+     * Returns the cause of the failed deferred.
+     * 
+     * @return The cause or {@code null} if the deferred has not failed.
+     */
+    final Throwable getCause() {
+        final Object state = _state;
+
+        return (state instanceof FailureState) ? ((FailureState) state)._cause : null;
+    }
+
+    /**
+     * Claims the deferred for completion.
+     * 
+     * @return The pending stages or {@link #CLAIM_FAILED} if the deferred is already complete.
+     */
+    final Object claim() {
+        while (true) {
+            final Object state = _state;
+
+            if (isClaimed(state)) {
+                return CLAIM_FAILED;
+            }
+            if (STATE_UPDATER.compareAndSet(this, state, COMPLETING)) {
+                return state;
+            }
+        }
+    }
+
+    /**
+     * Publishes the success of the claimed deferred after the value has been written.
+     * 
+     * @param stages The pending stages.
+     */
+    final void succeed(final Object stages) {
+        publish(SUCCESS, stages);
+    }
+
+    /**
+     * Publishes the specified complete state of the claimed deferred and completes the specified pending stages and the
+     * stages added while completing.
+     * 
+     * @param state The complete state.
+     * @param stages The pending stages.
+     */
+    private void publish(final Object state, final Object stages) {
+        final Object completingStages = STATE_UPDATER.getAndSet(this, state);
+
+        completeStages(stages);
+        completeStages(completingStages);
+    }
+
+    /**
+     * Returns a value indicating whether the specified state is a completing or complete state.
+     * 
+     * @param state The state.
+     * @return A value indicating whether the state is a completing or complete state.
+     */
+    private static boolean isClaimed(final Object state) {
+        return (state == COMPLETING) || (state == SUCCESS) || (state instanceof FailureState) || ((state instanceof Stage) && ((Stage) state)._completing);
+    }
+
+    /**
+     * Adds the specified completable.
+     * 
+     * @param completable The completable.
+     */
+    final void addCompletable(final Object completable) {
+        Stage stage = null;
+
+        while (true) {
+            final Object state = _state;
+
+            if ((state == SUCCESS) || (state instanceof FailureState)) {
+                Deferred.dispatch(this, completable);
+
+                return;
+            }
+            // The first completable is stored as is, only further completables require a stage.
+            final Object newState;
+
+            if (state == null) {
+                newState = completable;
+            } else {
+                final boolean completing = (state == COMPLETING) || ((state instanceof Stage) && ((Stage) state)._completing);
+
+                if ((stage == null) || (stage._completing != completing)) {
+                    stage = new Stage(completable, completing);
+                }
+                stage._next = state;
+                newState = stage;
+            }
+            if (STATE_UPDATER.compareAndSet(this, state, newState)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Completes the specified stages.
+     * 
+     * @param stages The stages.
+     */
+    private void completeStages(final Object stages) {
+        if ((stages == null) || (stages == COMPLETING)) {
+            return;
+        }
+        if (!(stages instanceof Stage)) {
+            completeStage(stages);
+
+            return;
+        }
+        // The stack holds the completables in reverse order, so it is reversed in place to complete the completables
+        // in the order they have been added.
+        Stage stage = (Stage) stages;
+        Stage reversed = null;
+        Object first;
+
+        while (true) {
+            final Object next = stage._next;
+
+            stage._next = reversed;
+            reversed = stage;
+            if (!(next instanceof Stage)) {
+                first = next;
+                break;
+            }
+            stage = (Stage) next;
+        }
+        if ((first != null) && (first != COMPLETING)) {
+            completeStage(first);
+        }
+        for (stage = reversed; stage != null; stage = (Stage) stage._next) {
+            completeStage(stage._completable);
+        }
+    }
+
+    /**
+     * Completes the specified completable.
+     * 
+     * @param completable The completable.
+     */
+    private void completeStage(final Object completable) {
+        try {
+            Deferred.dispatch(this, completable);
+        } catch (final Throwable t) {
+            LOGGER.warn("Failed to complete stage", t);
+        }
+    }
+
+    /**
+     * Represents a failure state.
+     */
+    private static final class FailureState {
+
+        /**
+         * The cause.
+         */
+        private final Throwable _cause;
+
+        /**
+         * Initializes a new instance of the {@link FailureState} class.
+         * 
+         * @param cause The cause.
+         */
+        public FailureState(final Throwable cause) {
+            _cause = cause;
+        }
+    }
+
+    /**
+     * Represents a stage of the completable stack.
+     */
+    private static final class Stage {
+
+        /**
+         * The completable.
+         */
+        private final Object _completable;
+
+        /**
+         * A value indicating whether the stage has been added while completing.
+         */
+        private final boolean _completing;
+
+        /**
+         * The next stage, the first completable or the completing state.
+         */
+        private Object _next;
+
+        /**
+         * Initializes a new instance of the {@link Stage} class.
+         * 
+         * @param completable The completable.
+         * @param completing A value indicating whether the stage is added while completing.
+         */
+        public Stage(final Object completable, final boolean completing) {
+            _completable = completable;
+            _completing = completing;
+        }
+    }
+}
@@ -16,8 +16,13 @@
 
 package org.util.concurrent.promise;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -49,7 +54,7 @@ public final class Promises {
      * @return The promise.
      */
     public static <T> Promise<T> newSuccess(final T value) {
-        return new Deferred<>(value);
+        return Deferred.newSuccess(value);
     }
 
     /**
@@ -59,11 +64,14 @@ public final class Promises {
      * @return The promise.
      */
     public static <T> Promise<T> newFailure(final Throwable cause) {
-        return new Deferred<>(cause);
+        return Deferred.newFailure(cause);
     }
 
     /**
      * Returns a new promise based on the execution of the specified runnable.
+     * <p>
+     * The runnable is executed synchronously on the current thread, see
+     * {@link #runAsync(Runnable, Executor)} for asynchronous execution.
      * 
      * @param runnable The runnable.
      * @return The promise.
@@ -84,6 +92,9 @@ public final class Promises {
 
     /**
      * Returns a new promise based on the execution of the specified callable.
+     * <p>
+     * The callable is executed synchronously on the current thread, see
+     * {@link #supplyAsync(Callable, Executor)} for asynchronous execution.
      * 
      * @param callable The callable.
      * @return The promise.
@@ -102,19 +113,558 @@ public final class Promises {
         }
     }
 
+    /**
+     * Returns a new promise based on the asynchronous execution of the specified callable.
+     * <p>
+     * On runtimes supporting virtual threads, the callable runs on a new virtual thread, so blocking callables can be
+     * bridged into promise chains without occupying a platform thread each. Other runtimes run the callable on a cached
+     * pool of daemon platform threads. The callable is skipped if the promise has been cancelled before it started.
+     * 
+     * @param callable The callable.
+     * @return The promise.
+     */
+    public static <V> Promise<V> async(final Callable<V> callable) {
+        return supplyAsync(callable, VirtualThreads.getExecutor());
+    }
+
+    /**
+     * Returns a new promise based on the asynchronous execution of the specified callable on the specified executor.
+     * <p>
+     * The callable is skipped if the promise has been cancelled before it started. The promise fails if the executor
+     * rejects the callable.
+     * 
+     * @param callable The callable.
+     * @param executor The executor.
+     * @return The promise.
+     */
+    public static <V> Promise<V> supplyAsync(final Callable<V> callable, final Executor executor) {
+        if (callable == null) {
+            throw new IllegalArgumentException("Callable must not be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor must not be null");
+        }
+
+        return execute(new AsyncTask<V>(callable), executor);
+    }
+
+    /**
+     * Returns a new promise based on the asynchronous execution of the specified runnable on the specified executor.
+     * <p>
+     * The runnable is skipped if the promise has been cancelled before it started. The promise fails if the executor
+     * rejects the runnable.
+     * 
+     * @param runnable The runnable.
+     * @param executor The executor.
+     * @return The promise.
+     */
+    public static Promise<Void> runAsync(final Runnable runnable, final Executor executor) {
+        if (runnable == null) {
+            throw new IllegalArgumentException("Runnable must not be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor must not be null");
+        }
+
+        return execute(new AsyncTask<Void>(runnable, null), executor);
+    }
+
+    /**
+     * Returns new promises based on the asynchronous execution of the specified callables on the specified executor.
+     * <p>
+     * The callables are submitted in batches of the specified size, each batch as a single task running its callables
+     * sequentially in iteration order. Batching many small callables reduces contention on the queue of the executor at
+     * the cost of parallelism within a batch. The promises of a batch fail if the executor rejects the batch.
+     * 
+     * @param callables The callables.
+     * @param executor The executor.
+     * @param batchSize The maximum number of callables per task.
+     * @return The promises in iteration order.
+     */
+    public static <V> List<Promise<V>> supplyAsync(final Collection<? extends Callable<? extends V>> callables, final Executor executor, final int batchSize) {
+        if (callables == null) {
+            throw new IllegalArgumentException("Callables must not be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor must not be null");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+
+        for (final Callable<? extends V> callable : callables) {
+            if (callable == null) {
+                throw new IllegalArgumentException("Callable must not be null");
+            }
+        }
+
+        final int size = callables.size();
+        final List<Promise<V>> result = new ArrayList<>(size);
+
+        AsyncTask<?>[] tasks = null;
+        int index = 0;
+
+        for (final Callable<? extends V> callable : callables) {
+            if (tasks == null) {
+                tasks = new AsyncTask<?>[Math.max(1, Math.min(batchSize, size - result.size()))];
+                index = 0;
+            }
+
+            final AsyncTask<V> task = new AsyncTask<V>(callable);
+
+            tasks[index++] = task;
+            result.add(task.getResult());
+
+            if (index == tasks.length) {
+                execute(new AsyncBatch(tasks), executor);
+                tasks = null;
+            }
+        }
+
+        if (tasks != null) {
+            execute(new AsyncBatch(Arrays.copyOf(tasks, index)), executor);
+        }
+
+        return result;
+    }
+
+    /**
+     * Executes the specified task on the specified executor.
+     * 
+     * @param task The task.
+     * @param executor The executor.
+     * @return The promise of the task.
+     */
+    private static <V> Promise<V> execute(final AsyncTask<V> task, final Executor executor) {
+        try {
+            executor.execute(task);
+        } catch (final Throwable t) {
+            task.reject(t);
+        }
+
+        return task.getResult();
+    }
+
+    /**
+     * Executes the specified batch on the specified executor.
+     * 
+     * @param batch The batch.
+     * @param executor The executor.
+     */
+    private static void execute(final AsyncBatch batch, final Executor executor) {
+        try {
+            executor.execute(batch);
+        } catch (final Throwable t) {
+            batch.reject(t);
+        }
+    }
+
+    /**
+     * Returns a boxing promise for the specified {@code long} promise.
+     * 
+     * @param promise The promise.
+     * @return The promise.
+     */
+    public static Promise<Long> boxed(final LongPromise promise) {
+        if (promise == null) {
+            throw new IllegalArgumentException("Promise must not be null");
+        }
+
+        final Deferred<Long> result = new Deferred<>();
+
+        promise.then(new LongCompletable() {
+            @Override
+            public void setSuccess(final long value) {
+                result.setSuccess(value);
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+                result.setFailure(cause);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns an unboxing {@code long} promise for the specified promise.
+     * <p>
+     * The promise fails with a {@link NullPointerException} if the specified promise succeeds with {@code null}.
+     * 
+     * @param promise The promise.
+     * @return The promise.
+     */
+    public static LongPromise toLongPromise(final Promise<? extends Long> promise) {
+        if (promise == null) {
+            throw new IllegalArgumentException("Promise must not be null");
+        }
+
+        final LongDeferred result = new LongDeferred();
+
+        promise.then(new Completable<Long>() {
+            @Override
+            public void setSuccess(final Long value) {
+                if (value == null) {
+                    result.setFailure(new NullPointerException("Value must not be null"));
+                } else {
+                    result.setSuccess(value);
+                }
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+                result.setFailure(cause);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns a boxing promise for the specified {@code int} promise.
+     * 
+     * @param promise The promise.
+     * @return The promise.
+     */
+    public static Promise<Integer> boxed(final IntPromise promise) {
+        if (promise == null) {
+            throw new IllegalArgumentException("Promise must not be null");
+        }
+
+        final Deferred<Integer> result = new Deferred<>();
+
+        promise.then(new IntCompletable() {
+            @Override
+            public void setSuccess(final int value) {
+                result.setSuccess(value);
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+                result.setFailure(cause);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns an unboxing {@code int} promise for the specified promise.
+     * <p>
+     * The promise fails with a {@link NullPointerException} if the specified promise succeeds with {@code null}.
+     * 
+     * @param promise The promise.
+     * @return The promise.
+     */
+    public static IntPromise toIntPromise(final Promise<? extends Integer> promise) {
+        if (promise == null) {
+            throw new IllegalArgumentException("Promise must not be null");
+        }
+
+        final IntDeferred result = new IntDeferred();
+
+        promise.then(new Completable<Integer>() {
+            @Override
+            public void setSuccess(final Integer value) {
+                if (value == null) {
+                    result.setFailure(new NullPointerException("Value must not be null"));
+                } else {
+                    result.setSuccess(value);
+                }
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+                result.setFailure(cause);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns a boxing promise for the specified {@code double} promise.
+     * 
+     * @param promise The promise.
+     * @return The promise.
+     */
+    public static Promise<Double> boxed(final DoublePromise promise) {
+        if (promise == null) {
+            throw new IllegalArgumentException("Promise must not be null");
+        }
+
+        final Deferred<Double> result = new Deferred<>();
+
+        promise.then(new DoubleCompletable() {
+            @Override
+            public void setSuccess(final double value) {
+                result.setSuccess(value);
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+                result.setFailure(cause);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns an unboxing {@code double} promise for the specified promise.
+     * <p>
+     * The promise fails with a {@link NullPointerException} if the specified promise succeeds with {@code null}.
+     * 
+     * @param promise The promise.
+     * @return The promise.
+     */
+    public static DoublePromise toDoublePromise(final Promise<? extends Double> promise) {
+        if (promise == null) {
+            throw new IllegalArgumentException("Promise must not be null");
+        }
+
+        final DoubleDeferred result = new DoubleDeferred();
+
+        promise.then(new Completable<Double>() {
+            @Override
+            public void setSuccess(final Double value) {
+                if (value == null) {
+                    result.setFailure(new NullPointerException("Value must not be null"));
+                } else {
+                    result.setSuccess(value);
+                }
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+                result.setFailure(cause);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns a promise for the mapped values of the specified items with at most the specified number of pending
+     * mappings.
+     * <p>
+     * The items are mapped in iteration order as permits of an {@link AsyncSemaphore} become available. The promise
+     * succeeds with the values in iteration order once all mappings succeeded and fails with the cause of the first
+     * failed mapping.
+     * 
+     * @param items The items.
+     * @param limit The maximum number of pending mappings.
+     * @param compose The compose continuation.
+     * @return The promise.
+     */
+    public static <T, R> Promise<List<R>> mapConcurrently(final Collection<? extends T> items, final int limit, final Compose<? super T, ? extends R> compose) {
+        if (items == null) {
+            throw new IllegalArgumentException("Items must not be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (compose == null) {
+            throw new IllegalArgumentException("Compose must not be null");
+        }
+
+        return MapConcurrently.map(items, limit, compose);
+    }
+
+    /**
+     * Returns a promise for the values of the specified promises.
+     * <p>
+     * The promise succeeds with the values in iteration order once all promises succeeded and fails with the cause of
+     * the first failed promise.
+     * 
+     * @param promises The promises.
+     * @return The promise.
+     */
+    public static <T> Promise<List<T>> all(final Collection<? extends Promise<? extends T>> promises) {
+        if (promises == null) {
+            throw new IllegalArgumentException("Promises must not be null");
+        }
+
+        return All.all(promises);
+    }
+
+    /**
+     * Returns a promise for the outcomes of the specified promises.
+     * <p>
+     * The promise succeeds with the outcomes in iteration order once all promises are complete and never fails.
+     * 
+     * @param promises The promises.
+     * @return The promise.
+     */
+    public static <T> Promise<List<Outcome<T>>> allSettled(final Collection<? extends Promise<? extends T>> promises) {
+        if (promises == null) {
+            throw new IllegalArgumentException("Promises must not be null");
+        }
+
+        return All.allSettled(promises);
+    }
+
+    /**
+     * Returns a promise which completes like the first complete of the specified promises.
+     * <p>
+     * Once the race is settled or the promise has been cancelled, the pending deferreds among the promises are released
+     * as dependents, so a deferred without other dependents is cancelled.
+     * 
+     * @param promises The promises.
+     * @return The promise.
+     */
+    public static <T> Promise<T> race(final Collection<? extends Promise<? extends T>> promises) {
+        if (promises == null) {
+            throw new IllegalArgumentException("Promises must not be null");
+        }
+
+        return Race.race(promises);
+    }
+
+    /**
+     * Returns a promise which succeeds like the first successful of the specified promises.
+     * <p>
+     * The promise fails once all promises failed, with their causes attached as suppressed exceptions in iteration
+     * order. Once the race is settled or the promise has been cancelled, the pending deferreds among the promises are
+     * released as dependents, so a deferred without other dependents is cancelled.
+     * 
+     * @param promises The promises.
+     * @return The promise.
+     */
+    public static <T> Promise<T> any(final Collection<? extends Promise<? extends T>> promises) {
+        if (promises == null) {
+            throw new IllegalArgumentException("Promises must not be null");
+        }
+
+        return Race.any(promises);
+    }
+
+    /**
+     * Returns a promise which completes like the specified promise or fails with a {@link TimeoutException} when the
+     * specified timeout elapses first.
+     * <p>
+     * The timeout is tracked by a shared hashed wheel timer and removed once the promise completes first. A timeout
+     * fails the promise on the timer thread.
+     * 
+     * @param promise The promise.
+     * @param timeout The timeout.
+     * @param timeUnit The time unit.
+     * @return The promise.
+     */
+    public static <T> Promise<T> timeout(final Promise<T> promise, final long timeout, final TimeUnit timeUnit) {
+        if (promise == null) {
+            throw new IllegalArgumentException("Promise must not be null");
+        }
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+        if (promise.isComplete()) {
+            return promise;
+        }
+
+        final Deferred<T> result = new Deferred<>();
+        final HashedWheelTimer.Timeout task = HashedWheelTimer.getShared().schedule(new Runnable() {
+            @Override
+            public void run() {
+                result.tryFailure(new TimeoutException("A timeout occured while waiting for completion"));
+            }
+        }, timeout, timeUnit);
+
+        // The completion of the result removes the timeout from the timer.
+        result.then(task);
+        // The result may have timed out by the time the promise completes.
+        Forward.forward(promise, result);
+
+        return result;
+    }
+
+    /**
+     * Returns a promise which succeeds after the specified delay.
+     * 
+     * @param delay The delay.
+     * @param timeUnit The time unit.
+     * @return The promise.
+     */
+    public static Promise<Void> delay(final long delay, final TimeUnit timeUnit) {
+        return delay(delay, timeUnit, null);
+    }
+
+    /**
+     * Returns a promise which succeeds with the specified value after the specified delay.
+     * <p>
+     * The delay is tracked by a shared hashed wheel timer and the promise succeeds on the timer thread. Cancelling the
+     * promise removes the delay from the timer.
+     * 
+     * @param delay The delay.
+     * @param timeUnit The time unit.
+     * @param value The value.
+     * @return The promise.
+     */
+    public static <T> Promise<T> delay(final long delay, final TimeUnit timeUnit, final T value) {
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+
+        final Deferred<T> result = new Deferred<>();
+        final HashedWheelTimer.Timeout task = HashedWheelTimer.getShared().schedule(new Runnable() {
+            @Override
+            public void run() {
+                result.trySuccess(value);
+            }
+        }, delay, timeUnit);
+
+        result.then(task);
+
+        return result;
+    }
+
+    /**
+     * Returns a promise for the result of the specified operation, which is retried according to the specified policy.
+     * <p>
+     * A failed attempt is retried after the backoff delay of the policy unless the maximum number of attempts or the
+     * maximum elapsed time has been reached, the budget of the policy is exhausted or the attempt has been cancelled.
+     * The promise then fails with the cause of the last attempt. The delays are tracked by a shared hashed wheel timer,
+     * so the retries run on the timer thread. Cancelling the promise cancels the pending attempt or delay.
+     * 
+     * @param operation The operation.
+     * @param policy The policy.
+     * @return The promise.
+     */
+    public static <T> Promise<T> retry(final Callable<? extends Promise<? extends T>> operation, final RetryPolicy policy) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Operation must not be null");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy must not be null");
+        }
+
+        return Retry.retry(operation, policy);
+    }
+
     /**
      * Awaits the specified promise.
+     * <p>
+     * A complete promise returns without blocking or allocating, a pending promise is awaited by spinning briefly and
+     * parking the current thread afterwards. Waiting never holds a monitor, so a waiting virtual thread does not pin its
+     * carrier thread.
      * 
      * @param promise The promise.
      * @return The value.
      * @throws InterruptedException
      * @throws ExecutionException
      */
+    @SuppressWarnings("unchecked")
     public static <T> T await(final Promise<T> promise) throws InterruptedException, ExecutionException {
         if (promise == null) {
             throw new IllegalArgumentException("Promise must not be null");
         }
 
+        final Object value = Deferred.poll(promise);
+
+        if (value != Deferred.PENDING) {
+            return (T) value;
+        }
         final CompletableFuture<T> future = new CompletableFuture<>();
 
         promise.then(future);
@@ -133,11 +683,17 @@ public final class Promises {
      * @throws ExecutionException
      * @throws TimeoutException
      */
+    @SuppressWarnings("unchecked")
     public static <T> T await(final Promise<T> promise, final long timeout, final TimeUnit timeUnit) throws InterruptedException, ExecutionException, TimeoutException {
         if (promise == null) {
             throw new IllegalArgumentException("Promise must not be null");
         }
 
+        final Object value = Deferred.poll(promise);
+
+        if (value != Deferred.PENDING) {
+            return (T) value;
+        }
         final CompletableFuture<T> future = new CompletableFuture<>();
 
         promise.then(future);
@@ -147,6 +703,8 @@ public final class Promises {
 
     /**
      * Returns a future for the specified promise.
+     * <p>
+     * Cancelling the future releases the promise, which is cancelled once all its dependents have been cancelled.
      * 
      * @param promise The promise.
      * @return The future.
@@ -156,10 +714,29 @@ public final class Promises {
             throw new IllegalArgumentException("Promise must not be null");
         }
 
-        final CompletableFuture<T> future = new CompletableFuture<>();
+        final CompletableFuture<T> future = new CompletableFuture<>(promise);
 
         promise.then(future);
 
         return future;
     }
+
+    /**
+     * Tries to cancel the specified promise.
+     * 
+     * @param promise The promise.
+     * @return A value indicating whether the promise has been cancelled.
+     * @see Deferred#cancel()
+     */
+    public static boolean cancel(final Promise<?> promise) {
+        if (promise == null) {
+            throw new IllegalArgumentException("Promise must not be null");
+        }
+
+        if (promise instanceof PooledDeferred) {
+            return ((PooledDeferred<?>) promise).cancel();
+        }
+
+        return (promise instanceof Deferred) && ((Deferred<?>) promise).cancel();
+    }
 }
@@ -0,0 +1,303 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Represents a race between a collection of promises.
+ * <p>
+ * The first qualifying completion wins the race by atomically taking the result, which detaches the race from the
+ * result and from all collected causes. The elements are observers, which are added to deferreds as removable
+ * dependents. Once the race is settled or its result has been cancelled, the elements are removed from the losing
+ * deferreds and the losers are released as dependents, so a loser without other dependents is cancelled and no loser
+ * keeps a stage of the race.
+ * 
+ * @param <T> The value type.
+ */
+final class Race<T> implements Runnable {
+
+    /**
+     * The result updater.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Race, Deferred> RESULT_UPDATER = AtomicReferenceFieldUpdater.newUpdater(Race.class, Deferred.class, "_result");
+
+    /**
+     * The remaining updater.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<Race> REMAINING_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Race.class, "_remaining");
+
+    /**
+     * The registration of a released element.
+     */
+    private static final Deferred.Registration RELEASED = new Deferred.Registration(null, null);
+
+    /**
+     * A value indicating whether only successes qualify.
+     */
+    private final boolean _any;
+
+    /**
+     * The deferreds or {@code null} for other promises and released elements.
+     */
+    private final Deferred<?>[] _deferreds;
+
+    /**
+     * The registrations, {@code null} or {@link #RELEASED}.
+     */
+    private final AtomicReferenceArray<Deferred.Registration> _registrations;
+
+    /**
+     * The causes or {@code null} if the race has been settled.
+     */
+    private volatile Throwable[] _causes;
+
+    /**
+     * The result or {@code null} if the race has been settled.
+     */
+    private volatile Deferred<T> _result;
+
+    /**
+     * The number of remaining promises.
+     */
+    private volatile int _remaining;
+
+    /**
+     * Initializes a new instance of the {@link Race} class.
+     * 
+     * @param count The number of promises.
+     * @param any A value indicating whether only successes qualify.
+     */
+    private Race(final int count, final boolean any) {
+        _any = any;
+        _deferreds = new Deferred<?>[count];
+        _registrations = new AtomicReferenceArray<>(count);
+        _causes = any ? new Throwable[count] : null;
+        _result = new Deferred<>();
+
+        _remaining = count;
+    }
+
+    /**
+     * Returns a promise which completes like the first complete promise.
+     * 
+     * @param promises The promises.
+     * @return The promise.
+     */
+    public static <T> Promise<T> race(final Collection<? extends Promise<? extends T>> promises) {
+        return start(promises, false);
+    }
+
+    /**
+     * Returns a promise which succeeds like the first successful promise or fails when all promises failed.
+     * 
+     * @param promises The promises.
+     * @return The promise.
+     */
+    public static <T> Promise<T> any(final Collection<? extends Promise<? extends T>> promises) {
+        return start(promises, true);
+    }
+
+    /**
+     * Starts a race between the specified promises.
+     * 
+     * @param promises The promises.
+     * @param any A value indicating whether only successes qualify.
+     * @return The promise.
+     */
+    private static <T> Promise<T> start(final Collection<? extends Promise<? extends T>> promises, final boolean any) {
+        final int count = promises.size();
+
+        if (count == 0) {
+            throw new IllegalArgumentException("Promises must not be empty");
+        }
+        // The promises are validated up front, so a rejected collection leaves no elements behind.
+        for (final Promise<? extends T> promise : promises) {
+            if (promise == null) {
+                throw new IllegalArgumentException("Promise must not be null");
+            }
+        }
+
+        final Race<T> race = new Race<>(count, any);
+        final Deferred<T> result = race._result;
+        int index = 0;
+
+        result.onCancel(race);
+        for (final Promise<? extends T> promise : promises) {
+            if (race._result == null) {
+                break;
+            }
+
+            race.add(index++, promise);
+        }
+
+        return result;
+    }
+
+    /**
+     * Releases the losers once the result has been cancelled.
+     */
+    @Override
+    public void run() {
+        if (RESULT_UPDATER.getAndSet(this, null) != null) {
+            _causes = null;
+            releaseAll();
+        }
+    }
+
+    /**
+     * Adds an element for the specified promise.
+     * 
+     * @param index The index of the promise.
+     * @param promise The promise.
+     */
+    @SuppressWarnings("unchecked")
+    private void add(final int index, final Promise<? extends T> promise) {
+        final Element element = new Element(index);
+
+        if (!(promise instanceof Deferred)) {
+            promise.then(element);
+
+            return;
+        }
+        final Deferred<T> deferred = (Deferred<T>) promise;
+
+        _deferreds[index] = deferred;
+        final Deferred.Registration registration = deferred.listenDependent(element);
+
+        // A race settled in the meantime has skipped the element, so it is released here.
+        if (!_registrations.compareAndSet(index, null, registration)) {
+            _deferreds[index] = null;
+            release(deferred, registration);
+        }
+    }
+
+    /**
+     * Releases all elements which have not been released yet.
+     */
+    private void releaseAll() {
+        for (int i = 0; i < _deferreds.length; i++) {
+            final Deferred.Registration registration = _registrations.getAndSet(i, RELEASED);
+
+            if (registration != null) {
+                final Deferred<?> deferred = _deferreds[i];
+
+                _deferreds[i] = null;
+                release(deferred, registration);
+            }
+        }
+    }
+
+    /**
+     * Removes the element of the specified registration and releases the specified deferred unless the element has
+     * already been completed.
+     * 
+     * @param deferred The deferred.
+     * @param registration The registration.
+     */
+    private static void release(final Deferred<?> deferred, final Deferred.Registration registration) {
+        if (registration.remove()) {
+            deferred.releaseDependent();
+        }
+    }
+
+    /**
+     * Settles the race with the specified value.
+     * 
+     * @param value The value.
+     */
+    @SuppressWarnings("unchecked")
+    private void settleSuccess(final T value) {
+        final Deferred<T> result = RESULT_UPDATER.getAndSet(this, null);
+
+        if (result != null) {
+            _causes = null;
+            result.trySuccess(value);
+            releaseAll();
+        }
+    }
+
+    /**
+     * Settles the race with the specified cause.
+     * 
+     * @param cause The cause.
+     */
+    @SuppressWarnings("unchecked")
+    private void settleFailure(final Throwable cause) {
+        final Deferred<T> result = RESULT_UPDATER.getAndSet(this, null);
+
+        if (result != null) {
+            _causes = null;
+            result.tryFailure(cause);
+            releaseAll();
+        }
+    }
+
+    /**
+     * Represents an element observer.
+     */
+    private final class Element implements Observer<T> {
+
+        /**
+         * The index.
+         */
+        private final int _index;
+
+        /**
+         * Initializes a new instance of the {@link Element} class.
+         * 
+         * @param index The index.
+         */
+        public Element(final int index) {
+            _index = index;
+        }
+
+        @Override
+        public void setSuccess(final T value) {
+            settleSuccess(value);
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+            if (!_any) {
+                settleFailure(cause);
+
+                return;
+            }
+            final Throwable[] causes = _causes;
+
+            if (causes == null) {
+                return;
+            }
+            causes[_index] = cause;
+            // The atomic decrement publishes the cause to the thread failing the result.
+            if (REMAINING_UPDATER.decrementAndGet(Race.this) == 0) {
+                final Exception exception = new Exception("All promises failed");
+
+                for (final Throwable c : causes) {
+                    exception.addSuppressed(c);
+                }
+                settleFailure(exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents the retries of an asynchronous operation according to a {@link RetryPolicy}.
+ * <p>
+ * The attempts run one after another, so the attempt counter and the previous delay are only accessed by the current
+ * attempt. The delays are scheduled on the shared hashed wheel timer. Cancelling the result cancels the pending attempt
+ * or delay.
+ * 
+ * @param <T> The value type.
+ */
+final class Retry<T> implements Completable<T>, Runnable {
+
+    /**
+     * The operation.
+     */
+    private final Callable<? extends Promise<? extends T>> _operation;
+
+    /**
+     * The policy.
+     */
+    private final RetryPolicy _policy;
+
+    /**
+     * The result.
+     */
+    private final Deferred<T> _result;
+
+    /**
+     * The start time in nanoseconds.
+     */
+    private final long _startTime;
+
+    /**
+     * The number of started attempts.
+     */
+    private int _attempts;
+
+    /**
+     * The previous delay in nanoseconds.
+     */
+    private long _previousDelay;
+
+    /**
+     * The promise of the pending attempt, the timeout of the pending delay or {@code null}.
+     */
+    private volatile Object _pending;
+
+    /**
+     * Initializes a new instance of the {@link Retry} class.
+     * 
+     * @param operation The operation.
+     * @param policy The policy.
+     */
+    private Retry(final Callable<? extends Promise<? extends T>> operation, final RetryPolicy policy) {
+        _operation = operation;
+        _policy = policy;
+        _result = new Deferred<>();
+        _startTime = System.nanoTime();
+
+        _attempts = 0;
+        _previousDelay = 0;
+    }
+
+    /**
+     * Returns a promise for the result of the specified operation, which is retried according to the specified policy.
+     * 
+     * @param operation The operation.
+     * @param policy The policy.
+     * @return The promise.
+     */
+    public static <T> Promise<T> retry(final Callable<? extends Promise<? extends T>> operation, final RetryPolicy policy) {
+        final Retry<T> retry = new Retry<T>(operation, policy);
+
+        retry._result.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                retry.cancelPending();
+            }
+        });
+        retry.attempt();
+
+        return retry._result;
+    }
+
+    @Override
+    public void run() {
+        attempt();
+    }
+
+    @Override
+    public void setSuccess(final T value) {
+        _result.trySuccess(value);
+    }
+
+    @Override
+    public void setFailure(final Throwable cause) {
+        if (!shouldRetry(cause)) {
+            _result.tryFailure(cause);
+
+            return;
+        }
+        final long delay = _policy.nextDelay(_attempts, _previousDelay);
+        final long elapsedTime = System.nanoTime() - _startTime;
+
+        if (delay > (_policy.getMaxElapsedTime() - elapsedTime)) {
+            _result.tryFailure(cause);
+
+            return;
+        }
+        final RetryBudget budget = _policy.getBudget();
+
+        if ((budget != null) && !budget.tryAcquire()) {
+            _result.tryFailure(cause);
+
+            return;
+        }
+        _previousDelay = delay;
+        final HashedWheelTimer.Timeout timeout = HashedWheelTimer.getShared().schedule(this, delay, TimeUnit.NANOSECONDS);
+
+        _pending = timeout;
+        // A result cancelled before the timeout has been published has missed it, so it is cancelled here.
+        if (_result.isComplete()) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * Starts the next attempt unless the result is complete.
+     */
+    private void attempt() {
+        if (_result.isComplete()) {
+            return;
+        }
+        ++_attempts;
+
+        final Promise<? extends T> promise;
+
+        try {
+            promise = _operation.call();
+        } catch (final Throwable t) {
+            setFailure(t);
+
+            return;
+        }
+        if (promise == null) {
+            setFailure(new NullPointerException("Operation must not return null"));
+
+            return;
+        }
+        _pending = promise;
+        // A result cancelled before the attempt has been published has missed it, so it is cancelled here.
+        if (_result.isComplete()) {
+            Promises.cancel(promise);
+
+            return;
+        }
+        promise.then(this);
+    }
+
+    /**
+     * Returns a value indicating whether the specified failure of the current attempt is retried.
+     * 
+     * @param cause The cause.
+     * @return A value indicating whether the failure is retried.
+     */
+    private boolean shouldRetry(final Throwable cause) {
+        return !_result.isComplete() && !(cause instanceof CancellationException) && (_attempts < _policy.getMaxAttempts());
+    }
+
+    /**
+     * Cancels the pending attempt or delay.
+     */
+    private void cancelPending() {
+        final Object pending = _pending;
+
+        if (pending instanceof HashedWheelTimer.Timeout) {
+            ((HashedWheelTimer.Timeout) pending).cancel();
+        } else if (pending instanceof Promise) {
+            Promises.cancel((Promise<?>) pending);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Represents a token bucket which limits the rate of retries.
+ * <p>
+ * Every retry withdraws a token and tokens are refilled at a fixed rate up to the capacity, so a shared budget bounds
+ * the retries of all callers while a backend is degraded. The bucket is stored as the single time at which it was
+ * empty, which is advanced by one refill interval per withdrawn token, so a withdrawal is a single compare and swap.
+ */
+public final class RetryBudget {
+
+    /**
+     * The empty time updater.
+     */
+    private static final AtomicLongFieldUpdater<RetryBudget> EMPTY_TIME_UPDATER = AtomicLongFieldUpdater.newUpdater(RetryBudget.class, "_emptyTime");
+
+    /**
+     * The capacity.
+     */
+    private final int _capacity;
+
+    /**
+     * The refill interval of a token in nanoseconds.
+     */
+    private final long _refillInterval;
+
+    /**
+     * The time in nanoseconds at which the bucket was empty.
+     */
+    private volatile long _emptyTime;
+
+    /**
+     * Initializes a new instance of the {@link RetryBudget} class.
+     * <p>
+     * The bucket is initially full.
+     * 
+     * @param capacity The capacity.
+     * @param tokens The number of tokens refilled per period.
+     * @param period The period.
+     * @param timeUnit The time unit.
+     */
+    public RetryBudget(final int capacity, final int tokens, final long period, final TimeUnit timeUnit) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (tokens <= 0) {
+            throw new IllegalArgumentException("Tokens must be positive");
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+
+        _capacity = capacity;
+        _refillInterval = Math.max(1, timeUnit.toNanos(period) / tokens);
+
+        _emptyTime = System.nanoTime() - fullDuration();
+    }
+
+    /**
+     * Tries to withdraw a token.
+     * 
+     * @return A value indicating whether a token has been withdrawn.
+     */
+    public boolean tryAcquire() {
+        final long now = System.nanoTime();
+        long emptyTime;
+        long next;
+
+        do {
+            emptyTime = _emptyTime;
+            // A full bucket does not accumulate further tokens.
+            next = Math.max(emptyTime, now - fullDuration()) + _refillInterval;
+            if (next - now > 0) {
+                return false;
+            }
+        } while (!EMPTY_TIME_UPDATER.compareAndSet(this, emptyTime, next));
+
+        return true;
+    }
+
+    /**
+     * Returns the number of available tokens.
+     * 
+     * @return The number of available tokens.
+     */
+    public int getAvailableTokens() {
+        final long tokens = (System.nanoTime() - _emptyTime) / _refillInterval;
+
+        return (int) Math.max(0, Math.min(tokens, _capacity));
+    }
+
+    /**
+     * Returns the duration in nanoseconds to refill the empty bucket.
+     * 
+     * @return The duration.
+     */
+    private long fullDuration() {
+        return _capacity * _refillInterval;
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents an immutable policy of {@link Promises#retry(java.util.concurrent.Callable, RetryPolicy)}.
+ * <p>
+ * A policy defines the backoff between attempts, the maximum number of attempts, the maximum elapsed time and an
+ * optional shared {@link RetryBudget}. By default a policy makes at most {@value #DEFAULT_MAX_ATTEMPTS} attempts
+ * without an elapsed time limit or budget.
+ */
+public final class RetryPolicy {
+
+    /**
+     * The default maximum number of attempts.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * Defines the backoff strategy.
+     */
+    private enum Backoff {
+
+        /**
+         * The exponential backoff.
+         */
+        EXPONENTIAL,
+
+        /**
+         * The decorrelated jitter backoff.
+         */
+        DECORRELATED_JITTER
+    }
+
+    /**
+     * The backoff strategy.
+     */
+    private final Backoff _backoff;
+
+    /**
+     * The base delay in nanoseconds.
+     */
+    private final long _baseDelay;
+
+    /**
+     * The maximum delay in nanoseconds.
+     */
+    private final long _maxDelay;
+
+    /**
+     * The maximum number of attempts.
+     */
+    private final int _maxAttempts;
+
+    /**
+     * The maximum elapsed time in nanoseconds.
+     */
+    private final long _maxElapsedTime;
+
+    /**
+     * The budget or {@code null}.
+     */
+    private final RetryBudget _budget;
+
+    /**
+     * Initializes a new instance of the {@link RetryPolicy} class.
+     * 
+     * @param backoff The backoff strategy.
+     * @param baseDelay The base delay in nanoseconds.
+     * @param maxDelay The maximum delay in nanoseconds.
+     * @param maxAttempts The maximum number of attempts.
+     * @param maxElapsedTime The maximum elapsed time in nanoseconds.
+     * @param budget The budget or {@code null}.
+     */
+    private RetryPolicy(final Backoff backoff, final long baseDelay, final long maxDelay, final int maxAttempts, final long maxElapsedTime, final RetryBudget budget) {
+        _backoff = backoff;
+        _baseDelay = baseDelay;
+        _maxDelay = maxDelay;
+        _maxAttempts = maxAttempts;
+        _maxElapsedTime = maxElapsedTime;
+        _budget = budget;
+    }
+
+    /**
+     * Returns a policy with an exponential backoff, which doubles the delay after every attempt.
+     * 
+     * @param initialDelay The delay after the first attempt.
+     * @param maxDelay The maximum delay.
+     * @param timeUnit The time unit.
+     * @return The policy.
+     */
+    public static RetryPolicy exponential(final long initialDelay, final long maxDelay, final TimeUnit timeUnit) {
+        return create(Backoff.EXPONENTIAL, initialDelay, maxDelay, timeUnit);
+    }
+
+    /**
+     * Returns a policy with a decorrelated jitter backoff.
+     * <p>
+     * Every delay is chosen uniformly between the base delay and three times the previous delay, which spreads the
+     * retries of concurrent callers failing at the same time.
+     * 
+     * @param baseDelay The base delay.
+     * @param maxDelay The maximum delay.
+     * @param timeUnit The time unit.
+     * @return The policy.
+     */
+    public static RetryPolicy decorrelatedJitter(final long baseDelay, final long maxDelay, final TimeUnit timeUnit) {
+        if (baseDelay <= 0) {
+            throw new IllegalArgumentException("Base delay must be positive");
+        }
+
+        return create(Backoff.DECORRELATED_JITTER, baseDelay, maxDelay, timeUnit);
+    }
+
+    /**
+     * Returns a copy of the policy with the specified maximum number of attempts.
+     * 
+     * @param maxAttempts The maximum number of attempts, including the first attempt.
+     * @return The policy.
+     */
+    public RetryPolicy withMaxAttempts(final int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts must be positive");
+        }
+
+        return new RetryPolicy(_backoff, _baseDelay, _maxDelay, maxAttempts, _maxElapsedTime, _budget);
+    }
+
+    /**
+     * Returns a copy of the policy with the specified maximum elapsed time.
+     * <p>
+     * No attempt is scheduled which would start after the maximum elapsed time since the first attempt.
+     * 
+     * @param maxElapsedTime The maximum elapsed time.
+     * @param timeUnit The time unit.
+     * @return The policy.
+     */
+    public RetryPolicy withMaxElapsedTime(final long maxElapsedTime, final TimeUnit timeUnit) {
+        if (maxElapsedTime < 0) {
+            throw new IllegalArgumentException("Max elapsed time must not be negative");
+        }
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+
+        return new RetryPolicy(_backoff, _baseDelay, _maxDelay, _maxAttempts, timeUnit.toNanos(maxElapsedTime), _budget);
+    }
+
+    /**
+     * Returns a copy of the policy with the specified budget.
+     * <p>
+     * Every retry withdraws a token from the budget and the last failure is returned once the budget is exhausted.
+     * 
+     * @param budget The budget.
+     * @return The policy.
+     */
+    public RetryPolicy withBudget(final RetryBudget budget) {
+        if (budget == null) {
+            throw new IllegalArgumentException("Budget must not be null");
+        }
+
+        return new RetryPolicy(_backoff, _baseDelay, _maxDelay, _maxAttempts, _maxElapsedTime, budget);
+    }
+
+    /**
+     * Returns the maximum number of attempts.
+     * 
+     * @return The maximum number of attempts.
+     */
+    public int getMaxAttempts() {
+        return _maxAttempts;
+    }
+
+    /**
+     * Returns the maximum elapsed time in nanoseconds.
+     * 
+     * @return The maximum elapsed time.
+     */
+    long getMaxElapsedTime() {
+        return _maxElapsedTime;
+    }
+
+    /**
+     * Returns the budget.
+     * 
+     * @return The budget or {@code null}.
+     */
+    RetryBudget getBudget() {
+        return _budget;
+    }
+
+    /**
+     * Returns the delay in nanoseconds after the specified attempt.
+     * 
+     * @param attempt The number of the failed attempt, starting at one.
+     * @param previousDelay The previous delay in nanoseconds or zero after the first attempt.
+     * @return The delay.
+     */
+    long nextDelay(final int attempt, final long previousDelay) {
+        switch (_backoff) {
+        case EXPONENTIAL:
+            // Guard against overflow.
+            if ((attempt > 63) || (_baseDelay > (_maxDelay >> (attempt - 1)))) {
+                return _maxDelay;
+            }
+
+            return _baseDelay << (attempt - 1);
+        default:
+            final long delay = Math.max(_baseDelay, previousDelay);
+            final long upper = (delay > (_maxDelay / 3)) ? _maxDelay : (3 * delay);
+
+            if (upper <= _baseDelay) {
+                return upper;
+            }
+
+            return ThreadLocalRandom.current().nextLong(_baseDelay, upper + 1);
+        }
+    }
+
+    /**
+     * Creates a policy with the specified backoff.
+     * 
+     * @param backoff The backoff strategy.
+     * @param baseDelay The base delay.
+     * @param maxDelay The maximum delay.
+     * @param timeUnit The time unit.
+     * @return The policy.
+     */
+    private static RetryPolicy create(final Backoff backoff, final long baseDelay, final long maxDelay, final TimeUnit timeUnit) {
+        if (baseDelay < 0) {
+            throw new IllegalArgumentException("Base delay must not be negative");
+        }
+        if (maxDelay < baseDelay) {
+            throw new IllegalArgumentException("Max delay must not be less than the base delay");
+        }
+        if (timeUnit == null) {
+            throw new IllegalArgumentException("Time unit must not be null");
+        }
+
+        return new RetryPolicy(backoff, timeUnit.toNanos(baseDelay), timeUnit.toNanos(maxDelay), DEFAULT_MAX_ATTEMPTS, Long.MAX_VALUE, null);
+    }
+}
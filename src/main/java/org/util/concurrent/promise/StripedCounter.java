@@ -0,0 +1,97 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents a counter striped across cache lines to reduce contention between threads.
+ * <p>
+ * Threads are mapped to stripes by their identifier, so a thread keeps updating the same stripe.
+ */
+final class StripedCounter {
+
+    /**
+     * The number of array elements between stripes, covering a cache line of 64 bytes.
+     */
+    private static final int PADDING = 8;
+
+    /**
+     * The padded stripes.
+     */
+    private final AtomicLongArray _stripes;
+
+    /**
+     * The mask of the stripe indices.
+     */
+    private final int _mask;
+
+    /**
+     * Initializes a new instance of the {@link StripedCounter} class.
+     */
+    public StripedCounter() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int stripes = (processors <= 1) ? 1 : Integer.highestOneBit(processors - 1) << 1;
+
+        _stripes = new AtomicLongArray(stripes * PADDING);
+        _mask = stripes - 1;
+    }
+
+    /**
+     * Increments the counter.
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Adds the specified delta.
+     * 
+     * @param delta The delta.
+     */
+    public void add(final long delta) {
+        _stripes.getAndAdd(stripe() * PADDING, delta);
+    }
+
+    /**
+     * Returns the sum of the stripes.
+     * <p>
+     * The sum is not an atomic snapshot while the counter is updated concurrently.
+     * 
+     * @return The sum.
+     */
+    public long sum() {
+        long sum = 0;
+
+        for (int i = 0; i < _stripes.length(); i += PADDING) {
+            sum += _stripes.get(i);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Returns the stripe of the current thread.
+     * 
+     * @return The stripe.
+     */
+    private int stripe() {
+        final long id = Thread.currentThread().getId();
+
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & _mask;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Provides access to virtual threads.
+ * <p>
+ * The library is compiled against Java 7, so the virtual thread per task executor of newer runtimes is resolved
+ * reflectively. Runtimes without virtual threads fall back to a cached pool of daemon platform threads.
+ */
+final class VirtualThreads {
+
+    /**
+     * The private logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+
+    /**
+     * A value indicating whether virtual threads are supported.
+     */
+    private static final boolean SUPPORTED;
+
+    /**
+     * The executor.
+     */
+    private static final Executor EXECUTOR;
+
+    static {
+        final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+
+        SUPPORTED = (executor != null);
+        EXECUTOR = SUPPORTED ? executor : newDaemonThreadPool();
+    }
+
+    /**
+     * Initializes a new instance of the {@link VirtualThreads} class.
+     */
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns a value indicating whether virtual threads are supported.
+     * 
+     * @return A value indicating whether virtual threads are supported.
+     */
+    public static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * Returns the executor which runs each task on a new virtual thread if supported.
+     * 
+     * @return The executor.
+     */
+    public static Executor getExecutor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * Returns a new virtual thread per task executor.
+     * 
+     * @return The executor or {@code null} if virtual threads are not supported.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+
+            return (ExecutorService) method.invoke(null);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        } catch (final Exception e) {
+            // Virtual threads are a preview feature on some runtimes.
+            LOGGER.debug("Failed to create virtual thread per task executor", e);
+
+            return null;
+        }
+    }
+
+    /**
+     * Returns a new cached pool of daemon platform threads.
+     * 
+     * @return The executor.
+     */
+    private static ExecutorService newDaemonThreadPool() {
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "promises-async-" + threadCount.incrementAndGet());
+
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+    }
+}
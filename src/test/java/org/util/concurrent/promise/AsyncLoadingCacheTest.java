@@ -0,0 +1,299 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AsyncLoadingCacheTest {
+
+    @Test
+    public void getTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final CountingLoader loader = new CountingLoader();
+        final AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(loader, 10);
+
+        // Act
+        final Promise<Integer> first = cache.get(1);
+        final Promise<Integer> second = cache.get(1);
+
+        // Assert
+        assertThat(Promises.await(first), is(11));
+        assertSame(first, second);
+        assertThat(loader._loads.get(), is(1));
+    }
+
+    @Test
+    public void getWithPendingLoadTest() {
+        // Arrange
+        final List<Deferred<Integer>> loads = new ArrayList<>();
+        final AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer key) {
+                final Deferred<Integer> load = new Deferred<>();
+
+                loads.add(load);
+
+                return load;
+            }
+        }, 10);
+
+        // Act
+        final Promise<Integer> first = cache.get(1);
+        final Promise<Integer> second = cache.get(1);
+
+        // Assert
+        assertNotSame(first, second);
+        assertThat(loads.size(), is(1));
+    }
+
+    @Test
+    public void getWithCancelTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final List<Deferred<Integer>> loads = new ArrayList<>();
+        final AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(new PendingLoader(loads), 10);
+        final Promise<Integer> first = cache.get(1);
+        final Promise<Integer> second = cache.get(1);
+
+        // Act
+        final boolean cancelled = Promises.cancel(first);
+
+        loads.get(0).setSuccess(11);
+
+        // Assert
+        assertTrue(cancelled);
+        assertThat(Promises.await(second), is(11));
+        assertThat(Promises.await(cache.get(1)), is(11));
+        assertThat(loads.size(), is(1));
+    }
+
+    @Test
+    public void getWithAllCancelledTest() {
+        // Arrange
+        final List<Deferred<Integer>> loads = new ArrayList<>();
+        final AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(new PendingLoader(loads), 10);
+        final Promise<Integer> first = cache.get(1);
+        final Promise<Integer> second = cache.get(1);
+
+        // Act
+        Promises.cancel(first);
+        Promises.cancel(second);
+
+        // Assert
+        assertTrue(loads.get(0).isCancelled());
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getIfPresent(1), is(nullValue()));
+    }
+
+    @Test
+    public void getWithFailureTest() throws InterruptedException {
+        // Arrange
+        final AtomicInteger loads = new AtomicInteger();
+        final AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer key) {
+                loads.incrementAndGet();
+
+                return Promises.newFailure(new Exception());
+            }
+        }, 10);
+
+        // Act
+        final Promise<Integer> promise = cache.get(1);
+
+        cache.get(1);
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(loads.get(), is(2));
+            assertThat(cache.size(), is(0));
+        }
+    }
+
+    @Test
+    public void getWithEvictionTest() {
+        // Arrange
+        final AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(new CountingLoader(), 2);
+
+        cache.get(1);
+        cache.get(2);
+        cache.get(1);
+
+        // Act
+        cache.get(3);
+
+        // Assert
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getIfPresent(1), is(notNullValue()));
+        assertThat(cache.getIfPresent(2), is(nullValue()));
+        assertThat(cache.getIfPresent(3), is(notNullValue()));
+    }
+
+    @Test
+    public void getWithExpiryTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final CountingLoader loader = new CountingLoader();
+        final AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(loader, 10, 20, 0, TimeUnit.MILLISECONDS);
+
+        cache.get(1);
+        Thread.sleep(40);
+
+        // Act
+        final Promise<Integer> expired = cache.getIfPresent(1);
+        final Promise<Integer> promise = cache.get(1);
+
+        // Assert
+        assertThat(expired, is(nullValue()));
+        assertThat(Promises.await(promise), is(12));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void getWithRefreshTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final CountingLoader loader = new CountingLoader();
+        final AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(loader, 10, TimeUnit.SECONDS.toMillis(10), 20, TimeUnit.MILLISECONDS);
+
+        cache.get(1);
+        Thread.sleep(40);
+
+        // Act
+        final Promise<Integer> stale = cache.get(1);
+        final Promise<Integer> refreshed = cache.get(1);
+
+        // Assert
+        assertThat(Promises.await(stale), is(11));
+        assertThat(Promises.await(refreshed), is(12));
+        assertThat(loader._loads.get(), is(2));
+    }
+
+    @Test
+    public void invalidateTest() {
+        // Arrange
+        final CountingLoader loader = new CountingLoader();
+        final AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(loader, 10);
+
+        cache.get(1);
+
+        // Act
+        cache.invalidate(1);
+        cache.get(1);
+
+        // Assert
+        assertThat(loader._loads.get(), is(2));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void getConcurrentlyTest() throws InterruptedException {
+        // Arrange
+        final AsyncLoadingCache<Integer, Integer> cache = new AsyncLoadingCache<>(new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer key) {
+                return Promises.newSuccess(key);
+            }
+        }, 64);
+        final List<Thread> threads = new ArrayList<>();
+        final AtomicInteger failures = new AtomicInteger();
+
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 100000; j++) {
+                            final int key = ThreadLocalRandom.current().nextInt(256);
+
+                            if (Promises.await(cache.get(key)) != key) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    } catch (final InterruptedException | ExecutionException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        // Act
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        // Assert
+        assertThat(failures.get(), is(0));
+        assertThat(cache.size() <= 64, is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorWithInvalidMaximumSizeTest() {
+        // Act
+        new AsyncLoadingCache<>(new CountingLoader(), 0);
+    }
+
+    /**
+     * Represents a loader which succeeds with ten times the key plus the number of loads.
+     */
+    private static final class CountingLoader extends Compose<Integer, Integer> {
+
+        private final AtomicInteger _loads = new AtomicInteger();
+
+        @Override
+        protected Promise<Integer> doCompose(final Integer key) {
+            return Promises.newSuccess((key * 10) + _loads.incrementAndGet());
+        }
+    }
+
+    /**
+     * Represents a loader returning pending loads.
+     */
+    private static final class PendingLoader extends Compose<Integer, Integer> {
+
+        private final List<Deferred<Integer>> _loads;
+
+        public PendingLoader(final List<Deferred<Integer>> loads) {
+            _loads = loads;
+        }
+
+        @Override
+        protected Promise<Integer> doCompose(final Integer key) {
+            final Deferred<Integer> load = new Deferred<>();
+
+            _loads.add(load);
+
+            return load;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AsyncSemaphoreTest {
+
+    @Test
+    public void acquireTest() {
+        // Arrange
+        final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+
+        // Act
+        final Promise<AsyncSemaphore.Permit> permit = semaphore.acquire();
+
+        // Assert
+        assertThat(permit.isComplete(), is(true));
+        assertThat(semaphore.getAvailablePermits(), is(0));
+    }
+
+    @Test
+    public void acquireWithoutPermitsTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+        final Promise<AsyncSemaphore.Permit> first = semaphore.acquire();
+        final Promise<AsyncSemaphore.Permit> second = semaphore.acquire();
+
+        // Act
+        Promises.await(first).release();
+
+        // Assert
+        assertThat(second.isComplete(), is(true));
+        assertThat(semaphore.getAvailablePermits(), is(0));
+        assertThat(semaphore.getQueueLength(), is(0));
+    }
+
+    @Test
+    public void acquireOrderTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+        final Promise<AsyncSemaphore.Permit> first = semaphore.acquire();
+        final Promise<AsyncSemaphore.Permit> second = semaphore.acquire();
+        final Promise<AsyncSemaphore.Permit> third = semaphore.acquire();
+
+        // Act
+        Promises.await(first).release();
+
+        // Assert
+        assertThat(second.isComplete(), is(true));
+        assertThat(third.isComplete(), is(false));
+        assertThat(semaphore.getQueueLength(), is(1));
+    }
+
+    @Test
+    public void acquireWithCancelledWaiterTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+        final Promise<AsyncSemaphore.Permit> first = semaphore.acquire();
+        final Promise<AsyncSemaphore.Permit> second = semaphore.acquire();
+        final Promise<AsyncSemaphore.Permit> third = semaphore.acquire();
+
+        Promises.cancel(second);
+
+        // Act
+        Promises.await(first).release();
+
+        // Assert
+        assertThat(third.isComplete(), is(true));
+        Promises.await(third).release();
+        assertThat(semaphore.getAvailablePermits(), is(1));
+    }
+
+    @Test
+    public void cancelWaiterTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+        final Promise<AsyncSemaphore.Permit> first = semaphore.acquire();
+        final Promise<AsyncSemaphore.Permit> second = semaphore.acquire();
+
+        // Act
+        Promises.cancel(second);
+
+        // Assert
+        assertThat(semaphore.getQueueLength(), is(0));
+        Promises.await(first).release();
+        assertThat(semaphore.getAvailablePermits(), is(1));
+    }
+
+    @Test
+    public void acquireWithCancellationsConcurrentlyTest() throws InterruptedException {
+        // Arrange
+        final int threads = 4;
+        final int iterations = 10000;
+        final AsyncSemaphore semaphore = new AsyncSemaphore(2);
+        final CountDownLatch latch = new CountDownLatch(threads);
+        final List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < iterations; j++) {
+                        final Promise<AsyncSemaphore.Permit> permit = semaphore.acquire();
+
+                        if ((j % 3) == 0) {
+                            Promises.cancel(permit);
+                        }
+                        permit.then(new Completable<AsyncSemaphore.Permit>() {
+                            @Override
+                            public void setSuccess(final AsyncSemaphore.Permit value) {
+                                value.release();
+                            }
+
+                            @Override
+                            public void setFailure(final Throwable cause) {
+                            }
+                        });
+                    }
+                    latch.countDown();
+                }
+            }));
+        }
+
+        // Act
+        for (final Thread worker : workers) {
+            worker.start();
+        }
+        latch.await();
+
+        // Assert
+        assertThat(semaphore.getAvailablePermits(), is(2));
+        assertThat(semaphore.getQueueLength(), is(0));
+    }
+
+    @Test
+    public void releaseTwiceTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+        final AsyncSemaphore.Permit permit = Promises.await(semaphore.acquire());
+
+        // Act
+        permit.release();
+        permit.release();
+
+        // Assert
+        assertThat(semaphore.getAvailablePermits(), is(1));
+    }
+
+    @Test
+    public void tryAcquireTest() {
+        // Arrange
+        final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+
+        // Act
+        final AsyncSemaphore.Permit first = semaphore.tryAcquire();
+        final AsyncSemaphore.Permit second = semaphore.tryAcquire();
+
+        // Assert
+        assertThat(first, is(notNullValue()));
+        assertThat(second, is(nullValue()));
+    }
+
+    @Test
+    public void acquireWithManyWaitersTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final int count = 100000;
+        final AsyncSemaphore semaphore = new AsyncSemaphore(1);
+        final AsyncSemaphore.Permit permit = Promises.await(semaphore.acquire());
+        final AtomicInteger granted = new AtomicInteger();
+
+        for (int i = 0; i < count; i++) {
+            semaphore.acquire().then(new Completable<AsyncSemaphore.Permit>() {
+                @Override
+                public void setSuccess(final AsyncSemaphore.Permit value) {
+                    granted.incrementAndGet();
+                    value.release();
+                }
+
+                @Override
+                public void setFailure(final Throwable cause) {
+                }
+            });
+        }
+
+        // Act
+        permit.release();
+
+        // Assert
+        assertThat(granted.get(), is(count));
+        assertThat(semaphore.getAvailablePermits(), is(1));
+    }
+
+    @Test
+    public void acquireConcurrentlyTest() throws InterruptedException {
+        // Arrange
+        final int threads = 4;
+        final int iterations = 10000;
+        final AsyncSemaphore semaphore = new AsyncSemaphore(2);
+        final AtomicInteger holders = new AtomicInteger();
+        final AtomicInteger maxHolders = new AtomicInteger();
+        final AtomicInteger granted = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(threads);
+        final List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < iterations; j++) {
+                        semaphore.acquire().then(new Completable<AsyncSemaphore.Permit>() {
+                            @Override
+                            public void setSuccess(final AsyncSemaphore.Permit value) {
+                                final int current = holders.incrementAndGet();
+
+                                if (current > maxHolders.get()) {
+                                    maxHolders.set(current);
+                                }
+                                holders.decrementAndGet();
+                                granted.incrementAndGet();
+                                value.release();
+                            }
+
+                            @Override
+                            public void setFailure(final Throwable cause) {
+                            }
+                        });
+                    }
+                    latch.countDown();
+                }
+            }));
+        }
+
+        // Act
+        for (final Thread worker : workers) {
+            worker.start();
+        }
+        latch.await();
+
+        // Assert
+        assertThat(granted.get(), is(threads * iterations));
+        assertThat(maxHolders.get() <= 2, is(true));
+        assertThat(semaphore.getAvailablePermits(), is(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorWithInvalidPermitsTest() {
+        // Act
+        new AsyncSemaphore(0);
+    }
+}
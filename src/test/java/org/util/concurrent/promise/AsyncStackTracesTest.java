@@ -0,0 +1,119 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AsyncStackTracesTest {
+
+    @Test
+    public void captureTest() {
+        // Arrange
+        final AsyncStackTraces recorder = new AsyncStackTraces(1);
+
+        // Act
+        final AsyncStackTraces.AsyncStackTrace site = recorder.capture();
+
+        // Assert
+        assertThat(site, is(notNullValue()));
+        assertThat(site.getStackTrace()[0].getMethodName(), is("capture"));
+        assertThat(site.getStackTrace()[1].getMethodName(), is("captureTest"));
+    }
+
+    @Test
+    public void attachTest() {
+        // Arrange
+        final AsyncStackTraces.AsyncStackTrace site = new AsyncStackTraces(1).capture();
+        final Exception cause = new Exception();
+
+        // Act
+        AsyncStackTraces.attach(cause, site);
+
+        // Assert
+        assertThat(cause.getSuppressed().length, is(1));
+        assertThat(cause.getSuppressed()[0], is((Throwable) site));
+    }
+
+    @Test
+    public void attachWithoutSiteTest() {
+        // Arrange
+        final Exception cause = new Exception();
+
+        // Act
+        AsyncStackTraces.attach(cause, null);
+
+        // Assert
+        assertThat(cause.getSuppressed().length, is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorWithInvalidSamplingIntervalTest() {
+        // Act
+        new AsyncStackTraces(0);
+    }
+
+    @Test
+    public void isRecordingAllTest() {
+        // Arrange
+        // Act
+        // Assert
+        assertTrue(new AsyncStackTraces(1).isRecordingAll());
+        assertFalse(new AsyncStackTraces(2).isRecordingAll());
+    }
+
+    /**
+     * Runs only if every registration is recorded, e.g. by the {@code async-stack-traces-test} execution, since a
+     * sampled registration may not be recorded.
+     */
+    @Test
+    public void thenWithFailingContinuationTest() throws InterruptedException {
+        // Arrange
+        final AsyncStackTraces installed = AsyncStackTraces.getInstalled();
+
+        assumeTrue((installed != null) && installed.isRecordingAll());
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Exception cause = new Exception();
+        final Promise<Integer> result = deferred.then(new Apply<Integer, Integer>() {
+            @Override
+            public Integer doApply(final Integer value) throws Exception {
+                throw cause;
+            }
+        });
+
+        // Act
+        deferred.setSuccess(1);
+
+        // Assert
+        try {
+            Promises.await(result);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), is((Throwable) cause));
+        }
+        assertThat(cause.getSuppressed().length, is(1));
+        assertThat(cause.getSuppressed()[0].getStackTrace()[2].getMethodName(), is("thenWithFailingContinuationTest"));
+    }
+}
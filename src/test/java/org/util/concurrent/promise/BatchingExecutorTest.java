@@ -0,0 +1,354 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class BatchingExecutorTest {
+
+    @Test
+    public void executeTest() {
+        // Arrange
+        final QueueingExecutor target = new QueueingExecutor();
+        final BatchingExecutor executor = new BatchingExecutor(target);
+        final List<Integer> values = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            executor.execute(new AddValue(values, i));
+        }
+
+        // Assert
+        assertThat(target.size(), is(1));
+
+        target.runAll();
+
+        assertThat(values, is(Arrays.asList(0, 1, 2)));
+        assertThat(target.size(), is(0));
+    }
+
+    @Test
+    public void executeAfterDrainTest() {
+        // Arrange
+        final QueueingExecutor target = new QueueingExecutor();
+        final BatchingExecutor executor = new BatchingExecutor(target);
+        final List<Integer> values = new ArrayList<>();
+
+        executor.execute(new AddValue(values, 0));
+        target.runAll();
+
+        // Act
+        executor.execute(new AddValue(values, 1));
+
+        // Assert
+        assertThat(target.size(), is(1));
+
+        target.runAll();
+
+        assertThat(values, is(Arrays.asList(0, 1)));
+    }
+
+    @Test
+    public void executeWithMaxBatchSizeTest() {
+        // Arrange
+        final QueueingExecutor target = new QueueingExecutor();
+        final BatchingExecutor executor = new BatchingExecutor(target, 2);
+        final List<Integer> values = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            executor.execute(new AddValue(values, i));
+        }
+
+        // Act
+        target.runNext();
+
+        // Assert
+        assertThat(values, is(Arrays.asList(0, 1)));
+        assertThat(target.size(), is(1));
+
+        target.runAll();
+
+        assertThat(values, is(Arrays.asList(0, 1, 2, 3, 4)));
+    }
+
+    @Test
+    public void executeWithExceptionTest() {
+        // Arrange
+        final QueueingExecutor target = new QueueingExecutor();
+        final BatchingExecutor executor = new BatchingExecutor(target);
+        final List<Integer> values = new ArrayList<>();
+
+        // Act
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException();
+            }
+        });
+        executor.execute(new AddValue(values, 1));
+        target.runAll();
+
+        // Assert
+        assertThat(values, is(Arrays.asList(1)));
+    }
+
+    @Test
+    public void executeWhenRejectedTest() {
+        // Arrange
+        final QueueingExecutor target = new QueueingExecutor();
+        final BatchingExecutor executor = new BatchingExecutor(target);
+        final List<Integer> values = new ArrayList<>();
+
+        target.setRejecting(true);
+
+        // Act
+        try {
+            executor.execute(new AddValue(values, 0));
+            fail();
+        } catch (final RejectedExecutionException e) {
+            // Expected
+        }
+
+        target.setRejecting(false);
+        executor.execute(new AddValue(values, 1));
+        target.runAll();
+
+        // Assert
+        assertThat(values, is(Arrays.asList(1)));
+    }
+
+    @Test
+    public void executeWhenFailedTest() {
+        // Arrange
+        final QueueingExecutor target = new QueueingExecutor();
+        final BatchingExecutor executor = new BatchingExecutor(target);
+        final List<Integer> values = new ArrayList<>();
+
+        target.setFailure(new IllegalStateException());
+
+        // Act
+        try {
+            executor.execute(new AddValue(values, 0));
+            fail();
+        } catch (final IllegalStateException e) {
+            // Expected
+        }
+
+        target.setFailure(null);
+        executor.execute(new AddValue(values, 1));
+        target.runAll();
+
+        // Assert
+        assertThat(values, is(Arrays.asList(1)));
+    }
+
+    @Test
+    public void executeWhenResubmitFailedTest() {
+        // Arrange
+        final QueueingExecutor target = new QueueingExecutor();
+        final BatchingExecutor executor = new BatchingExecutor(target, 1);
+        final List<Integer> values = new ArrayList<>();
+
+        executor.execute(new AddValue(values, 0));
+        executor.execute(new AddValue(values, 1));
+        target.setFailure(new IllegalStateException());
+
+        // Act
+        try {
+            target.runNext();
+            fail();
+        } catch (final IllegalStateException e) {
+            // Expected
+        }
+
+        target.setFailure(null);
+        executor.execute(new AddValue(values, 2));
+        target.runAll();
+
+        // Assert
+        assertThat(values, is(Arrays.asList(0, 1, 2)));
+    }
+
+    @Test
+    public void executeOnWhenRejectedTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final QueueingExecutor target = new QueueingExecutor();
+        final BatchingExecutor executor = new BatchingExecutor(target);
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Promise<Integer> promise = deferred.then(new ExecuteOn<Integer>(executor));
+
+        target.setRejecting(true);
+        deferred.setSuccess(1);
+        target.setRejecting(false);
+
+        // Act
+        executor.execute(new AddValue(new ArrayList<Integer>(), 0));
+        target.runAll();
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(RejectedExecutionException.class)));
+        }
+    }
+
+    @Test
+    public void inExecutorTest() {
+        // Arrange
+        final QueueingExecutor target = new QueueingExecutor();
+        final BatchingExecutor executor = new BatchingExecutor(target);
+        final boolean[] inExecutor = new boolean[1];
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                inExecutor[0] = executor.inExecutor();
+            }
+        });
+
+        // Act
+        target.runAll();
+
+        // Assert
+        assertTrue(inExecutor[0]);
+        assertFalse(executor.inExecutor());
+    }
+
+    @Test
+    public void executeConcurrentlyTest() throws InterruptedException {
+        // Arrange
+        final int threadCount = 4;
+        final int taskCount = 10000;
+        final ExecutorService target = Executors.newFixedThreadPool(2);
+        final BatchingExecutor executor = new BatchingExecutor(target, 16);
+        final CountDownLatch latch = new CountDownLatch(threadCount * taskCount);
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < taskCount; j++) {
+                        executor.execute(task);
+                    }
+                }
+            });
+        }
+
+        // Act
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+
+        // Assert
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            target.shutdown();
+        }
+    }
+
+    /**
+     * Represents a task adding a value to a list.
+     */
+    private static final class AddValue implements Runnable {
+
+        private final List<Integer> _values;
+
+        private final int _value;
+
+        public AddValue(final List<Integer> values, final int value) {
+            _values = values;
+            _value = value;
+        }
+
+        @Override
+        public void run() {
+            _values.add(_value);
+        }
+    }
+
+    /**
+     * Represents an executor queueing tasks until they are run explicitly.
+     */
+    private static final class QueueingExecutor implements Executor {
+
+        private final List<Runnable> _tasks = new ArrayList<>();
+
+        private boolean _rejecting;
+
+        private RuntimeException _failure;
+
+        public int size() {
+            return _tasks.size();
+        }
+
+        public void setRejecting(final boolean rejecting) {
+            _rejecting = rejecting;
+        }
+
+        public void setFailure(final RuntimeException failure) {
+            _failure = failure;
+        }
+
+        public void runNext() {
+            _tasks.remove(0).run();
+        }
+
+        public void runAll() {
+            while (!_tasks.isEmpty()) {
+                runNext();
+            }
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            if (_rejecting) {
+                throw new RejectedExecutionException();
+            }
+            if (_failure != null) {
+                throw _failure;
+            }
+            _tasks.add(command);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class BatchingLoaderTest {
+
+    @Test
+    public void loadTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final RecordingBatchFunction function = new RecordingBatchFunction();
+        final BatchingLoader<Integer, Integer> loader = new BatchingLoader<>(function, 3, 1, TimeUnit.HOURS);
+
+        // Act
+        final Promise<Integer> first = loader.load(1);
+        final Promise<Integer> second = loader.load(2);
+        final Promise<Integer> third = loader.load(3);
+
+        // Assert
+        assertThat(Promises.await(first), is(10));
+        assertThat(Promises.await(second), is(20));
+        assertThat(Promises.await(third), is(30));
+        assertThat(function._batches, is(Arrays.asList(Arrays.asList(1, 2, 3))));
+    }
+
+    @Test
+    public void loadWithWindowTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final RecordingBatchFunction function = new RecordingBatchFunction();
+        final BatchingLoader<Integer, Integer> loader = new BatchingLoader<>(function, 100, 10, TimeUnit.MILLISECONDS);
+
+        // Act
+        final Promise<Integer> first = loader.load(1);
+        final Promise<Integer> second = loader.load(2);
+
+        // Assert
+        assertThat(Promises.await(first), is(10));
+        assertThat(Promises.await(second), is(20));
+        assertThat(function._batches, is(Arrays.asList(Arrays.asList(1, 2))));
+    }
+
+    @Test
+    public void loadWithDuplicateKeyTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final RecordingBatchFunction function = new RecordingBatchFunction();
+        final BatchingLoader<Integer, Integer> loader = new BatchingLoader<>(function, 100, 1, TimeUnit.HOURS);
+        final Promise<Integer> first = loader.load(1);
+        final Promise<Integer> second = loader.load(1);
+
+        // Act
+        loader.dispatch();
+
+        // Assert
+        assertThat(Promises.await(first), is(10));
+        assertThat(Promises.await(second), is(10));
+        assertThat(function._batches, is(Arrays.asList(Arrays.asList(1))));
+    }
+
+    @Test
+    public void loadWithMissingKeyTest() throws InterruptedException {
+        // Arrange
+        final BatchingLoader<Integer, Integer> loader = new BatchingLoader<>(new Compose<List<Integer>, Map<Integer, Integer>>() {
+            @Override
+            protected Promise<Map<Integer, Integer>> doCompose(final List<Integer> keys) {
+                return Promises.newSuccess(Collections.singletonMap(2, 20));
+            }
+        }, 2, 1, TimeUnit.HOURS);
+
+        // Act
+        final Promise<Integer> missing = loader.load(1);
+        final Promise<Integer> present = loader.load(2);
+
+        // Assert
+        try {
+            Promises.await(missing);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(NoSuchElementException.class)));
+        }
+        try {
+            assertThat(Promises.await(present), is(20));
+        } catch (final ExecutionException e) {
+            fail();
+        }
+    }
+
+    @Test
+    public void loadWithNullValueTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final BatchingLoader<Integer, Integer> loader = new BatchingLoader<>(new Compose<List<Integer>, Map<Integer, Integer>>() {
+            @Override
+            protected Promise<Map<Integer, Integer>> doCompose(final List<Integer> keys) {
+                return Promises.newSuccess(Collections.singletonMap(1, (Integer) null));
+            }
+        }, 1, 1, TimeUnit.HOURS);
+
+        // Act
+        final Promise<Integer> promise = loader.load(1);
+
+        // Assert
+        assertThat(Promises.await(promise), is(nullValue()));
+    }
+
+    @Test
+    public void loadWithFailureTest() throws InterruptedException {
+        // Arrange
+        final Exception exception = new Exception();
+        final BatchingLoader<Integer, Integer> loader = new BatchingLoader<>(new Compose<List<Integer>, Map<Integer, Integer>>() {
+            @Override
+            protected Promise<Map<Integer, Integer>> doCompose(final List<Integer> keys) throws Exception {
+                throw exception;
+            }
+        }, 2, 1, TimeUnit.HOURS);
+
+        // Act
+        final Promise<Integer> first = loader.load(1);
+        final Promise<Integer> second = loader.load(2);
+
+        // Assert
+        for (final Promise<Integer> promise : Arrays.asList(first, second)) {
+            try {
+                Promises.await(promise);
+                fail();
+            } catch (final ExecutionException e) {
+                assertSame(exception, e.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void loadConcurrentlyTest() throws InterruptedException {
+        // Arrange
+        final int threads = 4;
+        final int loads = 10000;
+        final RecordingBatchFunction function = new RecordingBatchFunction();
+        final BatchingLoader<Integer, Integer> loader = new BatchingLoader<>(function, 64, 10, TimeUnit.MILLISECONDS);
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            final int offset = i * loads;
+
+            workers.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final List<Promise<Integer>> promises = new ArrayList<>();
+
+                    for (int j = 0; j < loads; j++) {
+                        promises.add(loader.load(offset + j));
+                    }
+                    try {
+                        for (int j = 0; j < loads; j++) {
+                            if (Promises.await(promises.get(j)) != ((offset + j) * 10)) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    } catch (final InterruptedException | ExecutionException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        // Act
+        for (final Thread worker : workers) {
+            worker.start();
+        }
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+
+        // Assert
+        int keys = 0;
+
+        for (final List<Integer> batch : function._batches) {
+            keys += batch.size();
+        }
+        assertThat(failures.get(), is(0));
+        assertThat(keys, is(threads * loads));
+        assertThat(function._batches.size() < ((threads * loads) / 10), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorWithInvalidWindowTest() {
+        // Act
+        new BatchingLoader<>(new RecordingBatchFunction(), 1, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Represents a batch function which records its batches and maps every key to ten times the key.
+     */
+    private static final class RecordingBatchFunction extends Compose<List<Integer>, Map<Integer, Integer>> {
+
+        private final List<List<Integer>> _batches = new ArrayList<>();
+
+        @Override
+        protected Promise<Map<Integer, Integer>> doCompose(final List<Integer> keys) {
+            final Map<Integer, Integer> values = new HashMap<>();
+
+            synchronized (_batches) {
+                _batches.add(keys);
+            }
+            for (final Integer key : keys) {
+                values.put(key, key * 10);
+            }
+
+            return Promises.newSuccess(values);
+        }
+    }
+}
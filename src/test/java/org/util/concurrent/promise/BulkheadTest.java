@@ -0,0 +1,170 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class BulkheadTest {
+
+    @Test
+    public void callTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Bulkhead bulkhead = new Bulkhead(1);
+
+        // Act
+        final Promise<Integer> promise = bulkhead.call(new Operation(Promises.newSuccess(1)));
+
+        // Assert
+        assertThat(Promises.await(promise), is(1));
+        assertThat(bulkhead.getAvailableConcurrentCalls(), is(1));
+    }
+
+    @Test
+    public void rejectTest() throws InterruptedException {
+        // Arrange
+        final Bulkhead bulkhead = new Bulkhead(1);
+        final Operation operation = new Operation(Promises.newSuccess(2));
+
+        bulkhead.call(new Operation(new Deferred<Integer>()));
+
+        // Act
+        final Promise<Integer> promise = bulkhead.call(operation);
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(RejectedExecutionException.class)));
+        }
+        assertThat(bulkhead.getRejectedCalls(), is(1L));
+        assertThat(operation._calls.get(), is(0));
+    }
+
+    @Test
+    public void waitTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Bulkhead bulkhead = new Bulkhead(1, 1);
+        final Deferred<Integer> first = new Deferred<>();
+        final Operation operation = new Operation(Promises.newSuccess(2));
+
+        bulkhead.call(new Operation(first));
+        final Promise<Integer> second = bulkhead.call(operation);
+        final Promise<Integer> third = bulkhead.call(new Operation(Promises.newSuccess(3)));
+
+        // Act
+        first.trySuccess(1);
+
+        // Assert
+        assertThat(Promises.await(second), is(2));
+        assertThat(operation._calls.get(), is(1));
+        assertThat(third.isComplete(), is(true));
+        assertThat(bulkhead.getRejectedCalls(), is(1L));
+        assertThat(bulkhead.getAvailableConcurrentCalls(), is(1));
+    }
+
+    @Test
+    public void cancelTest() {
+        // Arrange
+        final Bulkhead bulkhead = new Bulkhead(1, 1);
+        final Deferred<Integer> first = new Deferred<>();
+        final Operation operation = new Operation(Promises.newSuccess(2));
+
+        bulkhead.call(new Operation(first));
+        final Promise<Integer> second = bulkhead.call(operation);
+
+        // Act
+        ((Deferred<Integer>) second).cancel();
+        first.trySuccess(1);
+
+        // Assert
+        assertThat(operation._calls.get(), is(0));
+        assertThat(bulkhead.getWaitingCalls(), is(0));
+        assertThat(bulkhead.getAvailableConcurrentCalls(), is(1));
+    }
+
+    @Test
+    public void throwingOperationTest() throws InterruptedException {
+        // Arrange
+        final Bulkhead bulkhead = new Bulkhead(1);
+
+        // Act
+        final Promise<Integer> promise = bulkhead.call(new Callable<Promise<Integer>>() {
+            @Override
+            public Promise<Integer> call() {
+                throw new IllegalStateException();
+            }
+        });
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+        }
+        assertThat(bulkhead.getAvailableConcurrentCalls(), is(1));
+        assertThat(bulkhead.getFailedCalls(), is(1L));
+    }
+
+    @Test
+    public void countersTest() {
+        // Arrange
+        final Bulkhead bulkhead = new Bulkhead(3);
+        final Deferred<Integer> cancelled = new Deferred<>();
+
+        // Act
+        bulkhead.call(new Operation(Promises.newSuccess(1)));
+        bulkhead.call(new Operation(Promises.<Integer> newFailure(new IllegalStateException())));
+        bulkhead.call(new Operation(cancelled));
+        cancelled.cancel();
+
+        // Assert
+        assertThat(bulkhead.getSuccessfulCalls(), is(1L));
+        assertThat(bulkhead.getFailedCalls(), is(1L));
+        assertThat(bulkhead.getAvailableConcurrentCalls(), is(3));
+    }
+
+    private static final class Operation implements Callable<Promise<Integer>> {
+
+        private final Promise<Integer> _promise;
+
+        private final AtomicInteger _calls = new AtomicInteger();
+
+        public Operation(final Promise<Integer> promise) {
+            _promise = promise;
+        }
+
+        @Override
+        public Promise<Integer> call() {
+            _calls.incrementAndGet();
+
+            return _promise;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CircuitBreakerTest {
+
+    @Test
+    public void callTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final CircuitBreaker breaker = new CircuitBreaker(0.5, 2, 10, 1, TimeUnit.SECONDS);
+
+        // Act
+        final Promise<Integer> promise = breaker.call(new Operation(Promises.newSuccess(1)));
+
+        // Assert
+        assertThat(Promises.await(promise), is(1));
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(breaker.getSuccessfulCalls(), is(1L));
+    }
+
+    @Test
+    public void openTest() throws InterruptedException {
+        // Arrange
+        final CircuitBreaker breaker = new CircuitBreaker(0.5, 2, 10, 1, TimeUnit.HOURS);
+        final Operation operation = new Operation(Promises.<Integer> newSuccess(1));
+
+        breaker.call(new Operation(Promises.<Integer> newFailure(new IllegalStateException())));
+        breaker.call(new Operation(Promises.<Integer> newFailure(new IllegalStateException())));
+
+        // Act
+        final Promise<Integer> promise = breaker.call(operation);
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(RejectedExecutionException.class)));
+        }
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(breaker.getFailedCalls(), is(2L));
+        assertThat(breaker.getRejectedCalls(), is(1L));
+        assertThat(operation._calls.get(), is(0));
+    }
+
+    @Test
+    public void minimumCallsTest() {
+        // Arrange
+        final CircuitBreaker breaker = new CircuitBreaker(0.5, 2, 10, 1, TimeUnit.HOURS);
+
+        // Act
+        breaker.call(new Operation(Promises.<Integer> newFailure(new IllegalStateException())));
+
+        // Assert
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(breaker.getFailureRate(), is(1.0));
+    }
+
+    @Test
+    public void failureRateThresholdTest() {
+        // Arrange
+        final CircuitBreaker breaker = new CircuitBreaker(0.5, 2, 10, 1, TimeUnit.HOURS);
+
+        // Act
+        breaker.call(new Operation(Promises.newSuccess(1)));
+        breaker.call(new Operation(Promises.newSuccess(2)));
+        breaker.call(new Operation(Promises.<Integer> newFailure(new IllegalStateException())));
+
+        // Assert
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void halfOpenSuccessTest() throws InterruptedException {
+        // Arrange
+        final CircuitBreaker breaker = new CircuitBreaker(0.5, 1, 10000, 50, TimeUnit.MILLISECONDS);
+        final Deferred<Integer> trial = new Deferred<>();
+
+        breaker.call(new Operation(Promises.<Integer> newFailure(new IllegalStateException())));
+        Thread.sleep(100);
+
+        // Act
+        breaker.call(new Operation(trial));
+        final Promise<Integer> rejected = breaker.call(new Operation(Promises.newSuccess(2)));
+
+        trial.trySuccess(1);
+
+        // Assert
+        assertThat(rejected.isComplete(), is(true));
+        assertThat(breaker.getRejectedCalls(), is(1L));
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(breaker.getFailureRate(), is(0.0));
+    }
+
+    @Test
+    public void halfOpenFailureTest() throws InterruptedException {
+        // Arrange
+        final CircuitBreaker breaker = new CircuitBreaker(0.5, 1, 10000, 50, TimeUnit.MILLISECONDS);
+
+        breaker.call(new Operation(Promises.<Integer> newFailure(new IllegalStateException())));
+        Thread.sleep(100);
+
+        // Act
+        breaker.call(new Operation(Promises.<Integer> newFailure(new IllegalStateException())));
+
+        // Assert
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(breaker.getFailedCalls(), is(2L));
+    }
+
+    @Test
+    public void halfOpenWithPendingTrialTest() throws InterruptedException {
+        // Arrange
+        final CircuitBreaker breaker = new CircuitBreaker(0.5, 1, 10000, 50, TimeUnit.MILLISECONDS);
+        final Deferred<Integer> abandoned = new Deferred<>();
+        final Deferred<Integer> trial = new Deferred<>();
+
+        breaker.call(new Operation(Promises.<Integer> newFailure(new IllegalStateException())));
+        Thread.sleep(100);
+        breaker.call(new Operation(abandoned));
+        Thread.sleep(100);
+
+        // Act
+        breaker.call(new Operation(trial));
+        final Promise<Integer> rejected = breaker.call(new Operation(Promises.newSuccess(2)));
+
+        abandoned.tryFailure(new IllegalStateException());
+        trial.trySuccess(1);
+
+        // Assert
+        assertThat(rejected.isComplete(), is(true));
+        assertThat(breaker.getRejectedCalls(), is(1L));
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(breaker.getFailedCalls(), is(2L));
+    }
+
+    @Test
+    public void slowCallTest()throws InterruptedException {
+        // Arrange
+        final CircuitBreaker breaker = new CircuitBreaker(1, 0.5, 20, 1, 10000, 10000, TimeUnit.MILLISECONDS);
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        breaker.call(new Operation(deferred));
+        Thread.sleep(50);
+
+        // Act
+        deferred.trySuccess(1);
+
+        // Assert
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThat(breaker.getSuccessfulCalls(), is(1L));
+        assertThat(breaker.getSlowCalls(), is(1L));
+    }
+
+    @Test
+    public void cancelTest() {
+        // Arrange
+        final CircuitBreaker breaker = new CircuitBreaker(0.5, 1, 10, 1, TimeUnit.HOURS);
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        breaker.call(new Operation(deferred));
+
+        // Act
+        deferred.cancel();
+
+        // Assert
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+        assertThat(breaker.getFailedCalls(), is(0L));
+    }
+
+    @Test
+    public void throwingOperationTest() throws InterruptedException {
+        // Arrange
+        final CircuitBreaker breaker = new CircuitBreaker(0.5, 1, 10, 1, TimeUnit.HOURS);
+
+        // Act
+        final Promise<Integer> promise = breaker.call(new Callable<Promise<Integer>>() {
+            @Override
+            public Promise<Integer> call() {
+                throw new IllegalStateException();
+            }
+        });
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(IllegalStateException.class)));
+        }
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+    }
+
+    private static final class Operation implements Callable<Promise<Integer>> {
+
+        private final Promise<Integer> _promise;
+
+        private final AtomicInteger _calls = new AtomicInteger();
+
+        public Operation(final Promise<Integer> promise) {
+            _promise = promise;
+        }
+
+        @Override
+        public Promise<Integer> call() {
+            _calls.incrementAndGet();
+
+            return _promise;
+        }
+    }
+}
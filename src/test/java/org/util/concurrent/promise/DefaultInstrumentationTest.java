@@ -0,0 +1,207 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class DefaultInstrumentationTest {
+
+    @Test
+    public void onCompleteTest() {
+        // Arrange
+        final DefaultInstrumentation instrumentation = new DefaultInstrumentation();
+
+        instrumentation.onCreate();
+        instrumentation.onCreate();
+        instrumentation.onThen();
+
+        // Act
+        instrumentation.onComplete(1000, 1, true);
+
+        // Assert
+        assertThat(instrumentation.getCreated(), is(2L));
+        assertThat(instrumentation.getSucceeded(), is(1L));
+        assertThat(instrumentation.getPending(), is(1L));
+        assertThat(instrumentation.getRegistrations(), is(1L));
+        assertThat(instrumentation.getPendingTimes().getMax(), is(1000L));
+        assertThat(instrumentation.getCompletables().getMax(), is(1L));
+    }
+
+    @Test
+    public void onStageFailureTest() {
+        // Arrange
+        final DefaultInstrumentation instrumentation = new DefaultInstrumentation();
+
+        // Act
+        instrumentation.onStageFailure(new IllegalStateException());
+
+        // Assert
+        assertThat(instrumentation.getStageFailures(), is(1L));
+    }
+
+    /**
+     * Runs only if the default instrumentation has been installed, e.g. by the {@code instrumentation-test} execution
+     * or by running the tests with
+     * {@code -DargLine=-Dorg.util.concurrent.promise.instrumentation=org.util.concurrent.promise.DefaultInstrumentation}.
+     */
+    @Test
+    public void installedTest() {
+        // Arrange
+        final DefaultInstrumentation instrumentation = getInstalled();
+        final long created = instrumentation.getCreated();
+        final long succeeded = instrumentation.getSucceeded();
+        final long registrations = instrumentation.getRegistrations();
+        final long stageFailures = instrumentation.getStageFailures();
+        final long completables = instrumentation.getCompletables().getCount();
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        deferred.then(new Completable<Integer>() {
+            @Override
+            public void setSuccess(final Integer value) {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+            }
+        });
+
+        // Act
+        deferred.setSuccess(1);
+
+        // Assert
+        assertThat(instrumentation.getCreated(), is(created + 1));
+        assertThat(instrumentation.getSucceeded(), is(succeeded + 1));
+        assertThat(instrumentation.getRegistrations(), is(registrations + 1));
+        assertThat(instrumentation.getStageFailures(), is(stageFailures + 1));
+        assertThat(instrumentation.getCompletables().getCount(), is(completables + 1));
+    }
+
+    @Test
+    public void installedWithCompleteDeferredTest() {
+        // Arrange
+        final DefaultInstrumentation instrumentation = getInstalled();
+        final long created = instrumentation.getCreated();
+        final long succeeded = instrumentation.getSucceeded();
+        final long registrations = instrumentation.getRegistrations();
+        final Deferred<Integer> deferred = new Deferred<>(1);
+
+        // Act
+        deferred.then(new Deferred<Integer>());
+
+        // Assert
+        assertThat(instrumentation.getCreated(), is(created + 2));
+        assertThat(instrumentation.getSucceeded(), is(succeeded + 2));
+        assertThat(instrumentation.getRegistrations(), is(registrations));
+    }
+
+    @Test
+    public void installedWithNewSuccessTest() {
+        // Arrange
+        final DefaultInstrumentation instrumentation = getInstalled();
+        final long created = instrumentation.getCreated();
+        final long succeeded = instrumentation.getSucceeded();
+        final long pending = instrumentation.getPending();
+
+        // Act
+        Promises.newSuccess(1);
+
+        // Assert
+        assertThat(instrumentation.getCreated(), is(created + 1));
+        assertThat(instrumentation.getSucceeded(), is(succeeded + 1));
+        assertThat(instrumentation.getPending(), is(pending));
+    }
+
+    @Test
+    public void installedWithNewFailureTest() {
+        // Arrange
+        final DefaultInstrumentation instrumentation = getInstalled();
+        final long created = instrumentation.getCreated();
+        final long failed = instrumentation.getFailed();
+        final long pending = instrumentation.getPending();
+
+        // Act
+        Promises.newFailure(new Throwable());
+
+        // Assert
+        assertThat(instrumentation.getCreated(), is(created + 1));
+        assertThat(instrumentation.getFailed(), is(failed + 1));
+        assertThat(instrumentation.getPending(), is(pending));
+    }
+
+    @Test
+    public void installedWithApplyAndCompleteDeferredTest() {
+        // Arrange
+        final DefaultInstrumentation instrumentation = getInstalled();
+        final long created = instrumentation.getCreated();
+        final long succeeded = instrumentation.getSucceeded();
+        final Deferred<Integer> deferred = new Deferred<>(1);
+
+        // Act
+        deferred.then(new Apply<Integer, Integer>() {
+            @Override
+            protected Integer doApply(final Integer value) {
+                return value + 1;
+            }
+        });
+
+        // Assert
+        assertThat(instrumentation.getCreated(), is(created + 2));
+        assertThat(instrumentation.getSucceeded(), is(succeeded + 2));
+    }
+
+    @Test
+    public void installedWithCancelTest() {
+        // Arrange
+        final DefaultInstrumentation instrumentation = getInstalled();
+        final long failed = instrumentation.getFailed();
+        final long pending = instrumentation.getPending();
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Promise<Integer> promise = deferred.then(new Apply<Integer, Integer>() {
+            @Override
+            protected Integer doApply(final Integer value) {
+                return value + 1;
+            }
+        });
+
+        // Act
+        Promises.cancel(promise);
+
+        // Assert
+        assertTrue(deferred.isCancelled());
+        assertThat(instrumentation.getFailed(), is(failed + 2));
+        assertThat(instrumentation.getPending(), is(pending));
+    }
+
+    /**
+     * Returns the installed default instrumentation and skips the test if it has not been installed.
+     * 
+     * @return The installed default instrumentation.
+     */
+    private static DefaultInstrumentation getInstalled() {
+        assumeTrue(Instrumentation.getInstalled() instanceof DefaultInstrumentation);
+
+        return (DefaultInstrumentation) Instrumentation.getInstalled();
+    }
+}
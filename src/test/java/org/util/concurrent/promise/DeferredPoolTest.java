@@ -0,0 +1,396 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.easymock.EasyMock.*;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class DeferredPoolTest {
+
+    @Test
+    public void acquireTest() {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, false);
+
+        // Act
+        final PooledDeferred<Integer> deferred = pool.acquire();
+
+        // Assert
+        assertFalse(deferred.isComplete());
+    }
+
+    @Test
+    public void acquireWithRecycleTest() {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, false);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+        final int stamp = deferred.getStamp();
+
+        deferred.setSuccess(1);
+        deferred.recycle();
+
+        // Act
+        final PooledDeferred<Integer> reused = pool.acquire();
+
+        // Assert
+        assertSame(deferred, reused);
+        assertFalse(reused.isComplete());
+        assertNotEquals(stamp, reused.getStamp());
+    }
+
+    @Test
+    public void thenWithRecycleTest() {
+        // Arrange
+        @SuppressWarnings("unchecked")
+        final Completable<Integer> completable = createStrictMock(Completable.class);
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, false);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+
+        completable.setSuccess(2);
+        replay(completable);
+        deferred.setSuccess(1);
+        deferred.recycle();
+
+        // Act
+        final PooledDeferred<Integer> reused = pool.acquire();
+
+        reused.then(completable);
+        reused.setSuccess(2);
+
+        // Assert
+        verify(completable);
+    }
+
+    @Test
+    public void trySuccessWithStaleStampTest() {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, false);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+        final int stamp = deferred.getStamp();
+
+        deferred.setFailure(new Throwable());
+        deferred.recycle();
+        pool.acquire();
+
+        // Act
+        final boolean success = deferred.trySuccess(stamp, 1);
+
+        // Assert
+        assertFalse(success);
+        assertFalse(deferred.isComplete());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void trySuccessWithStaleStampInDebugModeTest() {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, true);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+        final int stamp = deferred.getStamp();
+
+        deferred.setSuccess(1);
+        deferred.recycle();
+
+        // Act
+        deferred.trySuccess(stamp, 2);
+    }
+
+    @Test
+    public void awaitWithRecycledAndReacquiredTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, false);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+        final int stamp = deferred.getStamp();
+
+        deferred.setSuccess(1);
+        deferred.recycle();
+        final PooledDeferred<Integer> reused = pool.acquire();
+
+        // Act
+        final Object value = reused.poll(stamp);
+
+        Deferred.release(reused, stamp);
+
+        // Assert
+        assertSame(deferred, reused);
+        assertSame(Deferred.PENDING, value);
+        assertFalse(reused.isComplete());
+        try {
+            Promises.await(reused, 1, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (final TimeoutException e) {
+            // Expected
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void awaitWithRecycledTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, false);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+
+        deferred.setSuccess(1);
+        deferred.recycle();
+
+        // Act
+        Promises.await(deferred);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releaseWithStaleStampInDebugModeTest() {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, true);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+        final int stamp = deferred.getStamp();
+
+        deferred.setSuccess(1);
+        deferred.recycle();
+
+        // Act
+        Deferred.release(deferred, stamp);
+    }
+
+    @Test
+    public void acquireInDebugModeTest() {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, true);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+
+        deferred.setSuccess(1);
+        deferred.recycle();
+
+        // Act
+        final PooledDeferred<Integer> acquired = pool.acquire();
+
+        // Assert
+        assertNotSame(deferred, acquired);
+        try {
+            deferred.then(new Deferred<Integer>());
+            fail();
+        } catch (final IllegalStateException e) {
+            // Expected
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recycleWhenPendingTest() {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, false);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+
+        // Act
+        deferred.recycle();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recycleTwiceTest() {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, false);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+
+        deferred.setSuccess(1);
+        deferred.recycle();
+
+        // Act
+        deferred.recycle();
+    }
+
+    @Test
+    public void recycleWhileCompletingTest() {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, false);
+        final PooledDeferred<Integer> deferred = pool.acquire();
+        final boolean[] reusedWhileCompleting = new boolean[1];
+
+        deferred.then(new Completable<Integer>() {
+            @Override
+            public void setSuccess(final Integer value) {
+                deferred.recycle();
+                reusedWhileCompleting[0] = (pool.acquire() == deferred);
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+            }
+        });
+
+        // Act
+        deferred.setSuccess(1);
+
+        // Assert
+        assertFalse(reusedWhileCompleting[0]);
+        assertSame(deferred, pool.acquire());
+    }
+
+    @Test
+    public void trySuccessWithStaleStampConcurrentlyTest() throws InterruptedException {
+        // Arrange
+        final int iterations = 100000;
+        final DeferredPool<Integer> pool = new DeferredPool<>(1, false);
+        final AtomicReference<PooledDeferred<Integer>> current = new AtomicReference<>();
+        final AtomicInteger currentStamp = new AtomicInteger();
+        final AtomicBoolean done = new AtomicBoolean();
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    final PooledDeferred<Integer> deferred = current.get();
+
+                    if (deferred != null) {
+                        deferred.trySuccess(currentStamp.get(), -1);
+                    }
+                }
+            }
+        };
+        int staleCompletions = 0;
+
+        thread.start();
+
+        // Act
+        try {
+            for (int i = 0; i < iterations; i++) {
+                final PooledDeferred<Integer> deferred = pool.acquire();
+                final int stamp = deferred.getStamp();
+
+                if (deferred.isComplete()) {
+                    ++staleCompletions;
+                }
+                deferred.trySuccess(stamp, i);
+                current.set(null);
+                currentStamp.set(stamp);
+                current.set(deferred);
+                deferred.recycle();
+            }
+        } finally {
+            done.set(true);
+            thread.join();
+        }
+
+        // Assert
+        assertThat(staleCompletions, is(0));
+    }
+
+    @Test
+    public void recycleWhenFullTest() {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(2, false);
+        final Set<PooledDeferred<Integer>> deferreds = Collections.newSetFromMap(new IdentityHashMap<PooledDeferred<Integer>, Boolean>());
+
+        for (int i = 0; i < 5; i++) {
+            deferreds.add(pool.acquire());
+        }
+
+        // Act
+        for (final PooledDeferred<Integer> deferred : deferreds) {
+            deferred.setSuccess(1);
+            deferred.recycle();
+        }
+
+        // Assert
+        for (int i = 0; i < 4; i++) {
+            assertTrue(deferreds.contains(pool.acquire()));
+        }
+        assertFalse(deferreds.contains(pool.acquire()));
+    }
+
+    @Test
+    public void acquireOnOtherThreadTest() throws InterruptedException {
+        // Arrange
+        final DeferredPool<Integer> pool = new DeferredPool<>(4, false);
+        final Set<PooledDeferred<Integer>> deferreds = Collections.newSetFromMap(new IdentityHashMap<PooledDeferred<Integer>, Boolean>());
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 8; i++) {
+                    final PooledDeferred<Integer> deferred = pool.acquire();
+
+                    deferred.setSuccess(1);
+                    deferreds.add(deferred);
+                }
+                for (final PooledDeferred<Integer> deferred : deferreds) {
+                    deferred.recycle();
+                }
+            }
+        };
+
+        thread.start();
+        thread.join();
+
+        // Act
+        final PooledDeferred<Integer> deferred = pool.acquire();
+
+        // Assert
+        assertTrue(deferreds.contains(deferred));
+    }
+
+    @Test
+    public void acquireConcurrentlyTest() throws InterruptedException {
+        // Arrange
+        final int threadCount = 4;
+        final int iterations = 10000;
+        final DeferredPool<Integer> pool = new DeferredPool<>(16, false);
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        final Throwable[] failures = new Throwable[threadCount];
+
+        // Act
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < iterations; j++) {
+                            final PooledDeferred<Integer> deferred = pool.acquire();
+
+                            if (deferred.isComplete() || !deferred.trySuccess(deferred.getStamp(), j)) {
+                                throw new AssertionError("Deferred is shared");
+                            }
+                            deferred.recycle();
+                        }
+                    } catch (final Throwable t) {
+                        failures[index] = t;
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }.start();
+        }
+        latch.await();
+
+        // Assert
+        for (final Throwable failure : failures) {
+            assertThat(failure, is(nullValue()));
+        }
+    }
+}
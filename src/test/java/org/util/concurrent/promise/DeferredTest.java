@@ -16,9 +16,21 @@
 
 package org.util.concurrent.promise;
 
+import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
 import static org.easymock.EasyMock.*;
-
+import static org.junit.Assume.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.IMocksControl;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -189,4 +201,678 @@ public final class DeferredTest {
         // Assert
         verify(completable);
     }
+
+    @Test
+    public void trySuccessWithMultipleThenTest() {
+        // Arrange
+        final IMocksControl control = createStrictControl();
+        @SuppressWarnings("unchecked")
+        final Completable<Integer> completable1 = control.createMock(Completable.class);
+        @SuppressWarnings("unchecked")
+        final Completable<Integer> completable2 = control.createMock(Completable.class);
+        @SuppressWarnings("unchecked")
+        final Completable<Integer> completable3 = control.createMock(Completable.class);
+
+        completable1.setSuccess(1);
+        completable2.setSuccess(1);
+        completable3.setSuccess(1);
+        control.replay();
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        deferred.then(completable1);
+        deferred.then(completable2);
+        deferred.then(completable3);
+
+        // Act
+        final boolean success = deferred.trySuccess(1);
+
+        // Assert
+        control.verify();
+        assertTrue(success);
+        assertTrue(deferred.isComplete());
+    }
+
+    @Test
+    public void trySuccessWithConcurrentThenTest() throws InterruptedException {
+        // Arrange
+        final int threadCount = 4;
+        final int completableCount = 10000;
+        final Deferred<Integer> deferred = new Deferred<>();
+        final AtomicInteger successes = new AtomicInteger();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch stopLatch = new CountDownLatch(threadCount);
+        final Completable<Integer> completable = new Completable<Integer>() {
+            @Override
+            public void setSuccess(final Integer value) {
+                successes.incrementAndGet();
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+            }
+        };
+
+        for (int i = 0; i < threadCount; ++i) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < completableCount; ++j) {
+                            deferred.then(completable);
+                        }
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        stopLatch.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        // Act
+        startLatch.countDown();
+        final boolean success = deferred.trySuccess(1);
+
+        stopLatch.await();
+
+        // Assert
+        assertTrue(success);
+        assertEquals(threadCount * completableCount, successes.get());
+    }
+
+    @Test
+    public void thenWithSetSuccessAndApplyTest() throws Exception {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>(1);
+
+        // Act
+        final Promise<Integer> promise = deferred.then(new Apply<Integer, Integer>() {
+            @Override
+            protected Integer doApply(final Integer value) {
+                return value + 1;
+            }
+        });
+
+        // Assert
+        assertTrue(promise.isComplete());
+        assertThat(Promises.await(promise), is(2));
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void thenWithSetSuccessAndThrowingApplyTest() throws Exception {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>(1);
+
+        // Act
+        final Promise<Integer> promise = deferred.then(new Apply<Integer, Integer>() {
+            @Override
+            protected Integer doApply(final Integer value) {
+                throw new IllegalStateException();
+            }
+        });
+
+        // Assert
+        assertTrue(promise.isComplete());
+        Promises.await(promise);
+    }
+
+    @Test
+    public void thenWithSetFailureAndApplyTest() throws InterruptedException {
+        // Arrange
+        final Throwable cause = new Throwable();
+        final Deferred<Integer> deferred = new Deferred<>(cause);
+
+        // Act
+        final Promise<Integer> promise = deferred.then(new Apply<Integer, Integer>() {
+            @Override
+            protected Integer doApply(final Integer value) {
+                return value + 1;
+            }
+        });
+
+        // Assert
+        assertTrue(promise.isComplete());
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(cause, e.getCause());
+        }
+    }
+
+    @Test
+    public void thenWithSetSuccessAndCatchTest() throws Exception {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>(1);
+
+        // Act
+        final Promise<Integer> promise = deferred.then(new Catch<Integer>() {
+            @Override
+            protected Integer doCatch(final Throwable cause) {
+                return 2;
+            }
+        });
+
+        // Assert
+        assertTrue(promise.isComplete());
+        assertThat(Promises.await(promise), is(1));
+    }
+
+    @Test
+    public void thenWithSetFailureAndCatchTest() throws Exception {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>(new Throwable());
+
+        // Act
+        final Promise<Integer> promise = deferred.then(new Catch<Integer>() {
+            @Override
+            protected Integer doCatch(final Throwable cause) {
+                return 2;
+            }
+        });
+
+        // Assert
+        assertTrue(promise.isComplete());
+        assertThat(Promises.await(promise), is(2));
+    }
+
+    @Test
+    public void cancelTest() throws InterruptedException {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        // Act
+        final boolean cancelled = deferred.cancel();
+
+        // Assert
+        assertTrue(cancelled);
+        assertTrue(deferred.isComplete());
+        assertTrue(deferred.isCancelled());
+        assertFalse(deferred.trySuccess(1));
+        try {
+            Promises.await(deferred);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof CancellationException);
+        }
+    }
+
+    @Test
+    public void cancelWithSetSuccessTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        deferred.setSuccess(1);
+
+        // Act
+        final boolean cancelled = deferred.cancel();
+
+        // Assert
+        assertFalse(cancelled);
+        assertFalse(deferred.isCancelled());
+    }
+
+    @Test
+    public void cancelWithOnCancelTest() {
+        // Arrange
+        final Runnable hook = createStrictMock(Runnable.class);
+
+        hook.run();
+        replay(hook);
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        deferred.onCancel(hook);
+
+        // Act
+        deferred.cancel();
+
+        // Assert
+        verify(hook);
+    }
+
+    @Test
+    public void setSuccessWithOnCancelTest() {
+        // Arrange
+        final Runnable hook = createStrictMock(Runnable.class);
+
+        replay(hook);
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        deferred.onCancel(hook);
+
+        // Act
+        deferred.setSuccess(1);
+
+        // Assert
+        verify(hook);
+    }
+
+    @Test
+    public void cancelWithThenContinuationTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Promise<Integer> promise1 = deferred.then(new OnFailure<Integer>() {
+            @Override
+            protected void onFailure(final Throwable cause) {
+            }
+        });
+        final Promise<Integer> promise2 = deferred.then(new OnFailure<Integer>() {
+            @Override
+            protected void onFailure(final Throwable cause) {
+            }
+        });
+
+        // Act
+        Promises.cancel(promise1);
+        final boolean cancelledBefore = deferred.isCancelled();
+        Promises.cancel(promise2);
+
+        // Assert
+        assertFalse(cancelledBefore);
+        assertTrue(deferred.isCancelled());
+    }
+
+    @Test
+    public void cancelWithThenCompletableTest() {
+        // Arrange
+        @SuppressWarnings("unchecked")
+        final Completable<Integer> completable = createMock(Completable.class);
+
+        completable.setFailure(anyObject(Throwable.class));
+        replay(completable);
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Promise<Integer> promise = deferred.then(new OnFailure<Integer>() {
+            @Override
+            protected void onFailure(final Throwable cause) {
+            }
+        });
+
+        deferred.then(completable);
+
+        // Act
+        Promises.cancel(promise);
+
+        // Assert
+        assertFalse(deferred.isCancelled());
+    }
+
+    @Test
+    public void cancelWithThenDeferredTest() {
+        // Arrange
+        @SuppressWarnings("unchecked")
+        final Completable<Integer> completable = createMock(Completable.class);
+
+        completable.setFailure(anyObject(CancellationException.class));
+        replay(completable);
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Deferred<Integer> dependent = new Deferred<>();
+
+        deferred.then(dependent);
+        dependent.then(completable);
+
+        // Act
+        final boolean cancelled = dependent.cancel();
+
+        // Assert
+        assertTrue(cancelled);
+        assertTrue(deferred.isCancelled());
+        assertTrue(dependent.isCancelled());
+        verify(completable);
+    }
+
+    @Test
+    public void cancelWithFanInTest() {
+        // Arrange
+        final Deferred<Integer> first = new Deferred<>();
+        final Deferred<Integer> second = new Deferred<>();
+        final Deferred<Integer> dependent = new Deferred<>();
+        final Deferred<Integer> other = new Deferred<>();
+
+        first.then(dependent);
+        second.then(dependent);
+        second.then(other);
+
+        // Act
+        dependent.cancel();
+        other.cancel();
+
+        // Assert
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+    }
+
+    @Test
+    public void cancelWithFanInAndContinuationTest() {
+        // Arrange
+        final Deferred<Integer> first = new Deferred<>();
+        final Deferred<Integer> second = new Deferred<>();
+        final Deferred<Integer> dependent = (Deferred<Integer>) first.then(new Apply<Integer, Integer>() {
+            @Override
+            protected Integer doApply(final Integer value) {
+                return value;
+            }
+        });
+
+        second.then(dependent);
+
+        // Act
+        dependent.cancel();
+
+        // Assert
+        assertTrue(first.isCancelled());
+        assertFalse(second.isComplete());
+    }
+
+    @Test
+    public void cancelWithManyDependentsTest() {
+        // Arrange
+        final int dependentCount = 100000;
+        final Deferred<Integer> deferred = new Deferred<>();
+        final List<Promise<Integer>> dependents = new ArrayList<>(dependentCount);
+
+        for (int i = 0; i < dependentCount; ++i) {
+            dependents.add(deferred.then(new Apply<Integer, Integer>() {
+                @Override
+                protected Integer doApply(final Integer value) {
+                    return value;
+                }
+            }));
+        }
+        for (int i = 1; i < dependentCount; ++i) {
+            Promises.cancel(dependents.get(i));
+        }
+
+        // Act
+        final boolean cancelledBeforeLast = deferred.isCancelled();
+
+        Promises.cancel(dependents.get(0));
+
+        // Assert
+        assertFalse(cancelledBeforeLast);
+        assertTrue(deferred.isCancelled());
+    }
+
+    @Test
+    public void cancelWithComposeTest() {
+        // Arrange
+        final Deferred<Integer> inner = new Deferred<>();
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Promise<Integer> promise = deferred.then(new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) {
+                return inner;
+            }
+        });
+
+        deferred.setSuccess(1);
+
+        // Act
+        Promises.cancel(promise);
+
+        // Assert
+        assertTrue(inner.isCancelled());
+    }
+
+    @Test
+    public void setSuccessWithCancelledComposeTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Promise<Integer> promise = deferred.then(new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) {
+                throw new AssertionError();
+            }
+        });
+
+        deferred.then(new CompletableFuture<Integer>());
+        Promises.cancel(promise);
+
+        // Act
+        deferred.setSuccess(1);
+
+        // Assert
+        assertTrue(promise.isComplete());
+    }
+
+    @Test
+    public void thenWithDeepComposeLoopTest() throws Exception {
+        // Arrange
+        assumeTrue(Deferred.isTrampolineEnabled());
+        final int stepCount = 1000000;
+
+        // Act
+        final Promise<Integer> promise = loop(0, stepCount);
+
+        // Assert
+        assertTrue(promise.isComplete());
+        assertEquals(Integer.valueOf(stepCount), Promises.await(promise));
+    }
+
+    @Test
+    public void trySuccessWithDeepApplyChainTest() throws Exception {
+        // Arrange
+        assumeTrue(Deferred.isTrampolineEnabled());
+        final int stepCount = 100000;
+        final Deferred<Integer> deferred = new Deferred<>();
+        Promise<Integer> promise = deferred;
+
+        for (int i = 0; i < stepCount; ++i) {
+            promise = promise.then(new Apply<Integer, Integer>() {
+                @Override
+                protected Integer doApply(final Integer value) {
+                    return value + 1;
+                }
+            });
+        }
+
+        // Act
+        deferred.setSuccess(0);
+
+        // Assert
+        assertTrue(promise.isComplete());
+        assertEquals(Integer.valueOf(stepCount), Promises.await(promise));
+    }
+
+    @Test
+    public void trySuccessWithBlockingBridgeInDeepApplyChainTest() throws Exception {
+        // Arrange
+        final int stepCount = 40;
+        final Deferred<Integer> deferred = new Deferred<>();
+        Promise<Integer> promise = deferred;
+
+        for (int i = 0; i < stepCount; ++i) {
+            promise = promise.then(new Apply<Integer, Integer>() {
+                @Override
+                protected Integer doApply(final Integer value) throws Exception {
+                    return Promises.toFuture(Promises.newSuccess(value + 1)).get(1, TimeUnit.SECONDS);
+                }
+            });
+        }
+
+        // Act
+        deferred.setSuccess(0);
+
+        // Assert
+        assertEquals(Integer.valueOf(stepCount), Promises.await(promise));
+    }
+
+    @Test
+    public void listenTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final RecordingCompletable completable = new RecordingCompletable(1);
+
+        deferred.listen(completable);
+
+        // Act
+        deferred.setSuccess(1);
+
+        // Assert
+        assertThat(completable._values.get(0), is(1));
+    }
+
+    @Test
+    public void listenWithCompleteDeferredTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>(1);
+        final RecordingCompletable completable = new RecordingCompletable(1);
+
+        // Act
+        final Deferred.Registration registration = deferred.listen(completable);
+
+        // Assert
+        assertThat(completable._values.get(0), is(1));
+        assertThat(registration.remove(), is(false));
+    }
+
+    @Test
+    public void removeTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final RecordingCompletable completable = new RecordingCompletable(1);
+        final Deferred.Registration registration = deferred.listen(completable);
+
+        // Act
+        final boolean removed = registration.remove();
+
+        deferred.setSuccess(1);
+
+        // Assert
+        assertThat(removed, is(true));
+        assertThat(registration.remove(), is(false));
+        assertThat(completable._values.isEmpty(), is(true));
+    }
+
+    @Test
+    public void removeAfterCompletionTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Deferred.Registration registration = deferred.listen(new RecordingCompletable(1));
+
+        deferred.setSuccess(1);
+
+        // Act
+        final boolean removed = registration.remove();
+
+        // Assert
+        assertThat(removed, is(false));
+    }
+
+    @Test
+    public void removeWithCompactionTest() {
+        // Arrange
+        final int listenerCount = 1000;
+        final Deferred<Integer> deferred = new Deferred<>();
+        final RecordingCompletable completable = new RecordingCompletable(listenerCount);
+        final List<Deferred.Registration> registrations = new ArrayList<>();
+
+        for (int i = 0; i < listenerCount; ++i) {
+            registrations.add(deferred.listen(completable));
+            if (i == (listenerCount / 2)) {
+                deferred.then(completable);
+            }
+        }
+
+        // Act
+        for (int i = 0; i < listenerCount; i += 2) {
+            registrations.get(i).remove();
+        }
+        deferred.setSuccess(1);
+
+        // Assert
+        assertThat(completable._values.size(), is((listenerCount / 2) + 1));
+    }
+
+    @Test
+    public void removeWithInterleavedThenTest() {
+        // Arrange
+        final int listenerCount = 1000;
+        final Deferred<Integer> deferred = new Deferred<>();
+        final RecordingCompletable completable = new RecordingCompletable(listenerCount);
+        final RecordingCompletable listener = new RecordingCompletable(1);
+
+        // Act
+        for (int i = 0; i < listenerCount; ++i) {
+            final Deferred.Registration registration = deferred.listen(completable);
+
+            deferred.then(completable);
+            registration.remove();
+        }
+        deferred.listen(listener);
+
+        // Assert
+        assertTrue(deferred.getListenerCount() <= 16);
+        deferred.setSuccess(1);
+        assertThat(completable._values.size(), is(listenerCount));
+        assertThat(listener._values.size(), is(1));
+    }
+
+    @Test
+    public void removeWithConcurrentCompletionTest()throws InterruptedException {
+        // Arrange
+        final int listenerCount = 10000;
+        final Deferred<Integer> deferred = new Deferred<>();
+        final RecordingCompletable completable = new RecordingCompletable(listenerCount);
+        final List<Deferred.Registration> registrations = new ArrayList<>();
+        final AtomicInteger removed = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        for (int i = 0; i < listenerCount; ++i) {
+            registrations.add(deferred.listen(completable));
+        }
+
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+                for (final Deferred.Registration registration : registrations) {
+                    if (registration.remove()) {
+                        removed.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        thread.start();
+        latch.await();
+
+        // Act
+        deferred.setSuccess(1);
+        thread.join();
+
+        // Assert
+        assertThat(completable._values.size() + removed.get(), is(listenerCount));
+    }
+
+    private static Promise<Integer> loop(final int step, final int stepCount) {
+        if (step == stepCount) {
+            return Promises.newSuccess(step);
+        }
+
+        return Promises.newSuccess(step + 1).then(new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) {
+                return loop(value, stepCount);
+            }
+        });
+    }
+
+    private static final class RecordingCompletable implements Completable<Integer> {
+
+        private final List<Integer> _values;
+
+        public RecordingCompletable(final int capacity) {
+            _values = Collections.synchronizedList(new ArrayList<Integer>(capacity));
+        }
+
+        @Override
+        public void setSuccess(final Integer value) {
+            _values.add(value);
+        }
+
+        @Override
+        public void setFailure(final Throwable cause) {
+        }
+    }
 }
@@ -0,0 +1,276 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.easymock.EasyMock.*;
+import static org.junit.Assume.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class DoubleDeferredTest {
+
+    @Test
+    public void constructorTest() {
+        // Arrange
+        // Act
+        final DoubleDeferred deferred = new DoubleDeferred();
+
+        // Assert
+        assertFalse(deferred.isComplete());
+    }
+
+    @Test
+    public void constructorWithValueTest() {
+        // Arrange
+        final DoubleCompletable completable = createStrictMock(DoubleCompletable.class);
+
+        completable.setSuccess(1.0);
+        replay(completable);
+
+        // Act
+        final DoubleDeferred deferred = new DoubleDeferred(1.0);
+
+        deferred.then(completable);
+
+        // Assert
+        verify(completable);
+        assertTrue(deferred.isComplete());
+    }
+
+    @Test
+    public void trySuccessTest() {
+        // Arrange
+        final DoubleDeferred deferred = new DoubleDeferred();
+
+        // Act
+        final boolean success = deferred.trySuccess(1.0);
+
+        // Assert
+        assertTrue(success);
+        assertTrue(deferred.isComplete());
+        assertFalse(deferred.trySuccess(2.0));
+        assertFalse(deferred.tryFailure(new Throwable()));
+    }
+
+    @Test
+    public void trySuccessWithMultipleThenTest() {
+        // Arrange
+        final DoubleCompletable completable = createStrictMock(DoubleCompletable.class);
+        final DoubleDeferred deferred = new DoubleDeferred();
+
+        completable.setSuccess(1.0);
+        expectLastCall().times(3);
+        replay(completable);
+        deferred.then(completable);
+        deferred.then(completable);
+        deferred.then(completable);
+
+        // Act
+        deferred.setSuccess(1.0);
+
+        // Assert
+        verify(completable);
+    }
+
+    @Test
+    public void setFailureWithThenTest() {
+        // Arrange
+        final DoubleCompletable completable = createStrictMock(DoubleCompletable.class);
+        final Throwable cause = new Throwable();
+        final DoubleDeferred deferred = new DoubleDeferred();
+
+        completable.setFailure(cause);
+        replay(completable);
+        deferred.then(completable);
+
+        // Act
+        final boolean failure = deferred.tryFailure(cause);
+
+        // Assert
+        verify(completable);
+        assertTrue(failure);
+        assertTrue(deferred.isComplete());
+    }
+
+    @Test
+    public void thenWithApplyTest() {
+        // Arrange
+        final DoubleCompletable completable = createStrictMock(DoubleCompletable.class);
+        final DoubleDeferred deferred = new DoubleDeferred();
+
+        completable.setSuccess(2.0);
+        replay(completable);
+        deferred.then(new Increment()).then(completable);
+
+        // Act
+        deferred.setSuccess(1.0);
+
+        // Assert
+        verify(completable);
+    }
+
+    @Test
+    public void thenWithSetSuccessAndApplyTest() {
+        // Arrange
+        final DoubleCompletable completable = createStrictMock(DoubleCompletable.class);
+        final DoubleDeferred deferred = new DoubleDeferred(1.0);
+
+        completable.setSuccess(2.0);
+        replay(completable);
+
+        // Act
+        final DoublePromise promise = deferred.then(new Increment());
+
+        promise.then(completable);
+
+        // Assert
+        verify(completable);
+        assertTrue(promise.isComplete());
+    }
+
+    @Test
+    public void thenWithSetSuccessAndThrowingApplyTest() {
+        // Arrange
+        final DoubleCompletable completable = createStrictMock(DoubleCompletable.class);
+        final IllegalStateException exception = new IllegalStateException();
+        final DoubleDeferred deferred = new DoubleDeferred(1.0);
+
+        completable.setFailure(exception);
+        replay(completable);
+
+        // Act
+        deferred.then(new DoubleApply() {
+            @Override
+            protected double doApply(final double value) {
+                throw exception;
+            }
+        }).then(completable);
+
+        // Assert
+        verify(completable);
+    }
+
+    @Test
+    public void thenWithSetFailureAndApplyTest() {
+        // Arrange
+        final DoubleCompletable completable = createStrictMock(DoubleCompletable.class);
+        final Throwable cause = new Throwable();
+        final DoubleDeferred deferred = new DoubleDeferred(cause);
+
+        completable.setFailure(cause);
+        replay(completable);
+
+        // Act
+        deferred.then(new Increment()).then(completable);
+
+        // Assert
+        verify(completable);
+    }
+
+    @Test
+    public void trySuccessWithDeepApplyChainTest() {
+        // Arrange
+        assumeTrue(Deferred.isTrampolineEnabled());
+        final DoubleCompletable completable = createStrictMock(DoubleCompletable.class);
+        final DoubleDeferred deferred = new DoubleDeferred();
+        final Increment increment = new Increment();
+        DoublePromise promise = deferred;
+
+        completable.setSuccess(100000.0);
+        replay(completable);
+        for (int i = 0; i < 100000; i++) {
+            promise = promise.then(increment);
+        }
+        promise.then(completable);
+
+        // Act
+        deferred.setSuccess(0.0);
+
+        // Assert
+        verify(completable);
+    }
+
+    @Test
+    public void trySuccessWithConcurrentTrySuccessTest() throws InterruptedException {
+        // Arrange
+        final int threadCount = 4;
+        final DoubleDeferred deferred = new DoubleDeferred();
+        final AtomicInteger successes = new AtomicInteger();
+        final double[] values = new double[threadCount];
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch completionLatch = new CountDownLatch(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        if (deferred.trySuccess(index)) {
+                            successes.incrementAndGet();
+                        }
+                        deferred.then(new DoubleCompletable() {
+                            @Override
+                            public void setSuccess(final double value) {
+                                values[index] = value;
+                            }
+
+                            @Override
+                            public void setFailure(final Throwable cause) {
+                            }
+                        });
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        completionLatch.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        // Act
+        startLatch.countDown();
+        completionLatch.await();
+
+        // Assert
+        assertThat(successes.get(), is(1));
+        for (int i = 1; i < threadCount; i++) {
+            assertThat(values[i], is(values[0]));
+        }
+    }
+
+    /**
+     * Represents an apply continuation incrementing the value.
+     */
+    private static final class Increment extends DoubleApply {
+
+        @Override
+        protected double doApply(final double value) {
+            return value + 1;
+        }
+    }
+}
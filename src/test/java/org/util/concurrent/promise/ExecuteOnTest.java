@@ -0,0 +1,127 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.easymock.EasyMock.*;
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ExecuteOnTest {
+
+    @Test
+    public void onSuccessTest() throws Exception {
+        // Arrange
+        final AffineExecutor executor = createStrictMock(AffineExecutor.class);
+        @SuppressWarnings("unchecked")
+        final Completable<Integer> completable = createStrictMock(Completable.class);
+
+        expect(executor.inExecutor()).andReturn(false);
+        executor.execute(anyObject(Runnable.class));
+        replay(executor, completable);
+
+        // Act
+        new ExecuteOn<Integer>(executor).onSuccess(42, completable);
+
+        // Assert
+        verify(executor, completable);
+    }
+
+    @Test
+    public void onSuccessInExecutorTest() throws Exception {
+        // Arrange
+        final AffineExecutor executor = createStrictMock(AffineExecutor.class);
+        @SuppressWarnings("unchecked")
+        final Completable<Integer> completable = createStrictMock(Completable.class);
+
+        expect(executor.inExecutor()).andReturn(true);
+        completable.setSuccess(42);
+        replay(executor, completable);
+
+        // Act
+        new ExecuteOn<Integer>(executor).onSuccess(42, completable);
+
+        // Assert
+        verify(executor, completable);
+    }
+
+    @Test
+    public void onFailureInExecutorTest() throws Exception {
+        // Arrange
+        final AffineExecutor executor = createStrictMock(AffineExecutor.class);
+        @SuppressWarnings("unchecked")
+        final Completable<Integer> completable = createStrictMock(Completable.class);
+        final Exception exception = new Exception();
+
+        expect(executor.inExecutor()).andReturn(true);
+        completable.setFailure(exception);
+        replay(executor, completable);
+
+        // Act
+        new ExecuteOn<Integer>(executor).onFailure(exception, completable);
+
+        // Assert
+        verify(executor, completable);
+    }
+
+    @Test
+    public void onSuccessInExecutorWithMaxDepthTest() throws Exception {
+        // Arrange
+        final List<Runnable> tasks = new ArrayList<>();
+        final ExecuteOn<Integer> executeOn = new ExecuteOn<>(new AffineExecutor() {
+            @Override
+            public void execute(final Runnable command) {
+                tasks.add(command);
+            }
+
+            @Override
+            public boolean inExecutor() {
+                return true;
+            }
+        });
+        final int[] completions = new int[1];
+        final Completable<Integer> completable = new Completable<Integer>() {
+            @Override
+            public void setSuccess(final Integer value) {
+                ++completions[0];
+                try {
+                    executeOn.onSuccess(value, this);
+                } catch (final Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public void setFailure(final Throwable cause) {
+            }
+        };
+
+        // Act
+        executeOn.onSuccess(42, completable);
+
+        // Assert
+        assertThat(completions[0], is(16));
+        assertThat(tasks.size(), is(1));
+    }
+}
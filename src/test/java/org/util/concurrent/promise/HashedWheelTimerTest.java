@@ -0,0 +1,92 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class HashedWheelTimerTest {
+
+    @Test
+    public void scheduleTest() throws InterruptedException {
+        // Arrange
+        final HashedWheelTimer timer = HashedWheelTimer.getShared();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        // Act
+        final HashedWheelTimer.Timeout timeout = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+
+        // Assert
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    public void scheduleWithMultipleRoundsTest() throws InterruptedException {
+        // Arrange
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 1, TimeUnit.MILLISECONDS, 4);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long startTime = System.nanoTime();
+
+        // Act
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        // Assert
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void cancelTest() throws InterruptedException {
+        // Arrange
+        final HashedWheelTimer timer = HashedWheelTimer.getShared();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final HashedWheelTimer.Timeout timeout = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 20, TimeUnit.MILLISECONDS);
+
+        // Act
+        final boolean cancelled = timeout.cancel();
+
+        // Assert
+        assertTrue(cancelled);
+        assertTrue(timeout.isCancelled());
+        assertFalse(latch.await(100, TimeUnit.MILLISECONDS));
+        assertFalse(timeout.isExpired());
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class HistogramTest {
+
+    @Test
+    public void indexOfTest() {
+        // Arrange
+        // Act
+        // Assert
+        for (long value = 0; value < 100000; value++) {
+            final int index = Histogram.indexOf(value);
+
+            assertTrue(value <= Histogram.highestEquivalentValue(index));
+            assertTrue((index == 0) || (value > Histogram.highestEquivalentValue(index - 1)));
+        }
+        assertThat(Histogram.highestEquivalentValue(Histogram.indexOf(Long.MAX_VALUE)), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void getValueAtPercentileTest() {
+        // Arrange
+        final Histogram histogram = new Histogram();
+
+        // Act
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        // Assert
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getMax(), is(1000000L));
+        assertWithinError(histogram.getValueAtPercentile(50), 500000L);
+        assertWithinError(histogram.getValueAtPercentile(99), 990000L);
+        assertThat(histogram.getValueAtPercentile(100), is(1000000L));
+    }
+
+    @Test
+    public void getValueAtPercentileWithoutValuesTest() {
+        // Arrange
+        final Histogram histogram = new Histogram();
+
+        // Act
+        final long value = histogram.getValueAtPercentile(99);
+
+        // Assert
+        assertThat(value, is(0L));
+    }
+
+    private static void assertWithinError(final long actual, final long expected) {
+        assertTrue(actual + " is not within 1/16 of " + expected, Math.abs(actual - expected) <= (expected / 16));
+    }
+}
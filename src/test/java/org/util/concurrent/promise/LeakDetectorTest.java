@@ -0,0 +1,106 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LeakDetectorTest {
+
+    @Test
+    public void reportLeaksTest() throws InterruptedException {
+        // Arrange
+        final LeakDetector detector = new LeakDetector(1);
+
+        trackDeferred(detector, true, false);
+
+        // Act
+        final int leaks = collectLeaks(detector, 1);
+
+        // Assert
+        assertThat(leaks, is(1));
+        assertThat(detector.getLeaks(), is(1L));
+    }
+
+    @Test
+    public void reportLeaksWithCompletedDeferredTest() throws InterruptedException {
+        // Arrange
+        final LeakDetector detector = new LeakDetector(1);
+
+        trackDeferred(detector, true, true);
+
+        // Act
+        final int leaks = collectLeaks(detector, 0);
+
+        // Assert
+        assertThat(leaks, is(0));
+    }
+
+    @Test
+    public void reportLeaksWithoutCompletablesTest() throws InterruptedException {
+        // Arrange
+        final LeakDetector detector = new LeakDetector(1);
+
+        trackDeferred(detector, false, false);
+
+        // Act
+        final int leaks = collectLeaks(detector, 0);
+
+        // Assert
+        assertThat(leaks, is(0));
+    }
+
+    /**
+     * Creates a deferred tracked by the specified detector which becomes unreachable on return.
+     */
+    private static void trackDeferred(final LeakDetector detector, final boolean withCompletable, final boolean complete) {
+        final Deferred<Integer> deferred = new Deferred<>();
+        final LeakDetector.LeakTracker tracker = detector.track(deferred);
+
+        deferred.then(tracker);
+        if (withCompletable) {
+            tracker.onThen();
+            deferred.then(new Deferred<Integer>());
+        }
+        if (complete) {
+            deferred.setSuccess(1);
+        }
+    }
+
+    /**
+     * Runs the garbage collector until the expected number of leaks has been reported or a limit has been reached.
+     */
+    private static int collectLeaks(final LeakDetector detector, final int expectedLeaks) throws InterruptedException {
+        int leaks = 0;
+
+        for (int i = 0; (i < 20) && (leaks <= expectedLeaks); i++) {
+            System.gc();
+            Thread.sleep(10);
+            leaks += detector.reportLeaks();
+            if ((expectedLeaks > 0) && (leaks == expectedLeaks)) {
+                break;
+            }
+        }
+
+        return leaks;
+    }
+}
@@ -20,8 +20,15 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.*;
 import static org.easymock.EasyMock.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -143,4 +150,818 @@ public final class PromisesTest {
         assertFalse(future.isCancelled());
         future.get(0, TimeUnit.MICROSECONDS);
     }
+
+    @Test
+    public void getWithToFutureAndTimeoutRemovesWaiterTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final CompletableFuture<Integer> future = (CompletableFuture<Integer>) Promises.toFuture(deferred);
+
+        // Act
+        for (int i = 0; i < 100; ++i) {
+            try {
+                future.get(1, TimeUnit.MICROSECONDS);
+                fail();
+            } catch (final TimeoutException e) {
+            }
+        }
+
+        // Assert
+        assertThat(future.getWaiterCount(), is(0));
+        deferred.setSuccess(1);
+        assertThat(future.get(), is(1));
+    }
+
+    @Test
+    public void getWithToFutureAndInterruptRemovesWaiterTest() throws ExecutionException {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final CompletableFuture<Integer> future = (CompletableFuture<Integer>) Promises.toFuture(deferred);
+
+        Thread.currentThread().interrupt();
+
+        // Act
+        try {
+            future.get();
+            fail();
+        } catch (final InterruptedException e) {
+        }
+
+        // Assert
+        assertThat(future.getWaiterCount(), is(0));
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void allTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Deferred<Integer> deferred1 = new Deferred<>();
+        final Deferred<Integer> deferred2 = new Deferred<>();
+        final Promise<List<Integer>> promise = Promises.all(Arrays.asList(deferred1, deferred2, Promises.newSuccess(3)));
+
+        // Act
+        deferred2.setSuccess(2);
+        final boolean completeBefore = promise.isComplete();
+        deferred1.setSuccess(1);
+
+        // Assert
+        assertFalse(completeBefore);
+        assertTrue(promise.isComplete());
+        assertThat(Promises.await(promise), is(Arrays.asList(1, 2, 3)));
+    }
+
+    @Test
+    public void allWithEmptyCollectionTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final List<Promise<Integer>> promises = Collections.emptyList();
+
+        // Act
+        final Promise<List<Integer>> promise = Promises.all(promises);
+
+        // Assert
+        assertTrue(promise.isComplete());
+        assertTrue(Promises.await(promise).isEmpty());
+    }
+
+    @Test
+    public void allWithFailureTest() throws InterruptedException {
+        // Arrange
+        final Throwable cause = new Throwable();
+        final Deferred<Integer> deferred1 = new Deferred<>();
+        final Deferred<Integer> deferred2 = new Deferred<>();
+        final Promise<List<Integer>> promise = Promises.all(Arrays.asList(deferred1, deferred2));
+
+        // Act
+        deferred2.setFailure(cause);
+
+        // Assert
+        assertTrue(promise.isComplete());
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(cause, e.getCause());
+        }
+    }
+
+    @Test
+    public void allWithNullPromiseTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Deferred<Integer> dependent = new Deferred<>();
+
+        // Act
+        try {
+            Promises.all(Arrays.asList(deferred, null));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // Expected
+        }
+        deferred.then(dependent);
+        dependent.cancel();
+
+        // Assert
+        assertTrue(deferred.isCancelled());
+    }
+
+    @Test
+    public void allSettledTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Throwable cause = new Throwable();
+        final Deferred<Integer> deferred1 = new Deferred<>();
+        final Deferred<Integer> deferred2 = new Deferred<>();
+        final Promise<List<Outcome<Integer>>> promise = Promises.allSettled(Arrays.asList(deferred1, deferred2));
+
+        // Act
+        deferred2.setFailure(cause);
+        final boolean completeBefore = promise.isComplete();
+        deferred1.setSuccess(1);
+
+        // Assert
+        assertFalse(completeBefore);
+        assertTrue(promise.isComplete());
+        final List<Outcome<Integer>> outcomes = Promises.await(promise);
+
+        assertTrue(outcomes.get(0).isSuccess());
+        assertThat(outcomes.get(0).getValue(), is(1));
+        assertFalse(outcomes.get(1).isSuccess());
+        assertSame(cause, outcomes.get(1).getCause());
+    }
+
+    @Test
+    public void raceTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Deferred<Integer> deferred1 = new Deferred<>();
+        final Deferred<Integer> deferred2 = new Deferred<>();
+        final Promise<Integer> promise = Promises.race(Arrays.asList(deferred1, deferred2));
+
+        // Act
+        deferred2.setSuccess(2);
+
+        // Assert
+        assertTrue(promise.isComplete());
+        assertThat(Promises.await(promise), is(2));
+        assertTrue(deferred1.isCancelled());
+    }
+
+    @Test
+    public void raceWithDependentLoserTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final int raceCount = 1000;
+        final Deferred<Integer> loser = new Deferred<>();
+        final Deferred<Integer> dependent = new Deferred<>();
+
+        loser.then(dependent);
+
+        // Act
+        for (int i = 0; i < raceCount; ++i) {
+            final Deferred<Integer> winner = new Deferred<>();
+            final Promise<Integer> promise = Promises.race(Arrays.asList(winner, loser));
+
+            winner.setSuccess(i);
+            assertThat(Promises.await(promise), is(i));
+        }
+
+        // Assert
+        assertFalse(loser.isComplete());
+        assertTrue(loser.getListenerCount() <= 16);
+        dependent.cancel();
+        assertTrue(loser.isCancelled());
+    }
+
+    @Test
+    public void raceWithCancelTest() {
+        // Arrange
+        final Deferred<Integer> deferred1 = new Deferred<>();
+        final Deferred<Integer> deferred2 = new Deferred<>();
+        final Promise<Integer> promise = Promises.race(Arrays.asList(deferred1, deferred2));
+
+        // Act
+        ((Deferred<Integer>) promise).cancel();
+
+        // Assert
+        assertTrue(deferred1.isCancelled());
+        assertTrue(deferred2.isCancelled());
+    }
+
+    @Test
+    public void raceWithNullPromiseTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Deferred<Integer> dependent = new Deferred<>();
+
+        // Act
+        try {
+            Promises.race(Arrays.asList(deferred, null));
+            fail();
+        } catch (final IllegalArgumentException e) {
+            // Expected
+        }
+        deferred.then(dependent);
+        dependent.cancel();
+
+        // Assert
+        assertTrue(deferred.isCancelled());
+        assertThat(deferred.getListenerCount(), is(0));
+    }
+
+    @Test
+    public void raceWithFailureTest() throws InterruptedException {
+        // Arrange
+        final Throwable cause = new Throwable();
+        final Deferred<Integer> deferred1 = new Deferred<>();
+        final Deferred<Integer> deferred2 = new Deferred<>();
+        final Promise<Integer> promise = Promises.race(Arrays.asList(deferred1, deferred2));
+
+        // Act
+        deferred1.setFailure(cause);
+
+        // Assert
+        assertTrue(promise.isComplete());
+        assertTrue(deferred2.isCancelled());
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(cause, e.getCause());
+        }
+    }
+
+    @Test
+    public void anyTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Deferred<Integer> deferred1 = new Deferred<>();
+        final Deferred<Integer> deferred2 = new Deferred<>();
+        final Promise<Integer> promise = Promises.any(Arrays.asList(deferred1, deferred2));
+
+        // Act
+        deferred1.setFailure(new Throwable());
+        final boolean completeBefore = promise.isComplete();
+        deferred2.setSuccess(2);
+
+        // Assert
+        assertFalse(completeBefore);
+        assertTrue(promise.isComplete());
+        assertThat(Promises.await(promise), is(2));
+    }
+
+    @Test
+    public void anyWithFailuresTest() throws InterruptedException {
+        // Arrange
+        final Throwable cause1 = new Throwable();
+        final Throwable cause2 = new Throwable();
+        final Deferred<Integer> deferred1 = new Deferred<>();
+        final Deferred<Integer> deferred2 = new Deferred<>();
+        final Promise<Integer> promise = Promises.any(Arrays.asList(deferred1, deferred2));
+
+        // Act
+        deferred2.setFailure(cause2);
+        deferred1.setFailure(cause1);
+
+        // Assert
+        assertTrue(promise.isComplete());
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertArrayEquals(new Throwable[] { cause1, cause2 }, e.getCause().getSuppressed());
+        }
+    }
+
+    @Test
+    public void cancelWithToFutureTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Future<Integer> future = Promises.toFuture(deferred);
+
+        // Act
+        final boolean cancelled = future.cancel(false);
+
+        // Assert
+        assertTrue(cancelled);
+        assertTrue(future.isCancelled());
+        assertTrue(future.isDone());
+        assertTrue(deferred.isCancelled());
+    }
+
+    @Test
+    public void cancelWithPooledDeferredAndToFutureTest() {
+        // Arrange
+        final PooledDeferred<Integer> deferred = new DeferredPool<Integer>().acquire();
+        final Future<Integer> future = Promises.toFuture(deferred);
+
+        // Act
+        final boolean cancelled = future.cancel(false);
+
+        // Assert
+        assertTrue(cancelled);
+        assertTrue(future.isCancelled());
+        assertTrue(deferred.isCancelled());
+    }
+
+    @Test
+    public void cancelWithNewSuccessTest() {
+        // Arrange
+        final Promise<Integer> promise = Promises.newSuccess(1);
+
+        // Act
+        final boolean cancelled = Promises.cancel(promise);
+
+        // Assert
+        assertFalse(cancelled);
+    }
+
+    @Test
+    public void timeoutTest() throws InterruptedException {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        // Act
+        final Promise<Integer> promise = Promises.timeout(deferred, 10, TimeUnit.MILLISECONDS);
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void timeoutWithSetSuccessTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Promise<Integer> promise = Promises.timeout(deferred, 1, TimeUnit.MINUTES);
+
+        // Act
+        deferred.setSuccess(1);
+
+        // Assert
+        assertTrue(promise.isComplete());
+        assertThat(Promises.await(promise), is(1));
+    }
+
+    @Test
+    public void timeoutWithLateSetSuccessTest() throws InterruptedException {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Promise<Integer> promise = Promises.timeout(deferred, 10, TimeUnit.MILLISECONDS);
+
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        // Act
+        final boolean completed = deferred.trySuccess(1);
+
+        // Assert
+        assertTrue(completed);
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void timeoutWithCancelTest() {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Promise<Integer> promise = Promises.timeout(deferred, 1, TimeUnit.MINUTES);
+
+        // Act
+        Promises.cancel(promise);
+
+        // Assert
+        assertTrue(deferred.isCancelled());
+    }
+
+    @Test
+    public void delayTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final long startTime = System.nanoTime();
+
+        // Act
+        final Promise<Integer> promise = Promises.delay(20, TimeUnit.MILLISECONDS, 1);
+
+        // Assert
+        assertThat(Promises.await(promise), is(1));
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void awaitWithSetSuccessByOtherThreadTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(10);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                deferred.setSuccess(1);
+            }
+        });
+
+        // Act
+        thread.start();
+        final Integer value = Promises.await(deferred);
+
+        // Assert
+        assertThat(value, is(1));
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void awaitWithTimeoutTest() throws InterruptedException, ExecutionException, TimeoutException {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        // Act
+        // Assert
+        Promises.await(deferred, 10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void awaitWithInterruptTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Deferred<Integer> deferred = new Deferred<>();
+
+        Thread.currentThread().interrupt();
+
+        // Act
+        // Assert
+        Promises.await(deferred);
+    }
+
+    @Test
+    public void asyncTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Thread thread = Thread.currentThread();
+
+        // Act
+        final Promise<Boolean> promise = Promises.async(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return (Thread.currentThread() != thread);
+            }
+        });
+
+        // Assert
+        assertThat(Promises.await(promise), is(true));
+    }
+
+    @Test
+    public void asyncWithExceptionTest() throws InterruptedException {
+        // Arrange
+        final Exception exception = new Exception();
+
+        // Act
+        final Promise<Integer> promise = Promises.async(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                throw exception;
+            }
+        });
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void supplyAsyncTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                tasks.add(command);
+            }
+        };
+
+        // Act
+        final Promise<Integer> promise = Promises.supplyAsync(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 42;
+            }
+        }, executor);
+
+        // Assert
+        assertThat(promise.isComplete(), is(false));
+        assertThat(tasks.size(), is(1));
+
+        tasks.get(0).run();
+
+        assertThat(Promises.await(promise), is(42));
+    }
+
+    @Test
+    public void runAsyncTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Runnable runnable = createStrictMock(Runnable.class);
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                tasks.add(command);
+            }
+        };
+
+        runnable.run();
+        replay(runnable);
+
+        // Act
+        final Promise<Void> promise = Promises.runAsync(runnable, executor);
+
+        // Assert
+        assertThat(promise.isComplete(), is(false));
+
+        tasks.get(0).run();
+
+        assertThat(promise.isComplete(), is(true));
+        assertThat(Promises.await(promise), is(nullValue()));
+        verify(runnable);
+    }
+
+    @Test
+    public void runAsyncWhenCancelledTest() {
+        // Arrange
+        final Runnable runnable = createStrictMock(Runnable.class);
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                tasks.add(command);
+            }
+        };
+
+        replay(runnable);
+
+        // Act
+        final Promise<Void> promise = Promises.runAsync(runnable, executor);
+
+        Promises.cancel(promise);
+        tasks.get(0).run();
+
+        // Assert
+        verify(runnable);
+    }
+
+    @Test
+    public void supplyAsyncWhenRejectedTest() throws InterruptedException {
+        // Arrange
+        final RejectedExecutionException exception = new RejectedExecutionException();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                throw exception;
+            }
+        };
+
+        // Act
+        final Promise<Integer> promise = Promises.supplyAsync(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 42;
+            }
+        }, executor);
+
+        // Assert
+        assertThat(promise.isComplete(), is(true));
+
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void supplyAsyncBatchedTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final List<Callable<Integer>> callables = new ArrayList<>();
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                tasks.add(command);
+            }
+        };
+
+        for (int i = 0; i < 10; i++) {
+            final int value = i;
+
+            callables.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return value;
+                }
+            });
+        }
+
+        // Act
+        final List<Promise<Integer>> promises = Promises.supplyAsync(callables, executor, 4);
+
+        // Assert
+        assertThat(tasks.size(), is(3));
+        assertThat(promises.size(), is(10));
+
+        for (final Runnable task : tasks) {
+            task.run();
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(Promises.await(promises.get(i)), is(i));
+        }
+    }
+
+    @Test
+    public void boxedTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final LongDeferred deferred = new LongDeferred();
+
+        // Act
+        final Promise<Long> promise = Promises.boxed(deferred);
+
+        deferred.setSuccess(42L);
+
+        // Assert
+        assertThat(Promises.await(promise), is(42L));
+        assertThat(Promises.await(Promises.boxed(new IntDeferred(42))), is(42));
+        assertThat(Promises.await(Promises.boxed(new DoubleDeferred(0.5))), is(0.5));
+    }
+
+    @Test
+    public void toLongPromiseTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final Deferred<Long> deferred = new Deferred<>();
+
+        // Act
+        final LongPromise promise = Promises.toLongPromise(deferred);
+
+        deferred.setSuccess(42L);
+
+        // Assert
+        assertThat(Promises.await(Promises.boxed(promise)), is(42L));
+    }
+
+    @Test
+    public void toIntPromiseWithNullTest() throws InterruptedException {
+        // Arrange
+        final Promise<Integer> source = Promises.newSuccess(null);
+
+        // Act
+        final IntPromise promise = Promises.toIntPromise(source);
+
+        // Assert
+        try {
+            Promises.await(Promises.boxed(promise));
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(NullPointerException.class)));
+        }
+    }
+
+    @Test
+    public void toDoublePromiseWithFailureTest() throws InterruptedException {
+        // Arrange
+        final Exception exception = new Exception();
+
+        // Act
+        final DoublePromise promise = Promises.toDoublePromise(Promises.<Double> newFailure(exception));
+
+        // Assert
+        try {
+            Promises.await(Promises.boxed(promise));
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void mapConcurrentlyTest() throws InterruptedException, ExecutionException {
+        // Act
+        final Promise<List<Integer>> promise = Promises.mapConcurrently(Arrays.asList(1, 2, 3), 2, new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) {
+                return Promises.newSuccess(value * 2);
+            }
+        });
+
+        // Assert
+        assertThat(Promises.await(promise), is(Arrays.asList(2, 4, 6)));
+    }
+
+    @Test
+    public void mapConcurrentlyWithLimitTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final List<Deferred<Integer>> mappings = new ArrayList<>();
+        final Promise<List<Integer>> promise = Promises.mapConcurrently(Arrays.asList(1, 2, 3), 2, new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) {
+                final Deferred<Integer> mapping = new Deferred<>();
+
+                mappings.add(mapping);
+
+                return mapping;
+            }
+        });
+
+        // Act
+        final int pending = mappings.size();
+
+        mappings.get(1).setSuccess(2);
+        mappings.get(2).setSuccess(3);
+        mappings.get(0).setSuccess(1);
+
+        // Assert
+        assertThat(pending, is(2));
+        assertThat(Promises.await(promise), is(Arrays.asList(1, 2, 3)));
+    }
+
+    @Test
+    public void mapConcurrentlyWithFailureTest() throws InterruptedException {
+        // Arrange
+        final Exception exception = new Exception();
+
+        // Act
+        final Promise<List<Integer>> promise = Promises.mapConcurrently(Arrays.asList(1, 2, 3), 1, new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) throws Exception {
+                if (value == 2) {
+                    throw exception;
+                }
+
+                return Promises.newSuccess(value);
+            }
+        });
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void mapConcurrentlyWithFailureCancelsMappingsTest() {
+        // Arrange
+        final List<Deferred<Integer>> mappings = new ArrayList<>();
+
+        // Act
+        final Promise<List<Integer>> promise = Promises.mapConcurrently(Arrays.asList(1, 2, 3), 2, new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) {
+                final Deferred<Integer> mapping = new Deferred<>();
+
+                mappings.add(mapping);
+
+                return mapping;
+            }
+        });
+
+        mappings.get(1).setFailure(new Exception());
+
+        // Assert
+        assertThat(promise.isComplete(), is(true));
+        assertThat(mappings.size(), is(2));
+        assertThat(mappings.get(0).isCancelled(), is(true));
+    }
+
+    @Test
+    public void mapConcurrentlyWithManyItemsTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final List<Integer> items = new ArrayList<>();
+
+        for (int i = 0; i < 100000; i++) {
+            items.add(i);
+        }
+
+        // Act
+        final Promise<List<Integer>> promise = Promises.mapConcurrently(items, 4, new Compose<Integer, Integer>() {
+            @Override
+            protected Promise<Integer> doCompose(final Integer value) {
+                return Promises.newSuccess(value);
+            }
+        });
+
+        // Assert
+        assertThat(Promises.await(promise), is(items));
+    }
 }
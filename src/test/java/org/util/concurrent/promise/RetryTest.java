@@ -0,0 +1,260 @@
+/*
+ * Copyright © Martin Tamme
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.util.concurrent.promise;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class RetryTest {
+
+    @Test
+    public void retryTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final FailingOperation operation = new FailingOperation(2);
+
+        // Act
+        final Promise<Integer> promise = Promises.retry(operation, RetryPolicy.exponential(1, 10, TimeUnit.MILLISECONDS));
+
+        // Assert
+        assertThat(Promises.await(promise), is(3));
+        assertThat(operation._attempts.get(), is(3));
+    }
+
+    @Test
+    public void retryWithMaxAttemptsTest() throws InterruptedException {
+        // Arrange
+        final FailingOperation operation = new FailingOperation(Integer.MAX_VALUE);
+
+        // Act
+        final Promise<Integer> promise = Promises.retry(operation, RetryPolicy.decorrelatedJitter(1, 10, TimeUnit.MILLISECONDS).withMaxAttempts(4));
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause().getMessage(), is("4"));
+        }
+        assertThat(operation._attempts.get(), is(4));
+    }
+
+    @Test
+    public void retryWithMaxElapsedTimeTest() throws InterruptedException {
+        // Arrange
+        final FailingOperation operation = new FailingOperation(Integer.MAX_VALUE);
+
+        // Act
+        final Promise<Integer> promise = Promises.retry(operation, RetryPolicy.exponential(1, 1, TimeUnit.SECONDS).withMaxElapsedTime(100, TimeUnit.MILLISECONDS));
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause().getMessage(), is("1"));
+        }
+    }
+
+    @Test
+    public void retryWithBudgetTest() throws InterruptedException {
+        // Arrange
+        final RetryBudget budget = new RetryBudget(1, 1, 1, TimeUnit.HOURS);
+        final FailingOperation operation = new FailingOperation(Integer.MAX_VALUE);
+
+        // Act
+        final Promise<Integer> promise = Promises.retry(operation, RetryPolicy.exponential(1, 10, TimeUnit.MILLISECONDS).withBudget(budget));
+
+        // Assert
+        try {
+            Promises.await(promise);
+            fail();
+        } catch (final ExecutionException e) {
+            assertThat(e.getCause().getMessage(), is("2"));
+        }
+        assertThat(budget.getAvailableTokens(), is(0));
+    }
+
+    @Test
+    public void retryWithCancellationTest() throws InterruptedException {
+        // Arrange
+        final FailingOperation operation = new FailingOperation(Integer.MAX_VALUE);
+        final Promise<Integer> promise = Promises.retry(operation, RetryPolicy.exponential(100, 100, TimeUnit.MILLISECONDS));
+
+        // Act
+        final boolean cancelled = Promises.cancel(promise);
+
+        Thread.sleep(200);
+
+        // Assert
+        assertThat(cancelled, is(true));
+        assertThat(operation._attempts.get(), is(1));
+    }
+
+    @Test
+    public void retryWithCancellationDuringAttemptTest() throws InterruptedException {
+        // Arrange
+        final AtomicReference<Promise<Integer>> result = new AtomicReference<>();
+        final Deferred<Integer> attempt = new Deferred<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        // Act
+        result.set(Promises.retry(new Callable<Promise<Integer>>() {
+            @Override
+            public Promise<Integer> call() {
+                final Promise<Integer> promise = result.get();
+
+                if (promise == null) {
+                    return Promises.newFailure(new Exception());
+                }
+                Promises.cancel(promise);
+                latch.countDown();
+
+                return attempt;
+            }
+        }, RetryPolicy.exponential(50, 50, TimeUnit.MILLISECONDS)));
+
+        // Assert
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertThat(attempt.isCancelled(), is(true));
+    }
+
+    @Test
+    public void retryWithExceptionTest() throws InterruptedException, ExecutionException {
+        // Arrange
+        final AtomicInteger attempts = new AtomicInteger();
+
+        // Act
+        final Promise<Integer> promise = Promises.retry(new Callable<Promise<Integer>>() {
+            @Override
+            public Promise<Integer> call() throws Exception {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new Exception();
+                }
+
+                return Promises.newSuccess(1);
+            }
+        }, RetryPolicy.exponential(1, 10, TimeUnit.MILLISECONDS));
+
+        // Assert
+        assertThat(Promises.await(promise), is(1));
+    }
+
+    @Test
+    public void nextDelayWithExponentialTest() {
+        // Arrange
+        final RetryPolicy policy = RetryPolicy.exponential(10, 50, TimeUnit.NANOSECONDS);
+
+        // Act
+        final long first = policy.nextDelay(1, 0);
+        final long second = policy.nextDelay(2, first);
+        final long third = policy.nextDelay(3, second);
+        final long fourth = policy.nextDelay(4, third);
+        final long last = policy.nextDelay(100, fourth);
+
+        // Assert
+        assertThat(first, is(10L));
+        assertThat(second, is(20L));
+        assertThat(third, is(40L));
+        assertThat(fourth, is(50L));
+        assertThat(last, is(50L));
+    }
+
+    @Test
+    public void nextDelayWithDecorrelatedJitterTest() {
+        // Arrange
+        final RetryPolicy policy = RetryPolicy.decorrelatedJitter(10, 1000, TimeUnit.NANOSECONDS);
+        long delay = 0;
+
+        for (int attempt = 1; attempt <= 100; attempt++) {
+            // Act
+            final long next = policy.nextDelay(attempt, delay);
+
+            // Assert
+            assertThat((next >= 10) && (next <= Math.min(1000, 3 * Math.max(10, delay))), is(true));
+            delay = next;
+        }
+    }
+
+    @Test
+    public void tryAcquireTest() {
+        // Arrange
+        final RetryBudget budget = new RetryBudget(2, 1, 1, TimeUnit.HOURS);
+
+        // Act
+        final boolean first = budget.tryAcquire();
+        final boolean second = budget.tryAcquire();
+        final boolean third = budget.tryAcquire();
+
+        // Assert
+        assertThat(first, is(true));
+        assertThat(second, is(true));
+        assertThat(third, is(false));
+    }
+
+    @Test
+    public void tryAcquireWithRefillTest() throws InterruptedException {
+        // Arrange
+        final RetryBudget budget = new RetryBudget(1, 1, 10, TimeUnit.MILLISECONDS);
+
+        budget.tryAcquire();
+
+        // Act
+        Thread.sleep(20);
+
+        // Assert
+        assertThat(budget.getAvailableTokens(), is(1));
+        assertThat(budget.tryAcquire(), is(true));
+    }
+
+    /**
+     * Represents an operation which fails a number of times before it succeeds with the number of attempts.
+     */
+    private static final class FailingOperation implements Callable<Promise<Integer>> {
+
+        private final int _failures;
+
+        private final AtomicInteger _attempts = new AtomicInteger();
+
+        public FailingOperation(final int failures) {
+            _failures = failures;
+        }
+
+        @Override
+        public Promise<Integer> call() {
+            final int attempt = _attempts.incrementAndGet();
+
+            if (attempt <= _failures) {
+                return Promises.newFailure(new Exception(String.valueOf(attempt)));
+            }
+
+            return Promises.newSuccess(attempt);
+        }
+    }
+}